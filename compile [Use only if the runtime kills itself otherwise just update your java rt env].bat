@@ -2,7 +2,7 @@
 ECHO =======================================
 ECHO  Compiling Your STUFFFF
 ECHO =======================================
-javac --module-path "C:\jfx\lib;lib\*" --add-modules javafx.controls,javafx.graphics -d bin src/module-info.java src/com/traffic/interfaces/*.java src/com/traffic/server/*.java src/com/traffic/client/*.java
+javac --module-path "C:\jfx\lib;lib\*" --add-modules javafx.controls,javafx.graphics -d bin src/module-info.java src/com/traffic/interfaces/*.java src/com/traffic/server/*.java src/com/traffic/client/*.java src/com/traffic/wire/*.java src/com/traffic/mutex/*.java src/com/traffic/sim/*.java src/com/traffic/bench/*.java
 
 ECHO --------------------------------------------------------
 ECHO Successfully compiled your STUFFFF
@@ -0,0 +1,60 @@
+package com.traffic.bench;
+
+import com.traffic.server.DatabaseManager;
+import com.traffic.server.EventWriter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Events/sec of the inline DatabaseManager.logEventSync (new connection and transaction
+ * per event) against the batched {@link EventWriter}, both on a single store.
+ * Each run writes into a fresh temporary SQLite file. Needs the SQLite JDBC driver
+ * on the module path, like the server.
+ *
+ * Usage: EventWriterBench [inlineEvents] [writerEvents]
+ */
+public class EventWriterBench {
+
+    public static void main(String[] args) throws Exception {
+        int inlineEvents = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int writerEvents = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        String url = freshDatabase();
+        long start = System.nanoTime();
+        for (int i = 0; i < inlineEvents; i++) {
+            DatabaseManager.logEventSync(url, "TRANSITION: bench event " + i);
+        }
+        report("inline", inlineEvents, System.nanoTime() - start, 0);
+
+        for (int batchSize : new int[] {1, 64, 512}) {
+            url = freshDatabase();
+            EventWriter writer = new EventWriter(url, 16_384, batchSize, 50, EventWriter.OverflowPolicy.BLOCK, 1);
+            int events = batchSize == 1 ? inlineEvents * 5 : writerEvents;
+            start = System.nanoTime();
+            for (int i = 0; i < events; i++) {
+                writer.submit("TRANSITION: bench event " + i);
+            }
+            long submitNanos = System.nanoTime() - start;
+            writer.flush(600_000);
+            report("writer batch=" + batchSize, events, System.nanoTime() - start, submitNanos);
+            writer.close();
+        }
+    }
+
+    private static String freshDatabase() throws Exception {
+        Path file = Files.createTempFile("traffic-bench", ".db");
+        file.toFile().deleteOnExit();
+        String url = "jdbc:sqlite:" + file;
+        DatabaseManager.createTables(url);
+        return url;
+    }
+
+    private static void report(String name, int events, long totalNanos, long submitNanos) {
+        System.out.printf("%-18s %9d events %12.0f events/s committed", name, events, events / (totalNanos / 1e9));
+        if (submitNanos > 0) {
+            System.out.printf(" %10.2f us/submit on caller", submitNanos / 1e3 / events);
+        }
+        System.out.println();
+    }
+}
@@ -0,0 +1,97 @@
+package com.traffic.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small in-process microbenchmark runner in the spirit of JMH, for trees without a build
+ * tool to pull JMH in. Each benchmark runs timed warmup iterations, then measured ones;
+ * the operation's result goes into a {@link Blackhole} so the JIT cannot drop it. Reports
+ * mean time per operation with its spread across iterations, and bytes allocated per
+ * operation by the measuring thread.
+ */
+final class Harness {
+
+    /** One benchmark operation. */
+    interface Op {
+        void run(Blackhole bh) throws Exception;
+    }
+
+    /** Keeps results observable. */
+    static final class Blackhole {
+        private volatile Object sink;
+        private long sum;
+
+        void consume(Object value) {
+            sink = value;
+        }
+
+        void consume(long value) {
+            sum += value;
+        }
+
+        long sum() {
+            return sum;
+        }
+    }
+
+    private static final int BATCH = 256;
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final int warmups;
+    private final int iterations;
+    private final long iterationNanos;
+    private final String filter;
+    private final Blackhole bh = new Blackhole();
+
+    Harness(int warmups, int iterations, long iterationMillis, String filter) {
+        this.warmups = warmups;
+        this.iterations = iterations;
+        this.iterationNanos = TimeUnit.MILLISECONDS.toNanos(iterationMillis);
+        this.filter = filter;
+        System.out.printf("%-34s %14s %10s %14s %12s%n", "benchmark", "ns/op", "± (sd)", "ops/s", "B/op");
+    }
+
+    /** Whether the filter selects any of the named benchmarks, so expensive setup can be skipped. */
+    boolean selects(String... names) {
+        if (filter == null) return true;
+        for (String name : names) {
+            if (name.contains(filter)) return true;
+        }
+        return false;
+    }
+
+    void run(String name, Op op) throws Exception {
+        if (filter != null && !name.contains(filter)) return;
+        for (int i = 0; i < warmups; i++) iteration(op);
+        double[] nsPerOp = new double[iterations];
+        long ops = 0;
+        long allocated = 0;
+        for (int i = 0; i < iterations; i++) {
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            long[] result = iteration(op);
+            allocated += THREADS.getCurrentThreadAllocatedBytes() - before;
+            nsPerOp[i] = result[1] / (double) result[0];
+            ops += result[0];
+        }
+        double mean = Arrays.stream(nsPerOp).average().orElse(0);
+        double sd = Math.sqrt(Arrays.stream(nsPerOp).map(x -> (x - mean) * (x - mean)).sum() / Math.max(1, iterations - 1));
+        System.out.printf("%-34s %14.1f %10.1f %14.0f %12.1f%n", name, mean, sd, 1e9 / mean, allocated / (double) ops);
+    }
+
+    // Returns {operations, elapsed nanos}; checks the clock once per batch, not per operation
+    private long[] iteration(Op op) throws Exception {
+        long start = System.nanoTime();
+        long end = start + iterationNanos;
+        long ops = 0;
+        long now;
+        do {
+            for (int i = 0; i < BATCH; i++) op.run(bh);
+            ops += BATCH;
+            now = System.nanoTime();
+        } while (now < end);
+        return new long[] {ops, now - start};
+    }
+}
@@ -0,0 +1,215 @@
+package com.traffic.bench;
+
+import com.traffic.interfaces.ClientInterface;
+import com.traffic.interfaces.VehicleRequest;
+import com.traffic.mutex.DistributedMutex;
+import com.traffic.mutex.InlineTransport;
+import com.traffic.mutex.MutexAlgorithm;
+import com.traffic.mutex.MutexListener;
+import com.traffic.server.AdmissionPolicy;
+import com.traffic.server.DatabaseManager;
+import com.traffic.server.EventWriter;
+import com.traffic.server.FanOut;
+import com.traffic.server.Intersection;
+import com.traffic.server.IntersectionConfig;
+import com.traffic.server.IntersectionListener;
+import com.traffic.server.LogRing;
+import com.traffic.server.LogType;
+import com.traffic.server.PhaseTimer;
+import com.traffic.server.RequestScheduler;
+import com.traffic.server.SignalPhase;
+import com.traffic.server.SignalState;
+import com.traffic.server.StripedQueue;
+import com.traffic.sim.SimulatedClock;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regression suite for the controller's hot paths, run with {@link Harness}: request
+ * intake, full-queue refusal and admission control, the request journal, priority dequeue
+ * over the striped queues, one mutex round per algorithm, client broadcast queuing, the event
+ * log write path and history paging on a large table, and the per-event allocations (log
+ * records, status snapshots, state strings). Compare the ns/op and B/op columns between commits.
+ *
+ * Usage: HotPathBench [filter] [iterationMillis] [historyRows]
+ * The db.* benchmarks need the SQLite JDBC driver on the class path and are skipped without it.
+ */
+public class HotPathBench {
+
+    private static final String[] DIRECTIONS = {"1_2", "3_4"};
+
+    public static void main(String[] args) throws Exception {
+        String filter = args.length > 0 && !args[0].equals("all") ? args[0] : null;
+        long iterationMillis = args.length > 1 ? Long.parseLong(args[1]) : 500;
+        int historyRows = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+        Harness harness = new Harness(3, 5, iterationMillis, filter);
+
+        intake(harness);
+        journal(harness);
+        scheduler(harness);
+        mutex(harness);
+        broadcast(harness);
+        allocation(harness);
+        database(harness, historyRows);
+        System.exit(0);
+    }
+
+    // --- receiveRequest on a virtual clock, so each request is drained inline and every op is a
+    // real enqueue; then a full stripe's refusal and a flood over the client's budget on their own ---
+    private static void intake(Harness harness) throws Exception {
+        IntersectionConfig unlimited = IntersectionConfig.DEFAULT.withAdmission(AdmissionPolicy.UNLIMITED);
+        SimulatedClock clock = new SimulatedClock();
+        Intersection junction = new Intersection("H1", unlimited, IntersectionListener.NONE, clock);
+        for (String d : DIRECTIONS) junction.registerClient(new NullClient("Pair_" + d), "ROAD_" + d);
+        String active = junction.getActiveDirection(); // requests for the green road are dequeued and ignored
+        harness.run("intersection.receiveRequest", bh -> bh.consume(junction.receiveRequest("Car", active, false, 50)));
+        List<VehicleRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 32; i++) batch.add(new VehicleRequest("Car-" + i, active, i % 8 == 0, 50));
+        harness.run("intersection.receiveRequests(32)", bh -> bh.consume(junction.receiveRequests(batch)));
+        long refused = junction.metrics().getRequestsRefused();
+        if (refused > 0) System.out.println("  warning: " + refused + " intake requests were refused; the numbers above include refusals");
+        junction.stop();
+
+        // Only one road registered, so the junction never starts and nothing drains its queues
+        PhaseTimer timer = new PhaseTimer();
+        Intersection full = new Intersection("H3", unlimited, IntersectionListener.NONE, timer);
+        full.registerClient(new NullClient("Pair_" + active), "ROAD_" + active);
+        harness.run("intersection.queueFull", bh -> bh.consume(full.receiveRequest("Car", active, false, 50)));
+        full.stop();
+
+        Intersection limited = new Intersection("H2", IntersectionConfig.DEFAULT, IntersectionListener.NONE, timer);
+        for (String d : DIRECTIONS) limited.registerClient(new NullClient("Pair_" + d), "ROAD_" + d);
+        harness.run("intersection.overBudget", bh ->
+            bh.consume(limited.receiveRequest("Pair_1_2", active, false, 50)));
+        limited.stop();
+        timer.stop();
+    }
+
+    // --- On a virtual clock, so the dispatch runs inline: one ignored request (enqueue and dequeue)
+    // and one full switch (two phase changes), with and without the request journal ---
+    private static void journal(Harness harness) throws Exception {
+        if (!harness.selects("virtual.request", "virtual.switch", "virtual.request(journal)", "virtual.switch(journal)")) return;
+        IntersectionConfig plain = IntersectionConfig.DEFAULT.withAdmission(AdmissionPolicy.UNLIMITED);
+        for (IntersectionConfig config : List.of(plain, plain.withJournal(Files.createTempDirectory("hotpath-journal")))) {
+            String suffix = config.journalDir() == null ? "" : "(journal)";
+            SimulatedClock clock = new SimulatedClock();
+            Intersection junction = new Intersection("V1", config, IntersectionListener.NONE, clock);
+            junction.restore();
+            for (String d : DIRECTIONS) junction.registerClient(new NullClient("Pair_" + d), "ROAD_" + d);
+            harness.run("virtual.request" + suffix, bh ->
+                junction.receiveRequest("Car", junction.getActiveDirection(), false, 50));
+            long cycle = TimeUnit.MILLISECONDS.toNanos(config.yellowMillis() + config.greenHoldMillis());
+            harness.run("virtual.switch" + suffix, bh -> {
+                String other = junction.getActiveDirection().equals(DIRECTIONS[0]) ? DIRECTIONS[1] : DIRECTIONS[0];
+                junction.receiveRequest("Car", other, false, 50);
+                clock.runUntil(clock.nanoTime() + cycle);
+            });
+            junction.stop();
+        }
+    }
+
+    // --- RequestScheduler: offer to a normal stripe, then a priority poll over VIP and the stripes ---
+    private static void scheduler(Harness harness) throws Exception {
+        StripedQueue<Object> vip = new StripedQueue<>(1, 64, item -> 0);
+        StripedQueue<Object> normal = new StripedQueue<>(4, 256, Object::hashCode);
+        RequestScheduler<Object> scheduler = new RequestScheduler<>(List.of(vip, normal));
+        Object item = new Object();
+        harness.run("scheduler.offer+poll", bh -> {
+            scheduler.offer(normal, item);
+            bh.consume(scheduler.poll());
+        });
+    }
+
+    // --- One acquire/release per round, alternating roads so every round needs the other's consent ---
+    private static void mutex(Harness harness) throws Exception {
+        for (MutexAlgorithm algorithm : MutexAlgorithm.values()) {
+            List<DistributedMutex> nodes = new InlineTransport(2).start(algorithm, MutexListener.NONE);
+            long[] round = {0};
+            harness.run("mutex." + algorithm.shortName() + ".round", bh -> {
+                DistributedMutex node = nodes.get((int) (round[0]++ & 1));
+                node.acquire();
+                node.release();
+            });
+        }
+    }
+
+    // --- broadcastState's per-client cost: queue one callback on the subscriber's channel ---
+    private static void broadcast(Harness harness) throws Exception {
+        FanOut fanOut = new FanOut(2000, 16, message -> {});
+        List<FanOut.Channel> channels = new ArrayList<>();
+        for (int i = 0; i < 8; i++) channels.add(fanOut.channel(new Object(), "bench-" + i, false, null));
+        FanOut.Delivery noop = () -> {};
+        harness.run("fanout.send(8 clients)", bh -> {
+            for (FanOut.Channel channel : channels) channel.send(noop);
+        });
+    }
+
+    // --- Per-event allocation: ring record, text formatting, state snapshot, state strings ---
+    private static void allocation(Harness harness) throws Exception {
+        LogRing ring = new LogRing(8192);
+        harness.run("logRing.record", bh -> ring.record(LogType.PROCESSING_REQUEST, "J1", "Car-1", " (VIP)", 0, 0));
+        harness.run("logRing.format", bh ->
+            bh.consume(LogRing.format(LogType.MUTEX_RECEIVED_REQUEST, "J1", "1_2", "3_4", 41, 42)));
+        Map<String, String> status = Map.of("road_1_2", "YELLOW", "ped_1_2", "RED", "road_3_4", "RED", "ped_3_4", "YELLOW");
+        long[] version = {0};
+        harness.run("signalState.new", bh ->
+            bh.consume(new SignalState(SignalPhase.YELLOW, "1_2", "3_4", System.nanoTime(), version[0]++, status)));
+        String[] states = {"GREEN", "YELLOW", "RED"};
+        long[] n = {0};
+        harness.run("stateString.concat", bh -> {
+            int i = (int) (n[0]++ % 3);
+            bh.consume(DIRECTIONS[i & 1] + "_" + states[i]);
+        });
+        harness.run("vehicleRequest.new", bh -> bh.consume(new VehicleRequest("Car-1", "1_2", false, (int) n[0]++)));
+    }
+
+    // --- logEvent's queued write path, and paging history out of a large table ---
+    private static void database(Harness harness, int historyRows) throws Exception {
+        if (!harness.selects("db.logEvent(submit)", "db.getHistory(newest 100)", "db.getHistory(middle 100)")) return;
+        try {
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            System.out.println("db.* skipped: SQLite JDBC driver not on the class path");
+            return;
+        }
+        String url = freshDatabase();
+        EventWriter writer = new EventWriter(url, 16_384, 512, 50, EventWriter.OverflowPolicy.BLOCK, 1);
+        long[] n = {0};
+        harness.run("db.logEvent(submit)", bh -> writer.submit("TRANSITION: bench event " + n[0]++));
+        writer.flush(600_000);
+        for (long rows = DatabaseManager.maxSeq(url); rows < historyRows; rows++) {
+            writer.submit("TRANSITION: filler event " + rows);
+        }
+        writer.flush(600_000);
+        writer.close();
+        long newest = DatabaseManager.maxSeq(url);
+        System.out.println("history table: " + newest + " rows");
+        harness.run("db.getHistory(newest 100)", bh -> bh.consume(DatabaseManager.getHistoryBefore(url, Long.MAX_VALUE, 100)));
+        harness.run("db.getHistory(middle 100)", bh -> bh.consume(DatabaseManager.getHistoryBefore(url, newest / 2, 100)));
+    }
+
+    private static String freshDatabase() throws Exception {
+        Path file = Files.createTempFile("traffic-hotpath", ".db");
+        file.toFile().deleteOnExit();
+        String url = "jdbc:sqlite:" + file;
+        DatabaseManager.createTables(url);
+        return url;
+    }
+
+    private static final class NullClient implements ClientInterface {
+        private final String clientId;
+
+        NullClient(String clientId) {
+            this.clientId = clientId;
+        }
+
+        @Override public void updateSignalState(String state, String details) {}
+        @Override public String getClientId() { return clientId; }
+        @Override public void initiateRequest(boolean isVip, int proximity) {}
+    }
+}
@@ -0,0 +1,157 @@
+package com.traffic.bench;
+
+import com.traffic.interfaces.ClientInterface;
+import com.traffic.server.Intersection;
+import com.traffic.server.IntersectionConfig;
+import com.traffic.server.IntersectionListener;
+import com.traffic.server.PhaseTimer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many junctions one server JVM can drive before request-to-green
+ * latency degrades. Every junction gets two in-process signal clients; each round
+ * sends one request per junction for the red direction and records the time until
+ * that direction's client is told it is GREEN. The configured yellow time is
+ * subtracted, so the reported numbers are pure controller overhead. An untimed round at
+ * {@value #WARMUP_JUNCTIONS} junctions runs first, and latency counts as degraded against the
+ * first size with at least {@value #BASELINE_SAMPLES} samples.
+ *
+ * Usage: IntersectionScaleBench [maxJunctions] [rounds] [yellowMs]
+ */
+public class IntersectionScaleBench {
+
+    private static final String[] DIRECTIONS = {"1_2", "3_4"};
+    private static final int WARMUP_JUNCTIONS = 1024;
+    private static final int BASELINE_SAMPLES = 200;
+
+    public static void main(String[] args) throws Exception {
+        int maxJunctions = args.length > 0 ? Integer.parseInt(args[0]) : 8192;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long yellowMs = args.length > 2 ? Long.parseLong(args[2]) : 200;
+        IntersectionConfig config = IntersectionConfig.DEFAULT.withTimings(yellowMs, 50);
+
+        run(WARMUP_JUNCTIONS, rounds, config); // JIT warmup; not reported
+        System.out.printf("%10s %12s %12s %12s %12s%n", "junctions", "p50 (ms)", "p99 (ms)", "max (ms)", "greens/s");
+        double baselineP99 = -1;
+        for (int n = 1; n <= maxJunctions; n *= 4) {
+            Result r = run(n, rounds, config);
+            System.out.printf("%10d %12.2f %12.2f %12.2f %12.0f%n", n, r.p50, r.p99, r.max, r.throughput);
+            if (baselineP99 < 0 && r.samples >= BASELINE_SAMPLES) baselineP99 = r.p99;
+            if (r.timedOut || baselineP99 >= 0 && r.p99 > Math.max(2 * baselineP99, baselineP99 + 50)) {
+                System.out.println("Latency degraded at " + n + " junctions.");
+                break;
+            }
+        }
+    }
+
+    record Result(double p50, double p99, double max, double throughput, int samples, boolean timedOut) {}
+
+    private static Result run(int junctions, int rounds, IntersectionConfig config) throws Exception {
+        PhaseTimer timer = new PhaseTimer();
+        List<Intersection> intersections = new ArrayList<>(junctions);
+        List<ProbeClient[]> probes = new ArrayList<>(junctions);
+        for (int i = 0; i < junctions; i++) {
+            Intersection junction = new Intersection("B" + i, config, IntersectionListener.NONE, timer);
+            ProbeClient[] pair = new ProbeClient[DIRECTIONS.length];
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                pair[d] = new ProbeClient("Pair_" + DIRECTIONS[d], DIRECTIONS[d]);
+                junction.registerClient(pair[d], "ROAD_" + DIRECTIONS[d]);
+            }
+            intersections.add(junction);
+            probes.add(pair);
+        }
+
+        long[] samples = new long[junctions * rounds];
+        int count = 0;
+        boolean timedOut = false;
+        long started = System.nanoTime();
+        for (int round = 0; round < rounds && !timedOut; round++) {
+            CountDownLatch greens = new CountDownLatch(junctions);
+            for (int i = 0; i < junctions; i++) {
+                Intersection junction = intersections.get(i);
+                String target = junction.getActiveDirection().equals(DIRECTIONS[0]) ? DIRECTIONS[1] : DIRECTIONS[0];
+                ProbeClient probe = probes.get(i)[target.equals(DIRECTIONS[0]) ? 0 : 1];
+                probe.arm(greens);
+                junction.receiveRequest(probe.clientId, target, false, 50);
+            }
+            timedOut = !greens.await(60, TimeUnit.SECONDS);
+            for (ProbeClient[] pair : probes) {
+                for (ProbeClient probe : pair) {
+                    long latency = probe.takeLatency();
+                    if (latency >= 0) samples[count++] = latency;
+                }
+            }
+            // Let every junction finish its green hold before the next round
+            for (Intersection junction : intersections) {
+                while (junction.isInTransition()) Thread.sleep(5);
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        intersections.forEach(Intersection::stop);
+        timer.stop();
+
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        double yellowNanos = TimeUnit.MILLISECONDS.toNanos(config.yellowMillis());
+        return new Result(
+            overheadMs(sorted, 0.50, yellowNanos),
+            overheadMs(sorted, 0.99, yellowNanos),
+            overheadMs(sorted, 1.0, yellowNanos),
+            count / seconds,
+            count,
+            timedOut);
+    }
+
+    private static double overheadMs(long[] sorted, double quantile, double yellowNanos) {
+        if (sorted.length == 0) return Double.NaN;
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1);
+        return (sorted[Math.max(index, 0)] - yellowNanos) / 1e6;
+    }
+
+    // In-process stand-in for a signal client; records when its direction turns green
+    private static final class ProbeClient implements ClientInterface {
+        final String clientId;
+        final String greenState;
+        private volatile long sentAt;
+        private volatile long latency = -1;
+        private volatile CountDownLatch latch;
+
+        ProbeClient(String clientId, String direction) {
+            this.clientId = clientId;
+            this.greenState = direction + "_GREEN";
+        }
+
+        void arm(CountDownLatch latch) {
+            this.latency = -1;
+            this.latch = latch;
+            this.sentAt = System.nanoTime();
+        }
+
+        long takeLatency() {
+            long value = latency;
+            latency = -1;
+            return value;
+        }
+
+        @Override
+        public void updateSignalState(String state, String details) {
+            CountDownLatch pending = latch;
+            if (pending != null && state.equals(greenState)) {
+                latency = System.nanoTime() - sentAt;
+                latch = null;
+                pending.countDown();
+            }
+        }
+
+        @Override
+        public String getClientId() { return clientId; }
+
+        @Override
+        public void initiateRequest(boolean isVip, int proximity) {}
+    }
+}
@@ -0,0 +1,111 @@
+package com.traffic.bench;
+
+import com.traffic.interfaces.ClientInterface;
+import com.traffic.server.AdmissionPolicy;
+import com.traffic.server.Intersection;
+import com.traffic.server.IntersectionConfig;
+import com.traffic.server.IntersectionListener;
+import com.traffic.server.LogType;
+import com.traffic.server.PhaseTimer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restart from the request journal. A junction with short timings is flooded from several
+ * threads with requests for both roads, so the journal fills with enqueues, dequeues and
+ * phase changes and wraps into fresh snapshots. Then it is stopped with a backlog still
+ * queued, and a new junction is opened on the same directory, as a restarted server would.
+ * Reports the requests queued at the stop and restored at the restart, the records replayed,
+ * and how long the restart took against opening a junction without a journal.
+ *
+ * Usage: JournalBench [seconds] [threads] [journalKb]
+ */
+public class JournalBench {
+
+    private static final String[] DIRECTIONS = {"1_2", "3_4"};
+
+    public static void main(String[] args) throws Exception {
+        long millis = TimeUnit.SECONDS.toMillis(args.length > 0 ? Long.parseLong(args[0]) : 3);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        if (args.length > 2) System.setProperty("traffic.journal.sizeKb", args[2]);
+        Path dir = Files.createTempDirectory("journal-bench");
+        IntersectionConfig config = IntersectionConfig.DEFAULT.withTimings(20, 20)
+            .withAdmission(AdmissionPolicy.UNLIMITED).withJournal(dir);
+        PhaseTimer timer = new PhaseTimer();
+
+        Intersection junction = new Intersection("J1", config, IntersectionListener.NONE, timer);
+        junction.restore();
+        for (String d : DIRECTIONS) junction.registerClient(new NullClient("Pair_" + d), "ROAD_" + d);
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long[] sent = new long[threads];
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            producers.add(Thread.ofPlatform().start(() -> {
+                for (long i = 0; System.nanoTime() < end; i++) {
+                    if (junction.receiveRequest("Car-" + index + "-" + (i & 63), DIRECTIONS[(int) (i & 1)], (i & 15) == 0, 50)
+                            .isAccepted()) sent[index]++;
+                }
+            }));
+        }
+        for (Thread p : producers) p.join();
+        int queued = junction.metrics().getVipQueueDepth() + junction.metrics().getNormalQueueDepth();
+        String green = junction.getActiveDirection();
+        junction.stop();
+        long accepted = 0;
+        for (long n : sent) accepted += n;
+
+        Recovery recovery = new Recovery();
+        long start = System.nanoTime();
+        Intersection restarted = new Intersection("J1", config, recovery, timer);
+        restarted.restore();
+        double restartMillis = (System.nanoTime() - start) / 1e6;
+        int restoredQueue = restarted.metrics().getVipQueueDepth() + restarted.metrics().getNormalQueueDepth();
+        restarted.stop();
+
+        start = System.nanoTime();
+        Intersection plain = new Intersection("J2", config.withJournal(null), IntersectionListener.NONE, timer);
+        plain.restore();
+        double plainMillis = (System.nanoTime() - start) / 1e6;
+        plain.stop();
+        timer.stop();
+
+        System.out.printf("accepted %d requests in %d ms from %d threads%n", accepted, millis, threads);
+        System.out.printf("at stop:    %s green, %d queued%n", green, queued);
+        System.out.printf("at restart: %s green, %d restored (%d queued), %d records replayed%n",
+            restarted.getActiveDirection(), recovery.restored, restoredQueue, recovery.records);
+        System.out.printf("restart %.2f ms with the journal, %.2f ms without%n", restartMillis, plainMillis);
+        System.exit(0);
+    }
+
+    private static final class Recovery implements IntersectionListener {
+        long restored, records;
+
+        @Override
+        public void log(Intersection intersection, LogType type, String subject, String object, long a, long b) {
+            if (type != LogType.JOURNAL_RECOVERED) return;
+            restored = a;
+            records = b;
+        }
+
+        @Override public void statusChanged(Intersection intersection, Map<String, String> status) {}
+        @Override public void queuesChanged(Intersection intersection) {}
+    }
+
+    private static final class NullClient implements ClientInterface {
+        private final String clientId;
+
+        NullClient(String clientId) {
+            this.clientId = clientId;
+        }
+
+        @Override public void updateSignalState(String state, String details) {}
+        @Override public String getClientId() { return clientId; }
+        @Override public void initiateRequest(boolean isVip, int proximity) {}
+    }
+}
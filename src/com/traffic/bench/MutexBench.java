@@ -0,0 +1,164 @@
+package com.traffic.bench;
+
+import com.traffic.mutex.DistributedMutex;
+import com.traffic.mutex.MutexAlgorithm;
+import com.traffic.mutex.MutexListener;
+import com.traffic.mutex.TcpTransport;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every road node in its own JVM, talking over {@link TcpTransport}, and reports
+ * messages per critical-section entry and entry latency (acquire call to entry) for each
+ * algorithm. Each node enters the CS a fixed number of times, holding it briefly and
+ * optionally pausing between entries. Inside the CS a node also takes an OS file lock
+ * without waiting; a failure means two processes were inside at once.
+ *
+ * Usage: MutexBench [entriesPerNode]
+ */
+public class MutexBench {
+
+    private static final int[] NODE_COUNTS = {2, 4, 8};
+    private static final long HOLD_MICROS = 100;
+    private static final long[] THINK_MICROS = {0, 5_000}; // saturated, then light load
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("node")) {
+            runNode(args);
+            return;
+        }
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        System.out.printf("%5s %5s %10s %10s %12s %10s %10s %10s %10s%n", "algo", "nodes", "think (ms)", "entries",
+            "msgs/entry", "p50 (us)", "p99 (us)", "max (us)", "overlaps");
+        for (long think : THINK_MICROS) {
+            for (int nodes : NODE_COUNTS) {
+                for (MutexAlgorithm algorithm : MutexAlgorithm.values()) {
+                    run(algorithm, nodes, entries, think);
+                }
+            }
+        }
+    }
+
+    // --- Parent: start the nodes, release them together, collect their results ---
+    private static void run(MutexAlgorithm algorithm, int nodes, int entries, long thinkMicros) throws Exception {
+        StringBuilder ports = new StringBuilder();
+        for (int i = 0; i < nodes; i++) {
+            try (ServerSocket probe = new ServerSocket(0)) {
+                if (i > 0) ports.append(',');
+                ports.append(probe.getLocalPort());
+            }
+        }
+        Path lockFile = Files.createTempFile("mutex-bench", ".lock");
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<Process> processes = new ArrayList<>();
+        List<BufferedReader> outputs = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            Process p = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), MutexBench.class.getName(),
+                "node", algorithm.shortName(), String.valueOf(i), ports.toString(), String.valueOf(entries),
+                String.valueOf(thinkMicros), lockFile.toString())
+                .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            processes.add(p);
+            outputs.add(new BufferedReader(new InputStreamReader(p.getInputStream())));
+        }
+        for (BufferedReader out : outputs) expect(out, "READY");
+        for (Process p : processes) command(p, "GO");
+
+        long overlaps = 0;
+        long[] all = new long[0];
+        for (BufferedReader out : outputs) {
+            String[] result = expect(out, "DONE").split(" ");
+            overlaps += Long.parseLong(result[1]);
+            long[] latencies = Arrays.stream(result).skip(2).mapToLong(Long::parseLong).toArray();
+            int from = all.length;
+            all = Arrays.copyOf(all, from + latencies.length);
+            System.arraycopy(latencies, 0, all, from, latencies.length);
+        }
+        // Nodes keep answering until everyone is done, so message counts are final only now
+        long sent = 0;
+        for (Process p : processes) command(p, "EXIT");
+        for (BufferedReader out : outputs) sent += Long.parseLong(expect(out, "SENT").split(" ")[1]);
+        for (Process p : processes) p.waitFor(10, TimeUnit.SECONDS);
+        Files.deleteIfExists(lockFile);
+
+        Arrays.sort(all);
+        System.out.printf("%5s %5d %10.0f %10d %12.2f %10.1f %10.1f %10.1f %10d%n", algorithm.shortName(), nodes,
+            thinkMicros / 1e3, all.length, sent / (double) all.length, all[all.length / 2] / 1e3,
+            all[(int) (all.length * 0.99)] / 1e3, all[all.length - 1] / 1e3, overlaps);
+    }
+
+    private static String expect(BufferedReader out, String prefix) throws Exception {
+        String line;
+        while ((line = out.readLine()) != null) {
+            if (line.startsWith(prefix)) return line;
+        }
+        throw new IllegalStateException("Node exited before " + prefix);
+    }
+
+    private static void command(Process p, String command) {
+        PrintStream in = new PrintStream(p.getOutputStream(), true);
+        in.println(command);
+    }
+
+    // --- Child: one road node ---
+    private static void runNode(String[] args) throws Exception {
+        MutexAlgorithm algorithm = MutexAlgorithm.fromName(args[1]);
+        int self = Integer.parseInt(args[2]);
+        List<InetSocketAddress> peers = new ArrayList<>();
+        for (String port : args[3].split(",")) peers.add(new InetSocketAddress("127.0.0.1", Integer.parseInt(port)));
+        int entries = Integer.parseInt(args[4]);
+        long thinkMicros = Long.parseLong(args[5]);
+        File lockFile = new File(args[6]);
+
+        TcpTransport transport = new TcpTransport(self, peers);
+        DistributedMutex node = algorithm.create(self, peers.size(), transport, MutexListener.NONE);
+        transport.start(node);
+        BufferedReader commands = new BufferedReader(new InputStreamReader(System.in));
+        System.out.println("READY");
+        if (!"GO".equals(commands.readLine())) return;
+
+        long[] latencies = new long[entries];
+        long overlaps = 0;
+        try (FileChannel file = new RandomAccessFile(lockFile, "rw").getChannel()) {
+            for (int i = 0; i < entries; i++) {
+                if (thinkMicros > 0) {
+                    TimeUnit.MICROSECONDS.sleep(ThreadLocalRandom.current().nextLong(thinkMicros * 2));
+                }
+                long start = System.nanoTime();
+                node.acquire();
+                latencies[i] = System.nanoTime() - start;
+                FileLock held = file.tryLock();
+                if (held == null) overlaps++;
+                spin(HOLD_MICROS);
+                if (held != null) held.release();
+                node.release();
+            }
+        }
+        StringBuilder result = new StringBuilder("DONE ").append(overlaps);
+        for (long latency : latencies) result.append(' ').append(latency);
+        System.out.println(result);
+        commands.readLine(); // EXIT
+        System.out.println("SENT " + node.messagesSent());
+        transport.close();
+        System.exit(0);
+    }
+
+    private static void spin(long micros) {
+        long end = System.nanoTime() + micros * 1000;
+        while (System.nanoTime() < end) Thread.onSpinWait();
+    }
+}
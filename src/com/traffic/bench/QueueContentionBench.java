@@ -0,0 +1,131 @@
+package com.traffic.bench;
+
+import com.traffic.server.RequestScheduler;
+import com.traffic.server.StripedQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Request intake under contention: many producer threads (one client id each, like RMI
+ * threads for different detectors) enqueue as fast as they can while one dispatcher drains,
+ * pausing serviceMicros per request as if it were switching the lights. Compares the original
+ * layout (a 5-slot queue 1 that overflows into an unbounded queue 2, switched by a shared flag)
+ * with the bounded {@link StripedQueue}, whose refused producers back off for one service
+ * time. Reports requests queued, dispatched and refused per second, and the deepest backlog
+ * seen, which is memory the server holds.
+ *
+ * Usage: QueueContentionBench [seconds per run] [stripes] [capacity] [serviceMicros]
+ */
+public class QueueContentionBench {
+
+    interface Intake {
+        boolean offer(String clientId);
+        String take() throws InterruptedException;
+        int size();
+    }
+
+    // The pre-striping Intersection.enqueue, minus logging
+    static final class ToggleIntake implements Intake {
+        final BlockingQueue<String> vip = new LinkedBlockingQueue<>();
+        final BlockingQueue<String> normal1 = new LinkedBlockingQueue<>(5);
+        final BlockingQueue<String> normal2 = new LinkedBlockingQueue<>();
+        final RequestScheduler<String> scheduler = new RequestScheduler<>(List.of(vip, normal1, normal2));
+        volatile boolean useQueue1 = true;
+
+        public boolean offer(String clientId) {
+            if (useQueue1 && normal1.size() >= 5) useQueue1 = false;
+            if (!useQueue1 && normal1.isEmpty()) useQueue1 = true;
+            return scheduler.offer(useQueue1 ? normal1 : normal2, clientId);
+        }
+        public String take() throws InterruptedException { return scheduler.take(); }
+        public int size() { return vip.size() + normal1.size() + normal2.size(); }
+    }
+
+    static final class StripedIntake implements Intake {
+        final StripedQueue<String> vip = new StripedQueue<>(1, 64, id -> 0);
+        final StripedQueue<String> normal;
+        final RequestScheduler<String> scheduler;
+
+        StripedIntake(int stripes, int capacity) {
+            normal = new StripedQueue<>(stripes, capacity, String::hashCode);
+            scheduler = new RequestScheduler<>(List.<Queue<String>>of(vip, normal));
+        }
+        public boolean offer(String clientId) { return scheduler.offer(normal, clientId); }
+        public String take() throws InterruptedException { return scheduler.take(); }
+        public int size() { return vip.size() + normal.size(); }
+    }
+
+    public static void main(String[] args) throws Exception {
+        long millis = TimeUnit.SECONDS.toMillis(args.length > 0 ? Long.parseLong(args[0]) : 2);
+        int stripes = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int capacity = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        long serviceNanos = TimeUnit.MICROSECONDS.toNanos(args.length > 3 ? Long.parseLong(args[3]) : 50);
+
+        System.out.printf("%-8s %9s %14s %14s %14s %12s%n", "intake", "producers", "queued/s", "dispatched/s", "refused/s",
+            "peak depth");
+        for (int producers : new int[] {1, 4, 16}) {
+            report("toggle", producers, millis, run(new ToggleIntake(), producers, millis, serviceNanos));
+            report("striped", producers, millis, run(new StripedIntake(stripes, capacity), producers, millis, serviceNanos));
+        }
+    }
+
+    record Result(long queued, long dispatched, long refused, int peakDepth) {}
+
+    private static Result run(Intake intake, int producers, long millis, long serviceNanos) throws Exception {
+        AtomicLong queued = new AtomicLong();
+        AtomicLong refused = new AtomicLong();
+        AtomicLong dispatched = new AtomicLong();
+        AtomicInteger peak = new AtomicInteger();
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        Thread dispatcher = new Thread(() -> {
+            try {
+                while (true) {
+                    intake.take();
+                    if (System.nanoTime() < end) dispatched.incrementAndGet();
+                    LockSupport.parkNanos(serviceNanos);
+                    if (Thread.interrupted()) return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "bench-dispatcher");
+        dispatcher.start();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String clientId = "Pair_" + p;
+            threads.add(Thread.ofPlatform().name("bench-producer-" + p).start(() -> {
+                long ok = 0, no = 0;
+                int i = 0;
+                while (System.nanoTime() < end) {
+                    if (intake.offer(clientId)) {
+                        ok++;
+                    } else {
+                        no++;
+                        LockSupport.parkNanos(serviceNanos); // a refused client backs off
+                    }
+                    if ((++i & 1023) == 0) peak.accumulateAndGet(intake.size(), Math::max);
+                }
+                queued.addAndGet(ok);
+                refused.addAndGet(no);
+            }));
+        }
+        for (Thread t : threads) t.join();
+        dispatcher.interrupt();
+        dispatcher.join();
+        return new Result(queued.get(), dispatched.get(), refused.get(), peak.get());
+    }
+
+    private static void report(String name, int producers, long millis, Result r) {
+        double seconds = millis / 1000.0;
+        System.out.printf("%-8s %9d %14.0f %14.0f %14.0f %12d%n", name, producers, r.queued() / seconds,
+            r.dispatched() / seconds, r.refused() / seconds, r.peakDepth());
+    }
+}
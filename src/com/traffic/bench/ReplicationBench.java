@@ -0,0 +1,148 @@
+package com.traffic.bench;
+
+import com.traffic.server.DatabaseManager;
+import com.traffic.server.EventWriter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The replicated event log with three replica files, for each write quorum:
+ * throughput of a stream of events, and the commit latency of a single event (submit, then
+ * flush) with all replicas healthy and with one replica slowed down by another connection
+ * that keeps taking its write lock for a few milliseconds at a time. Then one replica is
+ * locked out entirely while events keep coming, and the bench times how long anti-entropy
+ * takes to bring it back in line and checks that every replica ends up with the same rows.
+ * Needs the SQLite JDBC driver on the class path.
+ *
+ * Usage: ReplicationBench [events] [roundTrips] [stallMillis]
+ */
+public class ReplicationBench {
+
+    private static final int REPLICAS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int roundTrips = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        long stallMillis = args.length > 2 ? Long.parseLong(args[2]) : 2000;
+
+        System.out.printf("%-8s %14s %18s %18s%n", "quorum", "events/s", "commit (ms)", "commit, 1 slow (ms)");
+        for (int quorum = 1; quorum <= REPLICAS; quorum++) {
+            List<String> urls = freshReplicas();
+            EventWriter writer = new EventWriter(urls, quorum, 0, 16_384, 512, 50, EventWriter.OverflowPolicy.BLOCK, 1);
+            long start = System.nanoTime();
+            for (int i = 0; i < events; i++) writer.submit("TRANSITION: bench event " + i);
+            writer.flush(600_000);
+            double perSecond = events / ((System.nanoTime() - start) / 1e9);
+            double healthy = commitMillis(writer, roundTrips);
+            Slowdown slow = new Slowdown(urls.get(REPLICAS - 1));
+            double slowed = commitMillis(writer, roundTrips);
+            slow.stop();
+            writer.close();
+            System.out.printf("%-8d %14.0f %18.3f %18.3f%n", quorum, perSecond, healthy, slowed);
+        }
+
+        List<String> urls = freshReplicas();
+        EventWriter writer = new EventWriter(urls, 2, 0, 16_384, 512, 50, EventWriter.OverflowPolicy.BLOCK, 1);
+        Connection lock = DriverManager.getConnection(urls.get(REPLICAS - 1));
+        try (Statement stmt = lock.createStatement()) {
+            stmt.execute("BEGIN EXCLUSIVE");
+        }
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(stallMillis);
+        int sent = 0;
+        while (System.nanoTime() < end) {
+            writer.submit("TRANSITION: stalled event " + sent++);
+            if (sent % 512 == 0) writer.flush(60_000);
+        }
+        writer.flush(60_000);
+        try (Statement stmt = lock.createStatement()) {
+            stmt.execute("ROLLBACK");
+        }
+        lock.close();
+        System.out.printf("%none replica locked for %d ms while %d events were written at quorum 2:%n", stallMillis, sent);
+        for (String line : writer.replicaStatus()) System.out.println("  " + line);
+        long start = System.nanoTime();
+        long repaired = 0;
+        for (int round = 0; round < 100 && !inSync(urls); round++) {
+            repaired += writer.repairNow();
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        writer.repairNow(); // marks the replica verified and no longer lagging
+        System.out.printf("anti-entropy queued %d rows; replicas %s after %.0f ms%n", repaired,
+            inSync(urls) ? "identical" : "STILL DIFFERENT", (System.nanoTime() - start) / 1e6);
+        for (String line : writer.replicaStatus()) System.out.println("  " + line);
+        writer.close();
+        System.exit(0);
+    }
+
+    // Mean time from submitting one event to its quorum commit
+    private static double commitMillis(EventWriter writer, int roundTrips) throws InterruptedException {
+        long start = System.nanoTime();
+        for (int i = 0; i < roundTrips; i++) {
+            writer.submit("TRANSITION: round trip " + i);
+            writer.flush(60_000);
+        }
+        return (System.nanoTime() - start) / 1e6 / roundTrips;
+    }
+
+    // Another connection that holds the replica's write lock 5 ms out of every 6, like a slow disk
+    private static final class Slowdown {
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        Slowdown(String url) {
+            thread = Thread.ofPlatform().daemon().start(() -> {
+                try (Connection conn = DriverManager.getConnection(url); Statement stmt = conn.createStatement()) {
+                    stmt.execute("PRAGMA busy_timeout=1000");
+                    while (running) {
+                        stmt.execute("BEGIN IMMEDIATE");
+                        TimeUnit.MILLISECONDS.sleep(5);
+                        stmt.execute("COMMIT");
+                        TimeUnit.MILLISECONDS.sleep(1);
+                    }
+                } catch (SQLException | InterruptedException e) {
+                    System.err.println("Slowdown stopped: " + e.getMessage());
+                }
+            });
+        }
+
+        void stop() throws InterruptedException {
+            running = false;
+            thread.join();
+        }
+    }
+
+    private static boolean inSync(List<String> urls) throws SQLException {
+        String first = null;
+        for (String url : urls) {
+            try (Connection conn = DriverManager.getConnection(url); Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*), MAX(seq), SUM(crc) FROM logs")) {
+                rs.next();
+                String digest = rs.getLong(1) + "/" + rs.getLong(2) + "/" + rs.getLong(3);
+                if (first == null) first = digest;
+                else if (!first.equals(digest)) return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> freshReplicas() throws Exception {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < REPLICAS; i++) {
+            Path file = Files.createTempFile("traffic-replica", ".db");
+            file.toFile().deleteOnExit();
+            String url = "jdbc:sqlite:" + file;
+            DatabaseManager.createTables(url);
+            urls.add(url);
+        }
+        return urls;
+    }
+}
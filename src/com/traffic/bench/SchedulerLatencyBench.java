@@ -0,0 +1,102 @@
+package com.traffic.bench;
+
+import com.traffic.server.RequestScheduler;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares dispatcher wakeup latency of the old poll-and-sleep loop (100 ms sleep
+ * whenever the VIP and normal queues are empty) with {@link RequestScheduler}.
+ * A producer submits requests separated by idle gaps, as a quiet junction would;
+ * the dispatcher records the time from submission to dequeue.
+ *
+ * Usage: SchedulerLatencyBench [requests] [maxIdleGapMs]
+ */
+public class SchedulerLatencyBench {
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int maxGapMs = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        System.out.printf("%-16s %12s %12s %12s %14s%n", "dispatcher", "mean (us)", "p50 (us)", "p99 (us)", "idle wakeups");
+        report("poll+sleep(100)", run(new PollingDispatcher(), requests, maxGapMs));
+        report("blocking", run(new BlockingDispatcher(), requests, maxGapMs));
+    }
+
+    interface Dispatcher {
+        void submit(long stamp);
+        long take() throws InterruptedException;
+        long idleWakeups();
+    }
+
+    // Mirrors the original SignalController.takeRequestFromQueues()
+    static final class PollingDispatcher implements Dispatcher {
+        final BlockingQueue<Long> vip = new LinkedBlockingQueue<>();
+        final BlockingQueue<Long> normal1 = new LinkedBlockingQueue<>(5);
+        final BlockingQueue<Long> normal2 = new LinkedBlockingQueue<>();
+        final AtomicLong wakeups = new AtomicLong();
+
+        public void submit(long stamp) { if (!normal1.offer(stamp)) normal2.offer(stamp); }
+        public long take() throws InterruptedException {
+            while (true) {
+                Long r = vip.poll();
+                if (r != null) return r;
+                r = normal1.poll();
+                if (r != null) return r;
+                r = normal2.poll();
+                if (r != null) return r;
+                Thread.sleep(100);
+                wakeups.incrementAndGet();
+            }
+        }
+        public long idleWakeups() { return wakeups.get(); }
+    }
+
+    static final class BlockingDispatcher implements Dispatcher {
+        final BlockingQueue<Long> vip = new LinkedBlockingQueue<>();
+        final BlockingQueue<Long> normal1 = new LinkedBlockingQueue<>(5);
+        final BlockingQueue<Long> normal2 = new LinkedBlockingQueue<>();
+        final RequestScheduler<Long> scheduler = new RequestScheduler<>(List.of(vip, normal1, normal2));
+
+        public void submit(long stamp) { if (!scheduler.offer(normal1, stamp)) scheduler.offer(normal2, stamp); }
+        public long take() throws InterruptedException { return scheduler.take(); }
+        public long idleWakeups() { return 0; }
+    }
+
+    record Stats(long[] latencies, long idleWakeups) {}
+
+    private static Stats run(Dispatcher dispatcher, int requests, int maxGapMs) throws Exception {
+        long[] latencies = new long[requests];
+        Thread consumer = new Thread(() -> {
+            try {
+                for (int i = 0; i < requests; i++) {
+                    long stamp = dispatcher.take();
+                    latencies[i] = System.nanoTime() - stamp;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "bench-dispatcher");
+        consumer.start();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < requests; i++) {
+            Thread.sleep(1 + random.nextInt(maxGapMs));
+            dispatcher.submit(System.nanoTime());
+        }
+        consumer.join();
+        return new Stats(latencies, dispatcher.idleWakeups());
+    }
+
+    private static void report(String name, Stats stats) {
+        long[] sorted = stats.latencies().clone();
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(sorted).average().orElse(0) / 1e3;
+        System.out.printf("%-16s %12.1f %12.1f %12.1f %14d%n", name, mean,
+            sorted[sorted.length / 2] / 1e3, sorted[(int) (sorted.length * 0.99)] / 1e3, stats.idleWakeups());
+    }
+}
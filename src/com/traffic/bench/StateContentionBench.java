@@ -0,0 +1,160 @@
+package com.traffic.bench;
+
+import com.traffic.interfaces.ClientInterface;
+import com.traffic.server.Intersection;
+import com.traffic.server.IntersectionConfig;
+import com.traffic.server.IntersectionListener;
+import com.traffic.server.LogType;
+import com.traffic.server.PhaseTimer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Races RTO overrides against automated switching on one junction. Override threads call
+ * forceSignalChange back to back, two detector threads feed requests for alternating
+ * directions, and reader threads poll the status as RTO pushes do. Reports the cost of an
+ * override call, the status read rate, and whether two switches ever overlapped.
+ *
+ * Usage: StateContentionBench [seconds]
+ */
+public class StateContentionBench {
+
+    private static final String[] DIRECTIONS = {"1_2", "3_4"};
+    private static final int READERS = 2;
+    private static final int DETECTORS = 2;
+    private static final int SAMPLES = 1 << 20;
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        System.out.printf("%10s %14s %10s %10s %10s %14s %10s %10s%n", "overriders", "overrides/s",
+            "p50 (us)", "p99 (us)", "max (us)", "reads/s", "switches", "overlaps");
+        for (int overriders : new int[] {1, 4, 16}) {
+            run(overriders, seconds);
+        }
+        System.exit(0);
+    }
+
+    private static void run(int overriders, int seconds) throws Exception {
+        PhaseTimer timer = new PhaseTimer();
+        SwitchCounter counter = new SwitchCounter();
+        Intersection junction = new Intersection("C1", IntersectionConfig.DEFAULT.withTimings(1, 1), counter, timer);
+        for (String d : DIRECTIONS) junction.registerClient(new NullClient("Pair_" + d), "ROAD_" + d);
+
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        List<long[]> latencies = new ArrayList<>();
+        AtomicLong[] counts = new AtomicLong[overriders];
+        for (int i = 0; i < overriders; i++) {
+            long[] samples = new long[SAMPLES];
+            AtomicLong count = new AtomicLong();
+            latencies.add(samples);
+            counts[i] = count;
+            String rtoId = "RTO-" + i;
+            threads.add(new Thread(() -> {
+                long n = 0;
+                while (System.nanoTime() < end) {
+                    String target = DIRECTIONS[(int) (n & 1)];
+                    long start = System.nanoTime();
+                    junction.forceSignalChange(target, rtoId);
+                    samples[(int) (n++ % SAMPLES)] = System.nanoTime() - start; // keeps the latest SAMPLES calls
+                }
+                count.set(n);
+            }));
+        }
+        for (int i = 0; i < DETECTORS; i++) {
+            String direction = DIRECTIONS[i];
+            threads.add(new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    junction.receiveRequest("Pair_" + direction, direction, false, 50);
+                    sleepQuietly(1);
+                }
+            }));
+        }
+        AtomicLong reads = new AtomicLong();
+        for (int i = 0; i < READERS; i++) {
+            threads.add(new Thread(() -> {
+                long n = 0;
+                while (System.nanoTime() < end) {
+                    Map<String, String> status = junction.getStatus();
+                    if (status.isEmpty()) throw new IllegalStateException();
+                    n++;
+                }
+                reads.addAndGet(n);
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread t : threads) t.join();
+        junction.stop(); // the dispatcher would keep draining the detectors' backlog
+        while (junction.isInTransition()) Thread.sleep(5);
+        Thread.sleep(50); // the completing thread logs just after publishing GREEN
+        timer.stop();
+
+        long total = 0;
+        int sampled = 0;
+        for (AtomicLong c : counts) {
+            total += c.get();
+            sampled += (int) Math.min(c.get(), SAMPLES);
+        }
+        long[] all = new long[sampled];
+        int pos = 0;
+        for (int i = 0; i < overriders; i++) {
+            int n = (int) Math.min(counts[i].get(), SAMPLES);
+            System.arraycopy(latencies.get(i), 0, all, pos, n);
+            pos += n;
+        }
+        Arrays.sort(all);
+        System.out.printf("%10d %14.0f %10.1f %10.1f %10.1f %14.0f %10d %10d%n", overriders, total / (double) seconds,
+            all[all.length / 2] / 1e3, all[(int) (all.length * 0.99)] / 1e3, all[all.length - 1] / 1e3,
+            reads.get() / (double) seconds, counter.started.get(), counter.overlaps.get());
+        if (counter.started.get() != counter.completed.get()) {
+            System.out.println("  switches started " + counter.started.get() + " but completed " + counter.completed.get());
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Counts switches and flags any that start while another is still running
+    private static final class SwitchCounter implements IntersectionListener {
+        final AtomicLong started = new AtomicLong();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong overlaps = new AtomicLong();
+        final AtomicInteger running = new AtomicInteger();
+
+        @Override
+        public void log(Intersection intersection, LogType type, String subject, String object, long a, long b) {
+            if (type == LogType.TRANSITION_START) {
+                started.incrementAndGet();
+                if (running.incrementAndGet() > 1) overlaps.incrementAndGet();
+            } else if (type == LogType.TRANSITION_COMPLETE) {
+                completed.incrementAndGet();
+                running.decrementAndGet();
+            }
+        }
+
+        @Override public void statusChanged(Intersection intersection, Map<String, String> status) {}
+        @Override public void queuesChanged(Intersection intersection) {}
+    }
+
+    private static final class NullClient implements ClientInterface {
+        private final String clientId;
+
+        NullClient(String clientId) {
+            this.clientId = clientId;
+        }
+
+        @Override public void updateSignalState(String state, String details) {}
+        @Override public String getClientId() { return clientId; }
+        @Override public void initiateRequest(boolean isVip, int proximity) {}
+    }
+}
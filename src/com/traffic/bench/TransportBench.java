@@ -0,0 +1,170 @@
+package com.traffic.bench;
+
+import com.traffic.interfaces.Admission;
+import com.traffic.interfaces.ClientInterface;
+import com.traffic.interfaces.LogEntry;
+import com.traffic.interfaces.RTOClientInterface;
+import com.traffic.interfaces.SignalControllerInterface;
+import com.traffic.interfaces.VehicleRequest;
+import com.traffic.wire.WireClient;
+import com.traffic.wire.WireServer;
+
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares RMI with the wire transport over loopback. The server side is a stub controller
+ * that only counts requests and answers each one with a signal-state callback, so the
+ * numbers are transport cost alone.
+ *
+ * Throughput: one sender pushes requests one at a time and in batches of 64.
+ * Latency: request sent to callback received, one request in flight at a time.
+ *
+ * Usage: TransportBench [requests] [latencySamples]
+ */
+public class TransportBench {
+
+    private static final int BATCH = 64;
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int samples = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+
+        EchoController controller = new EchoController();
+        SignalControllerInterface rmi = (SignalControllerInterface) UnicastRemoteObject.exportObject(controller, 0);
+        WireServer wireServer = new WireServer(controller, 0);
+        WireClient wire = new WireClient("127.0.0.1", wireServer.getPort());
+
+        System.out.printf("%-6s %14s %14s %10s %10s %10s%n", "", "single req/s", "batch req/s", "p50 (us)", "p99 (us)", "max (us)");
+        report("rmi", controller, rmi, true, requests, samples);
+        report("wire", controller, wire, false, requests, samples);
+
+        wire.close();
+        wireServer.close();
+        UnicastRemoteObject.unexportObject(controller, true);
+        System.exit(0);
+    }
+
+    private static void report(String name, EchoController controller, SignalControllerInterface server,
+                               boolean exportProbe, int requests, int samples) throws Exception {
+        Probe probe = new Probe();
+        ClientInterface callback = exportProbe ? (ClientInterface) UnicastRemoteObject.exportObject(probe, 0) : probe;
+        server.registerClient("J1", callback, "ROAD_1_2");
+
+        // Warm up both paths before measuring
+        throughput(controller, server, requests / 5, 1);
+        latencies(probe, controller, server, samples / 5);
+
+        double single = throughput(controller, server, requests, 1);
+        double batched = throughput(controller, server, requests, BATCH);
+        long[] rtt = latencies(probe, controller, server, samples);
+        System.out.printf("%-6s %14.0f %14.0f %10.1f %10.1f %10.1f%n", name, single, batched,
+            rtt[rtt.length / 2] / 1e3, rtt[(int) (rtt.length * 0.99)] / 1e3, rtt[rtt.length - 1] / 1e3);
+        if (exportProbe) UnicastRemoteObject.unexportObject(probe, true);
+    }
+
+    private static double throughput(EchoController controller, SignalControllerInterface server,
+                                     int requests, int batchSize) throws Exception {
+        controller.echo = false;
+        long start = System.nanoTime();
+        List<VehicleRequest> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < requests; i++) {
+            if (batchSize == 1) {
+                server.receiveRequest("J1", "Pair_1_2", "1_2", false, i);
+                continue;
+            }
+            batch.add(new VehicleRequest("Pair_1_2", "1_2", false, i));
+            if (batch.size() == batchSize || i == requests - 1) {
+                server.receiveRequests("J1", batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        return requests / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static long[] latencies(Probe probe, EchoController controller, SignalControllerInterface server,
+                                    int samples) throws Exception {
+        controller.echo = true;
+        long[] rtt = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            server.receiveRequest("J1", "Pair_1_2", "1_2", false, i);
+            if (probe.replies.poll(5, TimeUnit.SECONDS) == null) throw new IllegalStateException("No callback");
+            rtt[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(rtt);
+        return rtt;
+    }
+
+    // Counts requests and, when echo is on, answers each with a state callback
+    private static final class EchoController implements SignalControllerInterface {
+        final AtomicLong received = new AtomicLong();
+        volatile boolean echo;
+        volatile ClientInterface client;
+
+        @Override
+        public void registerClient(String intersectionId, ClientInterface client, String clientType) {
+            this.client = client;
+        }
+
+        @Override
+        public Admission receiveRequest(String intersectionId, String clientId, String direction, boolean isVip, int proximity) throws RemoteException {
+            received.incrementAndGet();
+            if (echo) client.updateSignalState(direction + "_GREEN", "Active");
+            return Admission.ONE;
+        }
+
+        @Override
+        public Admission receiveRequests(String intersectionId, List<VehicleRequest> batch) {
+            received.addAndGet(batch.size());
+            return Admission.accepted(batch.size());
+        }
+
+        @Override
+        public void registerRTO(String intersectionId, RTOClientInterface rto) {}
+
+        @Override
+        public void forceSignalChange(String intersectionId, String direction, String rtoId) {}
+
+        @Override
+        public List<String> getLogHistory() {
+            return List.of();
+        }
+
+        @Override
+        public List<LogEntry> getLogHistoryBefore(long beforeSeq, int limit) {
+            return List.of();
+        }
+
+        @Override
+        public List<LogEntry> getLogHistorySince(long afterSeq, int limit) {
+            return List.of();
+        }
+
+        @Override
+        public void subscribeEvents(RTOClientInterface rto, long afterSeq) {}
+    }
+
+    private static final class Probe implements ClientInterface {
+        final LinkedBlockingQueue<String> replies = new LinkedBlockingQueue<>();
+
+        @Override
+        public void updateSignalState(String state, String details) {
+            replies.add(state);
+        }
+
+        @Override
+        public String getClientId() {
+            return "Pair_1_2";
+        }
+
+        @Override
+        public void initiateRequest(boolean isVip, int proximity) {}
+    }
+}
@@ -0,0 +1,271 @@
+package com.traffic.client;
+
+import com.traffic.interfaces.Admission;
+import com.traffic.interfaces.ClientInterface;
+import com.traffic.interfaces.SignalControllerInterface;
+import com.traffic.sim.ArrivalProcess;
+import com.traffic.wire.WireClient;
+import com.traffic.wire.WireProtocol;
+
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Headless capacity test for a running SignalController. Simulates many junctions, each
+ * with one signal client per road, all in one JVM with no window: every road sends
+ * vehicle requests from its own virtual thread following the chosen arrival process, and
+ * measures how long each request waits until the server turns that road green. At the end
+ * it prints latency percentiles, requests still waiting for their green, refusals and
+ * failed sends. A refused or failed request is not waited for, so it never counts as served.
+ *
+ * Usage: LoadGenerator serverIp [--junctions 500] [--seconds 60] [--drain 20]
+ *        [--arrivals poisson|bursty|rush] [--rate 6] [--peak 60] [--day-seconds 60]
+ *        [--vip 0.05] [--proximity uniform|near|normal] [--seed 1]
+ * Rates are requests per road per minute. With -Dtraffic.transport=wire every road
+ * opens its own wire connection instead of sharing RMI.
+ */
+public class LoadGenerator {
+
+    private static final String[] DIRECTIONS = {"1_2", "3_4"}; // the server's default layout; 1_2 starts green
+
+    enum Proximity {
+        UNIFORM { int draw(Random r) { return 10 + r.nextInt(491); } },
+        NEAR { int draw(Random r) { return clamp(10 + (int) (-60 * Math.log(1 - r.nextDouble()))); } },
+        NORMAL { int draw(Random r) { return clamp((int) (250 + 80 * r.nextGaussian())); } };
+
+        abstract int draw(Random r);
+
+        private static int clamp(int meters) {
+            return Math.max(10, Math.min(500, meters));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: LoadGenerator serverIp [--junctions N] [--seconds S] [--arrivals poisson|bursty|rush] ...");
+            return;
+        }
+        String serverIp = args[0];
+        Map<String, String> options = new HashMap<>();
+        for (int i = 1; i + 1 < args.length; i += 2) options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        int junctions = Integer.parseInt(options.getOrDefault("junctions", "500"));
+        long seconds = Long.parseLong(options.getOrDefault("seconds", "60"));
+        long drainSeconds = Long.parseLong(options.getOrDefault("drain", "20"));
+        String arrivals = options.getOrDefault("arrivals", "poisson");
+        double rate = Double.parseDouble(options.getOrDefault("rate", "6"));
+        double peak = Double.parseDouble(options.getOrDefault("peak", "60"));
+        long daySeconds = Long.parseLong(options.getOrDefault("day-seconds", String.valueOf(seconds)));
+        double vipRatio = Double.parseDouble(options.getOrDefault("vip", "0.05"));
+        Proximity proximity = Proximity.valueOf(options.getOrDefault("proximity", "uniform").toUpperCase());
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        boolean wire = "wire".equals(System.getProperty("traffic.transport"));
+
+        if (System.getProperty("java.rmi.server.hostname") == null) {
+            System.setProperty("java.rmi.server.hostname", NetworkUtils.getLocalIpAddress());
+        }
+        SignalControllerInterface rmiServer = null;
+        if (!wire) {
+            Registry registry = LocateRegistry.getRegistry(serverIp, 1099);
+            rmiServer = (SignalControllerInterface) registry.lookup("TrafficSignalService");
+        }
+
+        Stats stats = new Stats();
+        List<Road> roads = new ArrayList<>();
+        for (int j = 0; j < junctions; j++) {
+            for (String direction : DIRECTIONS) {
+                SignalControllerInterface server = wire
+                    ? new WireClient(serverIp, Integer.getInteger("traffic.wire.port", WireProtocol.DEFAULT_PORT))
+                    : rmiServer;
+                Random random = new Random(seed * 1_000_003 + roads.size());
+                ArrivalProcess process = switch (arrivals) {
+                    case "poisson" -> ArrivalProcess.poisson(rate);
+                    case "bursty" -> ArrivalProcess.bursty(rate, peak, 20, 5);
+                    case "rush" -> ArrivalProcess.rushHour(rate, peak, TimeUnit.SECONDS.toNanos(daySeconds));
+                    default -> throw new IllegalArgumentException("Unknown arrival process: " + arrivals);
+                };
+                roads.add(new Road(server, "LG" + j, direction, process, random, proximity, vipRatio, stats));
+            }
+        }
+        for (Road road : roads) {
+            if (!wire) UnicastRemoteObject.exportObject(road, 0);
+            road.server.registerClient(road.intersectionId, road, "ROAD_" + road.direction);
+        }
+        System.out.printf("%d junctions, %d roads registered. Sending %s arrivals for %d s...%n",
+            junctions, roads.size(), arrivals, seconds);
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        List<Thread> senders = new ArrayList<>();
+        for (Road road : roads) senders.add(Thread.ofVirtual().start(() -> road.run(start, end)));
+        for (Thread t : senders) t.join();
+        TimeUnit.SECONDS.sleep(drainSeconds); // let queued requests reach a green
+
+        stats.print(seconds, roads);
+        System.exit(0);
+    }
+
+    // One signal client: sends its road's vehicles and times them until its light turns green
+    static final class Road implements ClientInterface {
+        final SignalControllerInterface server;
+        final String intersectionId;
+        final String direction;
+        private final String clientId;
+        private final ArrivalProcess arrivals;
+        private final Random random;
+        private final Proximity proximity;
+        private final double vipRatio;
+        private final Stats stats;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<Long> waiting = new ArrayDeque<>(); // send times; guarded by lock
+        private boolean green;                                       // guarded by lock
+
+        Road(SignalControllerInterface server, String intersectionId, String direction, ArrivalProcess arrivals,
+             Random random, Proximity proximity, double vipRatio, Stats stats) {
+            this.server = server;
+            this.intersectionId = intersectionId;
+            this.direction = direction;
+            this.clientId = intersectionId + "_" + direction;
+            this.arrivals = arrivals;
+            this.random = random;
+            this.proximity = proximity;
+            this.vipRatio = vipRatio;
+            this.stats = stats;
+            this.green = direction.equals(DIRECTIONS[0]);
+        }
+
+        void run(long start, long end) {
+            long t = arrivals.next(0, random);
+            while (start + t < end) {
+                long sleep = start + t - System.nanoTime();
+                if (sleep > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(sleep);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                send(random.nextDouble() < vipRatio, proximity.draw(random));
+                t = arrivals.next(t, random);
+            }
+        }
+
+        private void send(boolean vip, int meters) {
+            long now = System.nanoTime();
+            boolean queued;
+            lock.lock();
+            try {
+                queued = !green;
+                if (queued) waiting.add(now);
+            } finally {
+                lock.unlock();
+            }
+            stats.sent.incrementAndGet();
+            try {
+                Admission admission = server.receiveRequest(intersectionId, clientId, direction, vip, meters);
+                if (!admission.isAccepted()) {
+                    stats.refused.incrementAndGet();
+                    if (queued) withdraw(now);
+                } else if (!queued) {
+                    stats.served(0); // already green: the vehicle drives straight through
+                }
+            } catch (RemoteException e) {
+                stats.failed.incrementAndGet();
+                if (queued) withdraw(now);
+            }
+        }
+
+        // The server never took this request, so the next green must not count it as served
+        private void withdraw(long sentAt) {
+            lock.lock();
+            try {
+                waiting.removeLastOccurrence(sentAt);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int unserved() {
+            lock.lock();
+            try {
+                return waiting.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void updateSignalState(String state, String details) {
+            long now = System.nanoTime();
+            lock.lock();
+            try {
+                green = state.endsWith("_GREEN");
+                if (!green) return;
+                Long sent;
+                while ((sent = waiting.poll()) != null) stats.served(now - sent);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override public String getClientId() { return clientId; }
+        @Override public void initiateRequest(boolean isVip, int proximity) { send(isVip, proximity); }
+    }
+
+    // Shared counters plus every served request's wait, for exact percentiles
+    static final class Stats {
+        final AtomicLong sent = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong refused = new AtomicLong();
+        private final ReentrantLock lock = new ReentrantLock();
+        private long[] waits = new long[1 << 16]; // guarded by lock
+        private int served;                       // guarded by lock
+        private long immediate;                   // guarded by lock
+
+        void served(long waitNanos) {
+            lock.lock();
+            try {
+                if (waitNanos == 0) immediate++;
+                if (served == waits.length) waits = Arrays.copyOf(waits, served * 2);
+                waits[served++] = waitNanos;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void print(long seconds, List<Road> roads) {
+            long unserved = roads.stream().mapToLong(Road::unserved).sum();
+            long[] sorted;
+            long greenOnArrival;
+            lock.lock();
+            try {
+                sorted = Arrays.copyOf(waits, served);
+                greenOnArrival = immediate;
+            } finally {
+                lock.unlock();
+            }
+            Arrays.sort(sorted);
+            System.out.printf("sent %d (%.0f/s), served %d (%d on green), unserved %d, refused %d, failed sends %d%n",
+                sent.get(), sent.get() / (double) seconds, sorted.length, greenOnArrival, unserved, refused.get(), failed.get());
+            System.out.printf("request-to-green (s): p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), percentile(sorted, 1.0));
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e9;
+        }
+    }
+}
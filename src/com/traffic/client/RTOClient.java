@@ -3,6 +3,7 @@ package com.traffic.client;
 import javafx.scene.control.TextInputDialog;
 import java.util.Optional;
 
+import com.traffic.interfaces.LogEntry;
 import com.traffic.interfaces.RTOClientInterface;
 import com.traffic.interfaces.SignalControllerInterface;
 import javafx.application.Application;
@@ -38,6 +39,7 @@ public class RTOClient extends Application implements RTOClientInterface {
 
     private final String rtoId = "RTO_" + UUID.randomUUID().toString().substring(0, 4);
     private SignalControllerInterface server;
+    private String intersectionId = SignalControllerInterface.DEFAULT_INTERSECTION;
 
     // --- GUI Components ---
     private final Text road12Status = createStatusText("?");
@@ -45,6 +47,10 @@ public class RTOClient extends Application implements RTOClientInterface {
     private final Text road34Status = createStatusText("?");
     private final Text ped34Status = createStatusText("?");
     private final ObservableList<String> historyLogs = FXCollections.observableArrayList();
+    private static final int PAGE_SIZE = 100;
+    // Cursors into the server's event log: newest entry shown and oldest entry shown
+    private volatile long newestSeq = 0;
+    private volatile long oldestSeq = Long.MAX_VALUE;
     private final Label acknowledgmentLabel = new Label();
 
     public RTOClient() throws RemoteException {
@@ -54,6 +60,10 @@ public class RTOClient extends Application implements RTOClientInterface {
     private String serverIp;
     @Override
     public void start(Stage primaryStage) {
+        // Optional first argument selects the junction to supervise
+        if (!getParameters().getRaw().isEmpty()) {
+            this.intersectionId = getParameters().getRaw().get(0);
+        }
 
         TextInputDialog dialog = new TextInputDialog("localhost");
         dialog.setTitle("Server Connection");
@@ -71,7 +81,7 @@ public class RTOClient extends Application implements RTOClientInterface {
             return;
         }
 
-        primaryStage.setTitle("RTO Dashboard: " + rtoId);
+        primaryStage.setTitle("RTO Dashboard: " + rtoId + " @ " + intersectionId);
 
         GridPane statusGrid = createStatusGrid();
         VBox controlBox = createControlBox();
@@ -100,9 +110,11 @@ public class RTOClient extends Application implements RTOClientInterface {
                 // CHANGED: This now uses the 'serverIp' variable from the dialog
                 Registry registry = LocateRegistry.getRegistry(serverIp, 1099);
                 server = (SignalControllerInterface) registry.lookup("TrafficSignalService");
-                server.registerRTO(this);
+                server.registerRTO(intersectionId, this);
                 Platform.runLater(() -> acknowledgmentLabel.setText("Connected to server at " + serverIp));
-                refreshHistory();
+                loadLatestHistory();
+                // From here on the server pushes new events; resuming from our cursor avoids a reload
+                server.subscribeEvents(this, newestSeq);
             } catch (Exception e) {
                 Platform.runLater(() -> {
                     acknowledgmentLabel.setText("Connection to " + serverIp + " failed.");
@@ -112,10 +124,38 @@ public class RTOClient extends Application implements RTOClientInterface {
         }).start();
     }
     
+    // Fetches only the events logged since the last refresh and puts them on top
     private void refreshHistory() {
         try {
-            List<String> history = server.getLogHistory();
-            Platform.runLater(() -> historyLogs.setAll(history));
+            showNewer(server.getLogHistorySince(newestSeq, PAGE_SIZE));
+        } catch (RemoteException e) {
+            Platform.runLater(() -> acknowledgmentLabel.setText("Failed to get history."));
+        }
+    }
+
+    // First page after connecting: the latest events, newest first
+    private void loadLatestHistory() {
+        try {
+            List<LogEntry> page = server.getLogHistoryBefore(Long.MAX_VALUE, PAGE_SIZE);
+            if (!page.isEmpty()) {
+                newestSeq = page.get(0).seq();
+                oldestSeq = page.get(page.size() - 1).seq();
+            }
+            List<String> lines = page.stream().map(LogEntry::toString).toList();
+            Platform.runLater(() -> historyLogs.setAll(lines));
+        } catch (RemoteException e) {
+            Platform.runLater(() -> acknowledgmentLabel.setText("Failed to get history."));
+        }
+    }
+
+    // Pages further back in time from the oldest entry shown
+    private void loadOlderHistory() {
+        try {
+            List<LogEntry> page = server.getLogHistoryBefore(oldestSeq, PAGE_SIZE);
+            if (page.isEmpty()) return;
+            oldestSeq = page.get(page.size() - 1).seq();
+            List<String> lines = page.stream().map(LogEntry::toString).toList();
+            Platform.runLater(() -> historyLogs.addAll(lines));
         } catch (RemoteException e) {
             Platform.runLater(() -> acknowledgmentLabel.setText("Failed to get history."));
         }
@@ -136,6 +176,24 @@ public class RTOClient extends Application implements RTOClientInterface {
     public void acknowledge(String message) {
         Platform.runLater(() -> acknowledgmentLabel.setText(message));
     }
+
+    @Override
+    public void receiveEvents(List<LogEntry> frame) {
+        showNewer(frame);
+    }
+
+    // Puts oldest-first entries on top of the list, skipping any already shown
+    private synchronized void showNewer(List<LogEntry> ascending) {
+        long shown = newestSeq;
+        List<String> lines = ascending.reversed().stream()
+            .filter(entry -> entry.seq() > shown)
+            .map(LogEntry::toString)
+            .toList();
+        if (lines.isEmpty()) return;
+        newestSeq = ascending.get(ascending.size() - 1).seq();
+        if (oldestSeq == Long.MAX_VALUE) oldestSeq = ascending.get(0).seq();
+        Platform.runLater(() -> historyLogs.addAll(0, lines));
+    }
     
     // --- GUI Creation ---
     private VBox createControlBox() {
@@ -145,16 +203,19 @@ public class RTOClient extends Application implements RTOClientInterface {
         force34.setOnAction(e -> forceChange("3_4"));
         Button refresh = new Button("Refresh History");
         refresh.setOnAction(e -> refreshHistory());
+        Button older = new Button("Load Older");
+        older.setOnAction(e -> loadOlderHistory());
 
         HBox buttonBox = new HBox(10, force12, force34);
         buttonBox.setAlignment(Pos.CENTER);
-        
-        return new VBox(15, buttonBox, refresh, acknowledgmentLabel);
+        HBox historyBox = new HBox(10, refresh, older);
+
+        return new VBox(15, buttonBox, historyBox, acknowledgmentLabel);
     }
     
     private void forceChange(String direction) {
         try {
-            server.forceSignalChange(direction, rtoId);
+            server.forceSignalChange(intersectionId, direction, rtoId);
             acknowledgmentLabel.setText("Override command sent...");
         } catch (RemoteException e) {
             acknowledgmentLabel.setText("Error: Could not send command.");
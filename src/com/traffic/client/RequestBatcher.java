@@ -0,0 +1,125 @@
+package com.traffic.client;
+
+import com.traffic.interfaces.Admission;
+import com.traffic.interfaces.SignalControllerInterface;
+import com.traffic.interfaces.VehicleRequest;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects vehicle detections and sends them to the server with receiveRequests,
+ * one RMI call per batch. A batch is sent as soon as it holds maxBatch requests or
+ * maxDelayMillis after its first request, whichever comes first. Sends happen on one
+ * background thread, in order, so detectors never wait for the network.
+ *
+ * When the server answers RETRY_AFTER, the requests it did not take go back to the front of
+ * the pending batch and nothing is sent until the retry time. At most maxPending requests
+ * are kept while backing off; beyond that the oldest detections are given up.
+ */
+public class RequestBatcher {
+
+    private final SignalControllerInterface server;
+    private final String intersectionId;
+    private final int maxBatch;
+    private final long maxDelayMillis;
+    private final ScheduledExecutorService sender;
+    private final int maxPending;
+    private List<VehicleRequest> pending = new ArrayList<>(); // guarded by 'this'
+    private long retryAtNanos = System.nanoTime();          // guarded by 'this'
+
+    public RequestBatcher(SignalControllerInterface server, String intersectionId, int maxBatch, long maxDelayMillis) {
+        this.server = server;
+        this.intersectionId = intersectionId;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxPending = 16 * this.maxBatch;
+        this.sender = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "request-batcher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void add(VehicleRequest request) {
+        List<VehicleRequest> full = null;
+        synchronized (this) {
+            pending.add(request);
+            if (retryAtNanos - System.nanoTime() > 0) {
+                trimPending(); // backing off: the scheduled retry sends everything
+            } else if (pending.size() >= maxBatch) {
+                full = takePending();
+            } else if (pending.size() == 1) {
+                sender.schedule(this::flush, maxDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            List<VehicleRequest> batch = full;
+            sender.execute(() -> send(batch));
+        }
+    }
+
+    /** Sends whatever is pending now, unless the server asked to wait. */
+    public void flush() {
+        List<VehicleRequest> batch;
+        synchronized (this) {
+            if (pending.isEmpty() || retryAtNanos - System.nanoTime() > 0) return;
+            batch = takePending();
+        }
+        send(batch);
+    }
+
+    public void close() {
+        sender.execute(this::flush);
+        sender.shutdown();
+    }
+
+    private List<VehicleRequest> takePending() {
+        List<VehicleRequest> batch = pending;
+        pending = new ArrayList<>(maxBatch);
+        return batch;
+    }
+
+    private void send(List<VehicleRequest> batch) {
+        Admission admission;
+        try {
+            if (batch.size() == 1) {
+                VehicleRequest r = batch.get(0);
+                admission = server.receiveRequest(intersectionId, r.clientId(), r.direction(), r.isVip(), r.proximity());
+            } else {
+                admission = server.receiveRequests(intersectionId, batch);
+            }
+        } catch (RemoteException e) {
+            System.err.println("Failed to send " + batch.size() + " requests: " + e.getMessage());
+            return;
+        }
+        switch (admission.status()) {
+            case ACCEPTED -> {}
+            case RETRY_AFTER -> retryLater(batch.subList(admission.accepted(), batch.size()), admission.retryAfterMillis());
+            case REJECTED -> System.err.println("Server rejected " + (batch.size() - admission.accepted()) + " requests");
+        }
+    }
+
+    private void retryLater(List<VehicleRequest> refused, long retryAfterMillis) {
+        synchronized (this) {
+            List<VehicleRequest> merged = new ArrayList<>(refused.size() + pending.size());
+            merged.addAll(refused);
+            merged.addAll(pending);
+            pending = merged;
+            trimPending();
+            retryAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis);
+        }
+        sender.schedule(this::flush, retryAfterMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void trimPending() {
+        int excess = pending.size() - maxPending;
+        if (excess <= 0) return;
+        pending.subList(0, excess).clear();
+        System.err.println("Server busy: gave up " + excess + " queued detections");
+    }
+}
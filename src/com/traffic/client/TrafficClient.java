@@ -2,6 +2,9 @@ package com.traffic.client;
 
 import com.traffic.interfaces.ClientInterface;
 import com.traffic.interfaces.SignalControllerInterface;
+import com.traffic.interfaces.VehicleRequest;
+import com.traffic.wire.WireClient;
+import com.traffic.wire.WireProtocol;
 
 import javafx.scene.control.TextInputDialog;
 import java.util.Optional;
@@ -36,7 +39,12 @@ public class TrafficClient extends Application implements ClientInterface {
 
     private String clientId;
     private String clientType; // e.g., "ROAD_1_2"
+    private String intersectionId;
     private SignalControllerInterface server;
+    // Detections are batched; -Dtraffic.batch.size=1 sends each one immediately
+    private volatile RequestBatcher batcher;
+    private static final int BATCH_SIZE = Integer.getInteger("traffic.batch.size", 64);
+    private static final long BATCH_MILLIS = Long.getLong("traffic.batch.millis", 20);
     
     // --- GUI Components ---
     private Circle redLight, yellowLight, greenLight;
@@ -55,6 +63,8 @@ public class TrafficClient extends Application implements ClientInterface {
         Parameters params = getParameters();
         String roadPair = params.getRaw().get(0); 
         this.clientType = "ROAD_" + roadPair;
+        // Optional second argument selects the junction; defaults to the original one
+        this.intersectionId = params.getRaw().size() > 1 ? params.getRaw().get(1) : SignalControllerInterface.DEFAULT_INTERSECTION;
         this.clientId = "Pair_" + roadPair;
     }
 
@@ -142,10 +152,15 @@ public class TrafficClient extends Application implements ClientInterface {
     private void connectAndStartRequests() {
         new Thread(() -> {
             try {
-                UnicastRemoteObject.exportObject(this, 0);
-                Registry registry = LocateRegistry.getRegistry(serverIp, 1099);
-                server = (SignalControllerInterface) registry.lookup("TrafficSignalService");
-                server.registerClient(this, clientType);
+                if ("wire".equals(System.getProperty("traffic.transport"))) {
+                    server = new WireClient(serverIp, Integer.getInteger("traffic.wire.port", WireProtocol.DEFAULT_PORT));
+                } else {
+                    UnicastRemoteObject.exportObject(this, 0);
+                    Registry registry = LocateRegistry.getRegistry(serverIp, 1099);
+                    server = (SignalControllerInterface) registry.lookup("TrafficSignalService");
+                }
+                batcher = new RequestBatcher(server, intersectionId, BATCH_SIZE, BATCH_MILLIS);
+                server.registerClient(intersectionId, this, clientType);
                 System.out.println("Client [" + clientId + "] successfully registered with server at " + serverIp);
 
                 ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
@@ -174,7 +189,7 @@ public class TrafficClient extends Application implements ClientInterface {
     @Override
     public void initiateRequest(boolean isVip, int proximity) throws RemoteException {
         String direction = clientType.substring(5); // "1_2" or "3_4"
-        server.receiveRequest(clientId, direction, isVip, proximity);
+        batcher.add(new VehicleRequest(clientId, direction, isVip, proximity));
     }
     
     @Override
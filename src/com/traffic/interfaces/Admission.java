@@ -0,0 +1,32 @@
+package com.traffic.interfaces;
+
+import java.io.Serializable;
+
+/**
+ * The server's answer to receiveRequest(s). accepted counts the requests taken, from the front
+ * of a batch; the rest were not queued. RETRY_AFTER means the junction's queues are full and
+ * the rest may be sent again after retryAfterMillis. REJECTED means they never will be taken
+ * (unknown intersection or direction), so resending is pointless.
+ */
+public record Admission(Status status, int accepted, long retryAfterMillis) implements Serializable {
+
+    public enum Status { ACCEPTED, RETRY_AFTER, REJECTED }
+
+    public static final Admission ONE = new Admission(Status.ACCEPTED, 1, 0);
+
+    public static Admission accepted(int count) {
+        return count == 1 ? ONE : new Admission(Status.ACCEPTED, count, 0);
+    }
+
+    public static Admission retryAfter(int accepted, long millis) {
+        return new Admission(Status.RETRY_AFTER, accepted, millis);
+    }
+
+    public static Admission rejected(int accepted) {
+        return new Admission(Status.REJECTED, accepted, 0);
+    }
+
+    public boolean isAccepted() {
+        return status == Status.ACCEPTED;
+    }
+}
@@ -0,0 +1,15 @@
+package com.traffic.interfaces;
+
+import java.io.Serializable;
+
+/**
+ * One persisted log event. 'seq' is a server-assigned, strictly increasing sequence
+ * number and serves as the cursor for paging and incremental history calls.
+ */
+public record LogEntry(long seq, long epochMillis, String timestamp, String event) implements Serializable {
+
+    @Override
+    public String toString() {
+        return "[" + timestamp + "] " + event;
+    }
+}
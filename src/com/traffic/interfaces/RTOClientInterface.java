@@ -2,6 +2,7 @@ package com.traffic.interfaces;
 
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.util.List;
 import java.util.Map;
 
 public interface RTOClientInterface extends Remote {
@@ -11,4 +12,7 @@ public interface RTOClientInterface extends Remote {
 
     // Server sends a confirmation or error message after a manual override attempt
     void acknowledge(String message) throws RemoteException;
+
+    // Server pushes newly logged events, oldest first, in small frames (see subscribeEvents)
+    void receiveEvents(List<LogEntry> frame) throws RemoteException;
 }
\ No newline at end of file
@@ -5,13 +5,26 @@ import java.rmi.RemoteException;
 import java.util.List;
 
 public interface SignalControllerInterface extends Remote {
-    
+
+    // Intersection used by clients that do not name one (the original single junction)
+    String DEFAULT_INTERSECTION = "J1";
+
     // For Traffic Signal Clients
-    void registerClient(ClientInterface client, String clientType) throws RemoteException;
-    void receiveRequest(String clientId, String direction, boolean isVip, int proximity) throws RemoteException;
+    void registerClient(String intersectionId, ClientInterface client, String clientType) throws RemoteException;
+    // Both say whether the requests were queued, or when to send the rest again (see Admission)
+    Admission receiveRequest(String intersectionId, String clientId, String direction, boolean isVip, int proximity) throws RemoteException;
+    // Many detections in one round-trip, for high-rate detectors
+    Admission receiveRequests(String intersectionId, List<VehicleRequest> batch) throws RemoteException;
 
     // --- NEW METHODS FOR RTOs ---
-    void registerRTO(RTOClientInterface rto) throws RemoteException;
-    void forceSignalChange(String direction, String rtoId) throws RemoteException;
+    void registerRTO(String intersectionId, RTOClientInterface rto) throws RemoteException;
+    void forceSignalChange(String intersectionId, String direction, String rtoId) throws RemoteException;
     List<String> getLogHistory() throws RemoteException;
-}  
\ No newline at end of file
+
+    // Keyset-paginated history: newest-first page of events with seq < beforeSeq (use Long.MAX_VALUE for the latest page)
+    List<LogEntry> getLogHistoryBefore(long beforeSeq, int limit) throws RemoteException;
+    // Incremental history: oldest-first events with seq > afterSeq
+    List<LogEntry> getLogHistorySince(long afterSeq, int limit) throws RemoteException;
+    // Live push of logged events with seq > afterSeq (negative: only new events); resubscribe after a reconnect
+    void subscribeEvents(RTOClientInterface rto, long afterSeq) throws RemoteException;
+}
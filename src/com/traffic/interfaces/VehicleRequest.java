@@ -0,0 +1,6 @@
+package com.traffic.interfaces;
+
+import java.io.Serializable;
+
+/** One vehicle detection, as sent in a batch through receiveRequests. */
+public record VehicleRequest(String clientId, String direction, boolean isVip, int proximity) implements Serializable {}
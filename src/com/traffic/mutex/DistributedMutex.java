@@ -0,0 +1,28 @@
+package com.traffic.mutex;
+
+/**
+ * One node's side of a mutual exclusion protocol among a fixed set of nodes 0..n-1.
+ * {@link #acquire()} blocks until this node may enter the critical section; requests
+ * from other nodes that cannot be granted yet are queued and answered on
+ * {@link #release()}, so no request is ever refused and retried.
+ */
+public interface DistributedMutex {
+
+    int nodeId();
+
+    void acquire() throws InterruptedException;
+
+    void release();
+
+    /**
+     * A node this one is keeping waiting, the one that will enter next once it releases
+     * (as far as this node can tell), or -1 if no other node is waiting on it.
+     */
+    int waiter();
+
+    /** Called by the transport for every message addressed to this node. */
+    void receive(MutexMessage message);
+
+    /** Messages this node has sent so far. */
+    long messagesSent();
+}
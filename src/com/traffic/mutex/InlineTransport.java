@@ -0,0 +1,55 @@
+package com.traffic.mutex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic in-process network for the roads of one junction. Messages go into one FIFO
+ * that the outermost sender drains on its own thread before send returns, so a whole exchange
+ * completes inside acquire or release and always in the same order. Single-threaded: every
+ * node must be driven from the same thread, which the junction's dispatcher is.
+ */
+public class InlineTransport implements MutexTransport {
+
+    private record Envelope(int to, MutexMessage message) {}
+
+    private final int size;
+    private final ArrayDeque<Envelope> pending = new ArrayDeque<>();
+    private List<DistributedMutex> nodes = List.of();
+    private boolean delivering;
+
+    public InlineTransport(int nodes) {
+        this.size = nodes;
+    }
+
+    /** Creates one node per slot with the given algorithm. */
+    public List<DistributedMutex> start(MutexAlgorithm algorithm, MutexListener listener) {
+        List<DistributedMutex> created = new ArrayList<>();
+        for (int node = 0; node < size; node++) {
+            created.add(algorithm.create(node, size, this, listener));
+        }
+        nodes = List.copyOf(created);
+        return nodes;
+    }
+
+    @Override
+    public void send(int to, MutexMessage message) {
+        pending.add(new Envelope(to, message));
+        if (delivering) return; // an outer send is already draining the queue
+        delivering = true;
+        try {
+            Envelope next;
+            while ((next = pending.poll()) != null) {
+                nodes.get(next.to()).receive(next.message());
+            }
+        } finally {
+            delivering = false;
+        }
+    }
+
+    @Override
+    public void close() {
+        pending.clear();
+    }
+}
@@ -0,0 +1,55 @@
+package com.traffic.mutex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * In-process network for nodes that share a JVM but are driven from different threads.
+ * Every node has an inbox drained by its own virtual thread, so messages are delivered
+ * asynchronously and in order, exactly as over a socket.
+ */
+public class LocalTransport implements MutexTransport {
+
+    private final String name;
+    private final List<BlockingQueue<MutexMessage>> inboxes = new ArrayList<>();
+    private final List<Thread> deliverers = new ArrayList<>();
+
+    public LocalTransport(String name, int nodes) {
+        this.name = name;
+        for (int node = 0; node < nodes; node++) {
+            inboxes.add(new LinkedBlockingQueue<>());
+        }
+    }
+
+    /** Creates one node per inbox with the given algorithm and starts delivering to them. */
+    public List<DistributedMutex> start(MutexAlgorithm algorithm, MutexListener listener) {
+        List<DistributedMutex> nodes = new ArrayList<>();
+        for (int node = 0; node < inboxes.size(); node++) {
+            nodes.add(algorithm.create(node, inboxes.size(), this, listener));
+        }
+        for (int node = 0; node < inboxes.size(); node++) {
+            BlockingQueue<MutexMessage> inbox = inboxes.get(node);
+            DistributedMutex target = nodes.get(node);
+            deliverers.add(Thread.ofVirtual().name(name + "-mutex-" + node).start(() -> {
+                try {
+                    while (true) target.receive(inbox.take());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        return List.copyOf(nodes);
+    }
+
+    @Override
+    public void send(int to, MutexMessage message) {
+        inboxes.get(to).add(message);
+    }
+
+    @Override
+    public void close() {
+        deliverers.forEach(Thread::interrupt);
+    }
+}
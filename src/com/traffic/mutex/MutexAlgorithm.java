@@ -0,0 +1,40 @@
+package com.traffic.mutex;
+
+/** The available protocols, selectable by name ("ra" or "sk") with -Dtraffic.mutex. */
+public enum MutexAlgorithm {
+
+    RICART_AGRAWALA("ra") {
+        @Override
+        public DistributedMutex create(int self, int nodes, MutexTransport transport, MutexListener listener) {
+            return new RicartAgrawalaMutex(self, nodes, transport, listener);
+        }
+    },
+    SUZUKI_KASAMI("sk") {
+        @Override
+        public DistributedMutex create(int self, int nodes, MutexTransport transport, MutexListener listener) {
+            return new SuzukiKasamiMutex(self, nodes, transport, listener);
+        }
+    };
+
+    private final String shortName;
+
+    MutexAlgorithm(String shortName) {
+        this.shortName = shortName;
+    }
+
+    public String shortName() { return shortName; }
+
+    public abstract DistributedMutex create(int self, int nodes, MutexTransport transport, MutexListener listener);
+
+    public static MutexAlgorithm fromName(String name) {
+        for (MutexAlgorithm algorithm : values()) {
+            if (algorithm.shortName.equalsIgnoreCase(name) || algorithm.name().equalsIgnoreCase(name)) return algorithm;
+        }
+        throw new IllegalArgumentException("Unknown mutex algorithm: " + name + " (expected ra or sk)");
+    }
+
+    /** The algorithm named by -Dtraffic.mutex, Ricart–Agrawala by default. */
+    public static MutexAlgorithm configured() {
+        return fromName(System.getProperty("traffic.mutex", RICART_AGRAWALA.shortName));
+    }
+}
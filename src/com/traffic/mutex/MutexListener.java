@@ -0,0 +1,18 @@
+package com.traffic.mutex;
+
+/** Observes a node's protocol traffic, e.g. to log it. Called outside the node's lock. */
+public interface MutexListener {
+
+    void sent(int from, int to, MutexMessage message);
+
+    /** 'clock' is the receiver's Lamport clock (Ricart–Agrawala) or request number for the sender (Suzuki–Kasami). */
+    void received(int node, MutexMessage message, long clock);
+
+    void deferred(int node, int requester);
+
+    MutexListener NONE = new MutexListener() {
+        @Override public void sent(int from, int to, MutexMessage message) {}
+        @Override public void received(int node, MutexMessage message, long clock) {}
+        @Override public void deferred(int node, int requester) {}
+    };
+}
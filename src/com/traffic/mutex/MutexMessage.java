@@ -0,0 +1,25 @@
+package com.traffic.mutex;
+
+/**
+ * One message between mutex nodes. REQUEST carries the sender's Lamport timestamp
+ * (Ricart–Agrawala) or request number (Suzuki–Kasami); REPLY echoes the stamp of the
+ * request it answers, so a reply to a withdrawn request never counts for a later one; TOKEN
+ * carries the Suzuki–Kasami token: the last granted request number of every node and
+ * the queue of nodes waiting for it.
+ */
+public record MutexMessage(Kind kind, int from, long stamp, long[] granted, int[] queue) {
+
+    public enum Kind { REQUEST, REPLY, TOKEN }
+
+    public static MutexMessage request(int from, long stamp) {
+        return new MutexMessage(Kind.REQUEST, from, stamp, null, null);
+    }
+
+    public static MutexMessage reply(int from, long requestStamp) {
+        return new MutexMessage(Kind.REPLY, from, requestStamp, null, null);
+    }
+
+    public static MutexMessage token(int from, long[] granted, int[] queue) {
+        return new MutexMessage(Kind.TOKEN, from, 0, granted, queue);
+    }
+}
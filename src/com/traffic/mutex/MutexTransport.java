@@ -0,0 +1,14 @@
+package com.traffic.mutex;
+
+/**
+ * Delivers mutex messages between nodes, FIFO per pair of nodes. Nodes never hold their
+ * own lock while sending, so a transport may deliver on the sender's thread
+ * ({@link InlineTransport}) as well as asynchronously.
+ */
+public interface MutexTransport extends AutoCloseable {
+
+    void send(int to, MutexMessage message);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,160 @@
+package com.traffic.mutex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ricart–Agrawala with Lamport clocks. A node broadcasts a timestamped REQUEST and enters
+ * once every other node has replied. A node that is inside, or waiting with an older
+ * request (ties broken by node id), defers its reply until it releases. 2(n-1) messages
+ * per entry.
+ */
+public class RicartAgrawalaMutex implements DistributedMutex {
+
+    private final int self;
+    private final int nodes;
+    private final MutexTransport transport;
+    private final MutexListener listener;
+    private final AtomicLong sent = new AtomicLong();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition allReplied = lock.newCondition();
+    private long clock = 0;           // guarded by lock
+    private boolean requesting;       // guarded by lock
+    private boolean inside;           // guarded by lock
+    private long requestStamp;        // guarded by lock
+    private int replies;              // guarded by lock
+    private final long[] deferred;    // stamp of each deferred request, 0 if none; guarded by lock
+
+    public RicartAgrawalaMutex(int self, int nodes, MutexTransport transport, MutexListener listener) {
+        this.self = self;
+        this.nodes = nodes;
+        this.transport = transport;
+        this.listener = listener;
+        this.deferred = new long[nodes];
+    }
+
+    @Override
+    public int nodeId() { return self; }
+
+    @Override
+    public long messagesSent() { return sent.get(); }
+
+    @Override
+    public void acquire() throws InterruptedException {
+        long stamp;
+        lock.lock();
+        try {
+            if (requesting || inside) throw new IllegalStateException("Node " + self + " is already requesting");
+            requesting = true;
+            requestStamp = stamp = ++clock;
+            replies = 0;
+        } finally {
+            lock.unlock();
+        }
+        for (int node = 0; node < nodes; node++) {
+            if (node != self) send(node, MutexMessage.request(self, stamp));
+        }
+        boolean entered = false;
+        lock.lock();
+        try {
+            while (replies < nodes - 1) {
+                allReplied.await();
+            }
+            requesting = false;
+            inside = true;
+            entered = true;
+        } finally {
+            lock.unlock();
+            if (!entered) release(); // interrupted: withdraw and answer whoever we made wait
+        }
+    }
+
+    @Override
+    public void release() {
+        List<MutexMessage> replies = new ArrayList<>();
+        List<Integer> waiting = new ArrayList<>();
+        lock.lock();
+        try {
+            requesting = false;
+            inside = false;
+            for (int node = 0; node < nodes; node++) {
+                if (deferred[node] != 0) {
+                    waiting.add(node);
+                    replies.add(MutexMessage.reply(self, deferred[node]));
+                    deferred[node] = 0;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (int i = 0; i < waiting.size(); i++) send(waiting.get(i), replies.get(i));
+    }
+
+    @Override
+    public int waiter() {
+        lock.lock();
+        try {
+            int oldest = -1;
+            for (int node = 0; node < nodes; node++) {
+                if (deferred[node] != 0 && (oldest < 0 || deferred[node] < deferred[oldest])) oldest = node;
+            }
+            return oldest;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void receive(MutexMessage message) {
+        switch (message.kind()) {
+            case REQUEST -> onRequest(message);
+            case REPLY -> onReply(message);
+            case TOKEN -> throw new IllegalArgumentException("Ricart–Agrawala has no token");
+        }
+    }
+
+    private void onRequest(MutexMessage message) {
+        int from = message.from();
+        boolean defer;
+        long now;
+        lock.lock();
+        try {
+            now = clock = Math.max(clock, message.stamp()) + 1;
+            // Our own pending or granted request goes first if it is older
+            defer = inside || (requesting
+                && (requestStamp < message.stamp() || (requestStamp == message.stamp() && self < from)));
+            if (defer) deferred[from] = message.stamp();
+        } finally {
+            lock.unlock();
+        }
+        listener.received(self, message, now);
+        if (defer) {
+            listener.deferred(self, from);
+        } else {
+            send(from, MutexMessage.reply(self, message.stamp()));
+        }
+    }
+
+    private void onReply(MutexMessage message) {
+        long now;
+        lock.lock();
+        try {
+            now = clock;
+            if (!requesting || message.stamp() != requestStamp) return; // answers a withdrawn request
+            if (++replies == nodes - 1) allReplied.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        listener.received(self, message, now);
+    }
+
+    private void send(int to, MutexMessage message) {
+        sent.incrementAndGet();
+        listener.sent(self, to, message);
+        transport.send(to, message);
+    }
+}
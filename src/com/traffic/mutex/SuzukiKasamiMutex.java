@@ -0,0 +1,206 @@
+package com.traffic.mutex;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Suzuki–Kasami token broadcast. Only the token holder may enter. A node without the token
+ * broadcasts REQUEST with its next request number; on release the holder appends every
+ * node whose newest request is still unserved to the token's queue and passes the token
+ * to the queue's head. n messages per entry under contention, none when the holder
+ * re-enters. Node 0 starts with the token.
+ */
+public class SuzukiKasamiMutex implements DistributedMutex {
+
+    private final int self;
+    private final int nodes;
+    private final MutexTransport transport;
+    private final MutexListener listener;
+    private final AtomicLong sent = new AtomicLong();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition tokenArrived = lock.newCondition();
+    private final long[] requested;    // RN: highest request number seen per node; guarded by lock
+    private long[] granted;            // LN, part of the token; null unless we hold it; guarded by lock
+    private ArrayDeque<Integer> queue; // waiting nodes, part of the token; guarded by lock
+    private boolean requesting;        // guarded by lock
+    private boolean inside;            // guarded by lock
+    private boolean withdrawn;         // interrupted while our request was out; guarded by lock
+
+    public SuzukiKasamiMutex(int self, int nodes, MutexTransport transport, MutexListener listener) {
+        this.self = self;
+        this.nodes = nodes;
+        this.transport = transport;
+        this.listener = listener;
+        this.requested = new long[nodes];
+        if (self == 0) {
+            granted = new long[nodes];
+            queue = new ArrayDeque<>();
+        }
+    }
+
+    @Override
+    public int nodeId() { return self; }
+
+    @Override
+    public long messagesSent() { return sent.get(); }
+
+    private boolean hasToken() { return granted != null; }
+
+    @Override
+    public void acquire() throws InterruptedException {
+        long number;
+        lock.lock();
+        try {
+            if (requesting || inside) throw new IllegalStateException("Node " + self + " is already requesting");
+            if (hasToken()) {
+                inside = true; // an idle holder re-enters without a message
+                return;
+            }
+            requesting = true;
+            // A withdrawn request is still queued for the token; a new number would never be served
+            number = withdrawn ? 0 : ++requested[self];
+            withdrawn = false;
+        } finally {
+            lock.unlock();
+        }
+        for (int node = 0; number > 0 && node < nodes; node++) {
+            if (node != self) send(node, MutexMessage.request(self, number));
+        }
+        boolean entered = false;
+        lock.lock();
+        try {
+            while (!inside) {
+                tokenArrived.await();
+            }
+            entered = true;
+        } finally {
+            // Interrupted: the token still comes to us eventually and is passed straight on,
+            // unless it arrived just before the interrupt, in which case we leave again
+            requesting = false;
+            boolean tokenCameAnyway = !entered && inside;
+            if (!entered && !inside) withdrawn = true;
+            lock.unlock();
+            if (tokenCameAnyway) release();
+        }
+    }
+
+    @Override
+    public void release() {
+        MutexMessage token;
+        int next;
+        lock.lock();
+        try {
+            inside = false;
+            if (!hasToken()) return;
+            next = nextHolder();
+            if (next < 0) return;
+            token = takeToken();
+        } finally {
+            lock.unlock();
+        }
+        send(next, token);
+    }
+
+    @Override
+    public int waiter() {
+        lock.lock();
+        try {
+            if (!hasToken()) return -1;
+            if (!queue.isEmpty()) return queue.peek();
+            for (int i = 1; i < nodes; i++) {
+                int node = (self + i) % nodes;
+                if (requested[node] == granted[node] + 1) return node;
+            }
+            return -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void receive(MutexMessage message) {
+        switch (message.kind()) {
+            case REQUEST -> onRequest(message);
+            case TOKEN -> onToken(message);
+            case REPLY -> throw new IllegalArgumentException("Suzuki–Kasami has no replies");
+        }
+    }
+
+    private void onRequest(MutexMessage message) {
+        int from = message.from();
+        long number;
+        boolean holding;
+        MutexMessage token = null;
+        lock.lock();
+        try {
+            number = requested[from] = Math.max(requested[from], message.stamp());
+            holding = hasToken();
+            // An idle holder hands the token over at once if this request is still unserved
+            if (holding && !inside && number == granted[from] + 1) {
+                queue.remove(from);
+                token = takeToken();
+            }
+        } finally {
+            lock.unlock();
+        }
+        listener.received(self, message, number);
+        if (token != null) {
+            send(from, token);
+        } else if (holding) {
+            listener.deferred(self, from); // queued on the token when we release
+        }
+    }
+
+    private void onToken(MutexMessage message) {
+        MutexMessage token = null;
+        int next = -1;
+        lock.lock();
+        try {
+            granted = message.granted().clone();
+            queue = new ArrayDeque<>();
+            for (int node : message.queue()) queue.add(node);
+            if (requesting) {
+                inside = true;
+                tokenArrived.signalAll();
+            } else {
+                // Our request was withdrawn: mark it served and pass the token on
+                withdrawn = false;
+                next = nextHolder();
+                if (next >= 0) token = takeToken();
+            }
+        } finally {
+            lock.unlock();
+        }
+        listener.received(self, message, 0);
+        if (token != null) send(next, token);
+    }
+
+    // Marks our own request served, queues every other unserved request (scanning from our
+    // right-hand neighbour so no node is always last) and returns the queue head, or -1.
+    private int nextHolder() {
+        granted[self] = requested[self];
+        for (int i = 1; i < nodes; i++) {
+            int node = (self + i) % nodes;
+            if (requested[node] == granted[node] + 1 && !queue.contains(node)) queue.add(node);
+        }
+        Integer next = queue.poll();
+        return next == null ? -1 : next;
+    }
+
+    private MutexMessage takeToken() {
+        int[] waiting = queue.stream().mapToInt(Integer::intValue).toArray();
+        MutexMessage token = MutexMessage.token(self, granted, waiting);
+        granted = null;
+        queue = null;
+        return token;
+    }
+
+    private void send(int to, MutexMessage message) {
+        sent.incrementAndGet();
+        listener.sent(self, to, message);
+        transport.send(to, message);
+    }
+}
@@ -0,0 +1,248 @@
+package com.traffic.mutex;
+
+import com.traffic.wire.WireProtocol;
+import com.traffic.wire.WireProtocol.FrameReader;
+import com.traffic.wire.WireProtocol.FrameWriter;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Mutex messages between processes over TCP, framed like the wire transport
+ * (length:int32 type:int8 payload). Each node listens on its own address from the peer
+ * list and opens one outgoing connection per peer on first use, retrying while the peer
+ * is still starting. Incoming connections are read by one virtual thread each.
+ *
+ * One transport can carry several independent mutexes among the same processes, such as
+ * the road nodes of every junction a server runs: each has a named {@link #channel} and
+ * every frame carries that name. Messages for a channel nobody has registered yet are held
+ * until it is, so a peer may start asking before this process has opened the junction.
+ *
+ * <pre>
+ * REQUEST, REPLY := channel:str from:int32 stamp:int64
+ * TOKEN          := channel:str from:int32 n:int32 n x granted:int64 q:int32 q x node:int32
+ * </pre>
+ */
+public class TcpTransport implements MutexTransport {
+
+    static final byte REQUEST = 20;
+    static final byte REPLY = 21;
+    static final byte TOKEN = 22;
+    private static final long CONNECT_TIMEOUT_MILLIS = 10_000;
+
+    private final int self;
+    private final List<InetSocketAddress> peers;
+    private final SocketChannel[] outgoing;
+    private final ReentrantLock[] sendLocks;
+    private final List<SocketChannel> incoming = new CopyOnWriteArrayList<>();
+    private final Map<String, DistributedMutex> nodes = new ConcurrentHashMap<>();
+    private final Map<String, List<MutexMessage>> early = new HashMap<>(); // guarded by channelLock
+    private final ReentrantLock channelLock = new ReentrantLock();
+    private volatile Consumer<String> unknownChannel = name -> { };
+    private ServerSocketChannel server;
+    private volatile boolean closed;
+
+    public TcpTransport(int self, List<InetSocketAddress> peers) {
+        this.self = self;
+        this.peers = List.copyOf(peers);
+        this.outgoing = new SocketChannel[peers.size()];
+        this.sendLocks = new ReentrantLock[peers.size()];
+        for (int i = 0; i < sendLocks.length; i++) sendLocks[i] = new ReentrantLock();
+    }
+
+    /** Binds this node's address and delivers every incoming message to the node. */
+    public void start(DistributedMutex node) throws IOException {
+        register("", node);
+        listen();
+    }
+
+    /** Binds this node's address and starts delivering to the registered channels. */
+    public void listen() throws IOException {
+        server = ServerSocketChannel.open().bind(peers.get(self));
+        Thread.ofVirtual().name("mutex-accept-" + self).start(() -> {
+            while (!closed) {
+                try {
+                    SocketChannel channel = server.accept();
+                    incoming.add(channel);
+                    Thread.ofVirtual().name("mutex-read-" + self).start(() -> readLoop(channel));
+                } catch (IOException e) {
+                    if (!closed) System.err.println("Mutex node " + self + " accept failed: " + e.getMessage());
+                    return;
+                }
+            }
+        });
+    }
+
+    /** Called, on a reader thread, with the name of a channel a peer uses before it is registered here. */
+    public void onUnknownChannel(Consumer<String> handler) {
+        this.unknownChannel = handler;
+    }
+
+    /** Delivers the channel's messages to node, starting with any that arrived before it was registered. */
+    public void register(String channel, DistributedMutex node) {
+        channelLock.lock();
+        try {
+            List<MutexMessage> held = early.remove(channel);
+            if (held != null) held.forEach(node::receive);
+            nodes.put(channel, node);
+        } finally {
+            channelLock.unlock();
+        }
+    }
+
+    /** Sends on the named channel; closing the returned transport only unregisters the channel. */
+    public MutexTransport channel(String name) {
+        return new MutexTransport() {
+            @Override
+            public void send(int to, MutexMessage message) {
+                TcpTransport.this.send(to, name, message);
+            }
+
+            @Override
+            public void close() {
+                nodes.remove(name);
+            }
+        };
+    }
+
+    @Override
+    public void send(int to, MutexMessage message) {
+        send(to, "", message);
+    }
+
+    private void send(int to, String channelName, MutexMessage message) {
+        ByteBuffer frame = encode(channelName, message);
+        ReentrantLock lock = sendLocks[to];
+        lock.lock();
+        try {
+            SocketChannel channel = outgoing[to];
+            if (channel == null) channel = outgoing[to] = connect(peers.get(to));
+            while (frame.hasRemaining()) channel.write(frame);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Mutex node " + self + " could not reach node " + to, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            if (server != null) server.close();
+            for (SocketChannel channel : outgoing) {
+                if (channel != null) channel.close();
+            }
+            for (SocketChannel channel : incoming) channel.close();
+        } catch (IOException e) {
+            System.err.println("Mutex node " + self + " close failed: " + e.getMessage());
+        }
+    }
+
+    private void readLoop(SocketChannel channel) {
+        try (DataInputStream in = new DataInputStream(Channels.newInputStream(channel))) {
+            while (!closed) {
+                int length = in.readInt();
+                if (length <= 0 || length > WireProtocol.MAX_FRAME) {
+                    throw new IOException("Bad frame length " + length);
+                }
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                FrameReader frame = new FrameReader(ByteBuffer.wrap(bytes));
+                byte type = frame.getByte();
+                deliver(frame.getString(), decode(type, frame));
+            }
+        } catch (EOFException e) {
+            // the peer closed its side
+        } catch (IOException e) {
+            if (!closed) System.err.println("Mutex node " + self + " lost a peer connection: " + e.getMessage());
+        }
+    }
+
+    // Registration delivers what was held under the same lock, so a channel's messages keep their order
+    private void deliver(String channelName, MutexMessage message) {
+        DistributedMutex node = nodes.get(channelName);
+        if (node == null) {
+            boolean first = false;
+            channelLock.lock();
+            try {
+                node = nodes.get(channelName);
+                if (node == null) {
+                    first = !early.containsKey(channelName);
+                    early.computeIfAbsent(channelName, name -> new ArrayList<>()).add(message);
+                }
+            } finally {
+                channelLock.unlock();
+            }
+            if (first) unknownChannel.accept(channelName);
+            if (node == null) return;
+        }
+        node.receive(message);
+    }
+
+    private static SocketChannel connect(InetSocketAddress address) throws IOException {
+        long giveUp = System.currentTimeMillis() + CONNECT_TIMEOUT_MILLIS;
+        while (true) {
+            try {
+                SocketChannel channel = SocketChannel.open(address);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                return channel;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > giveUp) throw e;
+                try {
+                    Thread.sleep(50); // the peer process may still be starting
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while connecting to " + address, ie);
+                }
+            }
+        }
+    }
+
+    static ByteBuffer encode(String channelName, MutexMessage message) {
+        return switch (message.kind()) {
+            case REQUEST -> new FrameWriter(REQUEST).putString(channelName).putInt(message.from()).putLong(message.stamp()).toBuffer();
+            case REPLY -> new FrameWriter(REPLY).putString(channelName).putInt(message.from()).putLong(message.stamp()).toBuffer();
+            case TOKEN -> {
+                FrameWriter w = new FrameWriter(TOKEN).putString(channelName).putInt(message.from())
+                    .putInt(message.granted().length);
+                for (long granted : message.granted()) w.putLong(granted);
+                w.putInt(message.queue().length);
+                for (int node : message.queue()) w.putInt(node);
+                yield w.toBuffer();
+            }
+        };
+    }
+
+    static MutexMessage decode(byte type, FrameReader r) throws IOException {
+        return switch (type) {
+            case REQUEST -> MutexMessage.request(r.getInt(), r.getLong());
+            case REPLY -> MutexMessage.reply(r.getInt(), r.getLong());
+            case TOKEN -> {
+                int from = r.getInt();
+                long[] granted = new long[r.getInt()];
+                for (int i = 0; i < granted.length; i++) granted[i] = r.getLong();
+                int[] queue = new int[r.getInt()];
+                for (int i = 0; i < queue.length; i++) queue[i] = r.getInt();
+                yield MutexMessage.token(from, granted, queue);
+            }
+            default -> throw new IOException("Unknown mutex frame type " + type);
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package com.traffic.server;
+
+/**
+ * How many requests one client may send a junction: a sustained rate per second and a burst
+ * it may spend at once, with separate budgets for normal and VIP requests so a flood of
+ * normal detections cannot use up the VIP allowance. A rate of 0 means unlimited.
+ * Requests over budget are answered RETRY_AFTER with the time the next one would fit and
+ * are not logged, queued or shown; only the start of each throttled spell is logged.
+ *
+ * Requests under ids that never registered share one budget, so made-up ids do not get a
+ * fresh allowance each (or a map entry each).
+ *
+ * Configured with -Dtraffic.admission.perSecond and -Dtraffic.admission.burst (normal,
+ * default 10/s and 20) and -Dtraffic.admission.vipPerSecond and -Dtraffic.admission.vipBurst
+ * (default 2/s and 5).
+ */
+public record AdmissionPolicy(double perSecond, int burst, double vipPerSecond, int vipBurst) {
+
+    public static final AdmissionPolicy UNLIMITED = new AdmissionPolicy(0, 0, 0, 0);
+
+    public AdmissionPolicy {
+        if (perSecond < 0 || vipPerSecond < 0 || (perSecond > 0 && burst < 1) || (vipPerSecond > 0 && vipBurst < 1)) {
+            throw new IllegalArgumentException("Admission rates must be >= 0, with a burst of at least 1");
+        }
+    }
+
+    public static AdmissionPolicy configured() {
+        return new AdmissionPolicy(doubleProperty("traffic.admission.perSecond", 10), Integer.getInteger("traffic.admission.burst", 20),
+            doubleProperty("traffic.admission.vipPerSecond", 2), Integer.getInteger("traffic.admission.vipBurst", 5));
+    }
+
+    public boolean unlimited() {
+        return perSecond == 0 && vipPerSecond == 0;
+    }
+
+    private static double doubleProperty(String name, double fallback) {
+        String value = System.getProperty(name);
+        return value == null ? fallback : Double.parseDouble(value);
+    }
+}
@@ -0,0 +1,109 @@
+package com.traffic.server;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Learns how many vehicles ask for each road in every 15-minute slot of the day, as an
+ * exponentially weighted average over the days seen so far, and uses it to choose where
+ * an idle junction should rest its green. The model is updated incrementally from the
+ * requests the junction accepts; nothing is read back from the database, since requests
+ * are not persisted there.
+ *
+ * Arrivals come from RMI threads and the advance from the phase timer, so every method takes the lock.
+ */
+final class ArrivalForecast {
+
+    static final int SLOTS = 96;
+    static final long SLOT_NANOS = TimeUnit.DAYS.toNanos(1) / SLOTS;
+    private static final double WEIGHT = 0.3;            // share of the newest day in each slot's average
+    private static final double MIN_ADVANTAGE = 1.5;     // how much busier a road must be to take the green
+    private static final double MIN_PER_HOUR = 12;       // below this, no road is worth moving for
+    private static final long QUIET_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final double[][] perSlot;   // [road][slot] average arrivals in the slot
+    private final boolean[][] learned;  // [road][slot] at least one full slot folded in
+    private final int[] counting;       // arrivals per road in the slot being counted
+    private final long[] lastArrival;   // clock time of each road's latest request
+    private int slot = -1;              // slot being counted; -1 before the first advance
+    private long slotEnds;              // clock time at which it ends
+    private boolean partial = true;     // the first slot is only seen from part-way through
+    private final ReentrantLock lock = new ReentrantLock();
+
+    ArrivalForecast(int roads) {
+        this.perSlot = new double[roads][SLOTS];
+        this.learned = new boolean[roads][SLOTS];
+        this.counting = new int[roads];
+        this.lastArrival = new long[roads];
+        Arrays.fill(lastArrival, Long.MIN_VALUE / 2);
+    }
+
+    void arrived(int road, long now, long timeOfDay) {
+        lock.lock();
+        try {
+            advance(now, timeOfDay);
+            counting[road]++;
+            lastArrival[road] = now;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The road the green should rest on: the active one unless it has been quiet for a while
+     * and the forecast for the current slot expects clearly more traffic on another road.
+     */
+    int restingRoad(int active, long now, long timeOfDay) {
+        lock.lock();
+        try {
+            advance(now, timeOfDay);
+            if (now - lastArrival[active] < QUIET_NANOS) return active;
+            int best = active;
+            for (int road = 0; road < perSlot.length; road++) {
+                if (learned[road][slot] && perHour(road) > perHour(best)) best = road;
+            }
+            if (best == active || perHour(best) < MIN_PER_HOUR) return active;
+            return perHour(best) >= MIN_ADVANTAGE * perHour(active) ? best : active;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Expected arrivals per hour on the road in the current slot, 0 if not learned yet. */
+    double perHour(int road) {
+        lock.lock();
+        try {
+            return slot < 0 || !learned[road][slot] ? 0 : perSlot[road][slot] * TimeUnit.HOURS.toNanos(1) / SLOT_NANOS;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Folds the finished slot (and any empty ones since) into the averages
+    private void advance(long now, long timeOfDay) {
+        if (slot < 0) {
+            startSlot(now, timeOfDay);
+            return;
+        }
+        if (now < slotEnds) return;
+        long elapsed = 1 + (now - slotEnds) / SLOT_NANOS;
+        for (long i = 0; i < Math.min(elapsed, SLOTS); i++) {
+            int s = (int) ((slot + i) % SLOTS);
+            for (int road = 0; road < perSlot.length; road++) {
+                int count = i == 0 ? counting[road] : 0;
+                if (i == 0 && partial) continue;
+                perSlot[road][s] = learned[road][s] ? (1 - WEIGHT) * perSlot[road][s] + WEIGHT * count : count;
+                learned[road][s] = true;
+            }
+            partial = false;
+        }
+        Arrays.fill(counting, 0);
+        startSlot(now, timeOfDay);
+    }
+
+    private void startSlot(long now, long timeOfDay) {
+        slot = (int) (timeOfDay / SLOT_NANOS) % SLOTS;
+        slotEnds = now + (SLOT_NANOS - timeOfDay % SLOT_NANOS);
+    }
+}
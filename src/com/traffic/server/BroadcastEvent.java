@@ -0,0 +1,27 @@
+package com.traffic.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/** JFR event for one remote callback delivered by {@link FanOut}; the duration is the call itself. */
+@Name("traffic.Broadcast")
+@Label("Callback Delivery")
+@Category({"Traffic Controller", "Clients"})
+@Description("One queued callback to a signal client or RTO")
+final class BroadcastEvent extends jdk.jfr.Event {
+
+    @Label("Subscriber")
+    String subscriber;
+
+    @Label("Queue Wait")
+    @Description("Time the callback sat in the subscriber's delivery queue")
+    @Timespan(Timespan.NANOSECONDS)
+    long queueWait;
+
+    @Label("Outcome")
+    @Description("delivered, failed or expired")
+    String outcome;
+}
@@ -0,0 +1,73 @@
+package com.traffic.server;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One client's {@link AdmissionPolicy} budget, as a token bucket per class kept in the
+ * GCRA form: a single "spent until" time per class, advanced by one interval per request
+ * and never more than a burst of intervals ahead of the clock. A check is one CAS on that
+ * time and allocates nothing, whether the request is admitted or not.
+ */
+final class ClientBudget {
+
+    private final long interval;    // 0: unlimited
+    private final long ahead;       // burst * interval
+    private final long vipInterval;
+    private final long vipAhead;
+    private final AtomicLong spentUntil;
+    private final AtomicLong vipSpentUntil;
+    private volatile boolean throttling; // only the first refusal of a spell is logged
+
+    ClientBudget(AdmissionPolicy policy, long now) {
+        this.interval = interval(policy.perSecond());
+        this.ahead = interval * policy.burst();
+        this.vipInterval = interval(policy.vipPerSecond());
+        this.vipAhead = vipInterval * policy.vipBurst();
+        this.spentUntil = new AtomicLong(now);
+        this.vipSpentUntil = new AtomicLong(now);
+    }
+
+    private static long interval(double perSecond) {
+        return perSecond == 0 ? 0 : (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+    }
+
+    /** 0 if the request fits the budget (and spends it), otherwise nanoseconds until it would fit. */
+    long take(boolean vip, long now) {
+        long step = vip ? vipInterval : interval;
+        if (step == 0) return 0;
+        AtomicLong spent = vip ? vipSpentUntil : spentUntil;
+        long limit = vip ? vipAhead : ahead;
+        while (true) {
+            long current = spent.get();
+            long next = Math.max(current, now) + step;
+            if (next - now > limit) return next - now - limit;
+            if (spent.compareAndSet(current, next)) return 0;
+        }
+    }
+
+    /** Gives back what an admitted request spent, when the server refused it for its own reasons. */
+    void refund(boolean vip) {
+        long step = vip ? vipInterval : interval;
+        if (step != 0) (vip ? vipSpentUntil : spentUntil).addAndGet(-step);
+    }
+
+    /** True if this refusal starts a throttled spell. */
+    boolean startThrottling() {
+        if (throttling) return false;
+        throttling = true;
+        return true;
+    }
+
+    /**
+     * True if this admitted request ends a throttled spell: the client has slowed down enough
+     * to have half its burst back, so one request squeezed in between refusals does not count.
+     */
+    boolean stopThrottling(boolean vip, long now) {
+        if (!throttling) return false;
+        long left = (vip ? vipSpentUntil : spentUntil).get() - now;
+        if (left > (vip ? vipAhead : ahead) / 2) return false;
+        throttling = false;
+        return true;
+    }
+}
@@ -0,0 +1,16 @@
+package com.traffic.server;
+
+import java.util.Map;
+
+/**
+ * Optional observer of the {@link SignalController} core, such as the JavaFX dashboard.
+ * Calls arrive on controller threads, so a view must hand them to its own UI thread
+ * and return quickly. Log events are not pushed: a view drains
+ * {@link SignalController#getLogRing()} at its own frame rate.
+ */
+public interface ControllerView {
+
+    void statusChanged(Intersection intersection, Map<String, String> status);
+
+    void queuesChanged(Intersection intersection);
+}
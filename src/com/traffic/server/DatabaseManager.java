@@ -1,82 +1,333 @@
 package com.traffic.server;
 
+import com.traffic.interfaces.LogEntry;
+
 import java.sql.*;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
 
+/**
+ * The event log. Events are kept in several independent SQLite files, the replicas named by
+ * -Dtraffic.db.replicas (default traffic_log.db, traffic_log_2.db and traffic_log_3.db), and
+ * count as stored once -Dtraffic.db.quorum of them (default a majority) have committed them;
+ * see {@link ReplicaSet}. Reads go to the most advanced replica that is not missing rows.
+ */
 public class DatabaseManager {
 
-    private static final String DB_URL = "jdbc:sqlite:traffic_log.db";
+    private static final List<String> REPLICA_URLS = replicaUrls(
+        System.getProperty("traffic.db.replicas", "traffic_log.db,traffic_log_2.db,traffic_log_3.db"));
+    private static final String DB_URL = REPLICA_URLS.get(0);
+    private static final int QUORUM = Integer.getInteger("traffic.db.quorum", REPLICA_URLS.size() / 2 + 1);
+    private static final long REPAIR_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong("traffic.db.repairSeconds", 10));
+    private static final String LEGACY_TABLE = "logs_1";
+    private static final int MAX_PAGE = 1000;
+
+    // Writer settings, overridable with -Dtraffic.db.<name>=...
+    private static final int BUFFER_SIZE = Integer.getInteger("traffic.db.bufferSize", 8192);
+    private static final int BATCH_SIZE = Integer.getInteger("traffic.db.batchSize", 256);
+    private static final long FLUSH_MILLIS = Long.getLong("traffic.db.flushMillis", 50);
+    private static final int SAMPLE_RATE = Integer.getInteger("traffic.db.sampleRate", 10);
+    private static final EventWriter.OverflowPolicy OVERFLOW_POLICY =
+        EventWriter.OverflowPolicy.valueOf(System.getProperty("traffic.db.overflow", "BLOCK"));
+
+    private static volatile EventWriter writer;
+    private static volatile String degraded; // why the log runs on fewer replicas than configured; null if it does not
+
+    /**
+     * Opens the replicas and starts the writer. Returns false, after logging why, if no replica
+     * could be opened. If fewer than a quorum could, the log runs degraded on the ones that
+     * opened, with a quorum of all of them; replicaStatus() says so until the next start.
+     */
+    public static synchronized boolean initialize() {
+        List<String> ready = new ArrayList<>();
+        for (String url : REPLICA_URLS) {
+            if (createTables(url)) ready.add(url);
+        }
+        if (ready.isEmpty()) {
+            System.err.println("Event log unavailable: none of the " + REPLICA_URLS.size() + " log replicas could be opened.");
+            return false;
+        }
+        int quorum = QUORUM;
+        List<String> urls = REPLICA_URLS;
+        if (ready.size() < QUORUM) {
+            List<String> missing = new ArrayList<>(REPLICA_URLS);
+            missing.removeAll(ready);
+            degraded = "DEGRADED: writing to " + ready.size() + " of " + REPLICA_URLS.size() + " replicas, below the quorum of "
+                + QUORUM + "; missing " + String.join(", ", missing);
+            System.err.println("Event log " + degraded + ". Restart once they are back.");
+            quorum = ready.size();
+            urls = List.copyOf(ready);
+        } else {
+            System.out.println("Database initialized successfully: " + ready.size() + " of " + REPLICA_URLS.size()
+                + " log replicas, quorum " + QUORUM + ".");
+        }
+
+        if (writer == null) {
+            writer = new EventWriter(urls, quorum, REPAIR_MILLIS, BUFFER_SIZE, BATCH_SIZE, FLUSH_MILLIS,
+                OVERFLOW_POLICY, SAMPLE_RATE);
+            // Whatever is still buffered gets committed before the JVM exits
+            Runtime.getRuntime().addShutdownHook(new Thread(DatabaseManager::shutdown, "db-flush-on-exit"));
+        }
+        return true;
+    }
 
-    public static void initialize() {
-        try (Connection conn = DriverManager.getConnection(DB_URL);
+    private static List<String> replicaUrls(String files) {
+        List<String> urls = new ArrayList<>();
+        for (String file : files.split(",")) {
+            if (!file.isBlank()) urls.add("jdbc:sqlite:" + file.trim());
+        }
+        return List.copyOf(urls);
+    }
+
+    public static boolean createTables(String dbUrl) {
+        try (Connection conn = DriverManager.getConnection(dbUrl);
              Statement stmt = conn.createStatement()) {
-            
-            // As requested, create 3 redundant log tables
-            stmt.execute("CREATE TABLE IF NOT EXISTS logs_1 (timestamp TEXT, event TEXT)");
-            stmt.execute("CREATE TABLE IF NOT EXISTS logs_2 (timestamp TEXT, event TEXT)");
-            stmt.execute("CREATE TABLE IF NOT EXISTS logs_3 (timestamp TEXT, event TEXT)");
-            
-            System.out.println("Database initialized successfully.");
 
+            stmt.execute("CREATE TABLE IF NOT EXISTS logs (timestamp TEXT, event TEXT, seq INTEGER, epoch_ms INTEGER, crc INTEGER)");
+            stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_logs_seq ON logs(seq)");
+            importLegacy(conn, stmt);
+            return true;
+
+        } catch (SQLException e) {
+            System.err.println("Database initialization failed for " + dbUrl + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Databases from before replication kept three copies in logs_1..logs_3 of one file. The
+    // first copy is imported into an empty logs table once; the old tables are only read. Rows
+    // from before events had sequence numbers are numbered by insertion order (rowid), and rows
+    // without an epoch time get the one their timestamp text gives.
+    private static void importLegacy(Connection conn, Statement stmt) throws SQLException {
+        if (!tableExists(stmt, LEGACY_TABLE)) return;
+        try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM logs")) {
+            if (rs.next() && rs.getLong(1) > 0) return;
+        }
+        String select = hasColumn(stmt, LEGACY_TABLE, "seq")
+            ? "SELECT IFNULL(seq, rowid), epoch_ms, timestamp, event FROM " + LEGACY_TABLE + " ORDER BY 1"
+            : "SELECT rowid, NULL, timestamp, event FROM " + LEGACY_TABLE + " ORDER BY rowid";
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        CRC32C crc = new CRC32C();
+        conn.setAutoCommit(false);
+        try (PreparedStatement insert = conn.prepareStatement("INSERT OR IGNORE INTO logs(seq,epoch_ms,timestamp,event,crc) VALUES(?,?,?,?,?)");
+             ResultSet rs = stmt.executeQuery(select)) {
+            int rows = 0;
+            int undated = 0;
+            while (rs.next()) {
+                long seq = rs.getLong(1);
+                long epochMillis = rs.getLong(2); // 0 when NULL
+                String timestamp = rs.getString(3);
+                if (epochMillis == 0) {
+                    epochMillis = parseMillis(format, timestamp);
+                    if (epochMillis == 0) undated++;
+                }
+                String event = rs.getString(4);
+                insert.setLong(1, seq);
+                insert.setLong(2, epochMillis);
+                insert.setString(3, timestamp);
+                insert.setString(4, event);
+                insert.setInt(5, ReplicaSet.checksum(crc, seq, epochMillis, event == null ? "" : event));
+                insert.addBatch();
+                rows++;
+            }
+            insert.executeBatch();
+            conn.commit();
+            if (rows > 0) System.out.println("Imported " + rows + " events from " + LEGACY_TABLE + ".");
+            if (undated > 0) System.err.println(undated + " imported events have no readable timestamp; stored with epoch 0.");
         } catch (SQLException e) {
-            System.err.println("Database initialization failed: " + e.getMessage());
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // Epoch millis of a "yyyy-MM-dd HH:mm:ss.SSS" timestamp in the server's time zone; 0 if unreadable
+    private static long parseMillis(SimpleDateFormat format, String timestamp) {
+        if (timestamp == null) return 0;
+        try {
+            return format.parse(timestamp).getTime();
+        } catch (ParseException e) {
+            return 0;
         }
     }
 
+    private static boolean tableExists(Statement stmt, String table) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT name FROM sqlite_master WHERE type='table' AND name='" + table + "'")) {
+            return rs.next();
+        }
+    }
+
+    private static boolean hasColumn(Statement stmt, String table, String column) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (rs.getString("name").equals(column)) return true;
+            }
+        }
+        return false;
+    }
+
+    public static long maxSeq() {
+        return maxSeq(readUrl());
+    }
+
+    /** Highest sequence number stored so far, or 0 for an empty log. */
+    public static long maxSeq(String dbUrl) {
+        try (Connection conn = DriverManager.getConnection(dbUrl);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(seq) FROM logs")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            System.err.println("Failed to read last sequence number: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /** Queues the event for the background writer; falls back to an inline write before initialize(). */
     public static void logEvent(String event) {
-        String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date());
-        String sql = "INSERT INTO logs_1(timestamp,event) VALUES(?,?);";
-        String sql2 = "INSERT INTO logs_2(timestamp,event) VALUES(?,?);";
-        String sql3 = "INSERT INTO logs_3(timestamp,event) VALUES(?,?);";
-
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
-            conn.setAutoCommit(false); // Use a transaction for consistency
-            
-            try (PreparedStatement pstmt1 = conn.prepareStatement(sql);
-                 PreparedStatement pstmt2 = conn.prepareStatement(sql2);
-                 PreparedStatement pstmt3 = conn.prepareStatement(sql3)) {
-
-                pstmt1.setString(1, timestamp);
-                pstmt1.setString(2, event);
-                pstmt1.executeUpdate();
-
-                pstmt2.setString(1, timestamp);
-                pstmt2.setString(2, event);
-                pstmt2.executeUpdate();
-
-                pstmt3.setString(1, timestamp);
-                pstmt3.setString(2, event);
-                pstmt3.executeUpdate();
-                
-                conn.commit();
+        EventWriter w = writer;
+        if (w != null) {
+            w.submit(event);
+        } else {
+            logEventSync(DB_URL, event);
+        }
+    }
+
+    /** Registers who gets told about each committed batch (the live event stream). */
+    public static void setCommitListener(EventWriter.CommitListener listener) {
+        EventWriter w = writer;
+        if (w != null) w.setCommitListener(listener);
+    }
+
+    /**
+     * One line per log replica: applied and verified seq, whether it is lagging, queued batches.
+     * Led by a DEGRADED line if the log runs on fewer replicas than its quorum.
+     */
+    public static List<String> replicaStatus() {
+        EventWriter w = writer;
+        List<String> status = new ArrayList<>();
+        String reason = degraded;
+        if (reason != null) status.add(reason);
+        if (w != null) status.addAll(w.replicaStatus());
+        return status;
+    }
+
+    private static String readUrl() {
+        EventWriter w = writer;
+        return w != null ? w.readUrl() : DB_URL;
+    }
+
+    /** Commits all buffered events and stops the writer. */
+    public static synchronized void shutdown() {
+        EventWriter w = writer;
+        if (w != null) {
+            writer = null;
+            w.close();
+        }
+    }
+
+    /**
+     * One-connection-per-event write of a single store, kept for the fallback path and benchmarks.
+     * The seq is read and the row inserted in one write transaction, so the checksum covers the
+     * seq the row is actually stored under even when other writers share the file.
+     */
+    public static void logEventSync(String dbUrl, String event) {
+        Date now = new Date();
+        String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(now);
+
+        DbWriteEvent write = new DbWriteEvent();
+        write.begin();
+        write.rows = 1;
+        write.replicas = 1;
+        try (Connection conn = DriverManager.getConnection(dbUrl);
+             Statement stmt = conn.createStatement();
+             PreparedStatement pstmt = conn.prepareStatement("INSERT INTO logs(seq,epoch_ms,timestamp,event,crc) VALUES(?,?,?,?,?)")) {
+            stmt.execute("BEGIN IMMEDIATE"); // takes the write lock before MAX(seq) is read
+            try {
+                long seq;
+                try (ResultSet rs = stmt.executeQuery("SELECT IFNULL(MAX(seq),0)+1 FROM logs")) {
+                    seq = rs.next() ? rs.getLong(1) : 1;
+                }
+                pstmt.setLong(1, seq);
+                pstmt.setLong(2, now.getTime());
+                pstmt.setString(3, timestamp);
+                pstmt.setString(4, event);
+                pstmt.setInt(5, ReplicaSet.checksum(new CRC32C(), seq, now.getTime(), event));
+                pstmt.executeUpdate();
+                stmt.execute("COMMIT");
             } catch (SQLException e) {
-                conn.rollback(); // If one fails, none should be saved.
-                System.err.println("Database logging failed, transaction rolled back: " + e.getMessage());
+                stmt.execute("ROLLBACK");
+                throw e;
             }
-
+            write.acknowledged = 1;
+            write.committed = true;
         } catch (SQLException e) {
-            System.err.println(e.getMessage());
+            System.err.println("Database logging failed: " + e.getMessage());
         }
+        write.commit();
     }
 
     public static List<String> getHistory() {
         List<String> history = new ArrayList<>();
-        // We only need to query one table, as they are all the same
-        String sql = "SELECT timestamp, event FROM logs_1 ORDER BY timestamp DESC LIMIT 100";
+        for (LogEntry entry : getHistoryBefore(Long.MAX_VALUE, 100)) {
+            history.add(entry.toString());
+        }
+        return history;
+    }
 
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+    /** Newest-first page of events with seq below the cursor. Walks the seq index backwards; never sorts. */
+    public static List<LogEntry> getHistoryBefore(long beforeSeq, int limit) {
+        return getHistoryBefore(readUrl(), beforeSeq, limit);
+    }
 
-            while (rs.next()) {
-                history.add("[" + rs.getString("timestamp") + "] " + rs.getString("event"));
-            }
+    public static List<LogEntry> getHistoryBefore(String dbUrl, long beforeSeq, int limit) {
+        return query(dbUrl, "SELECT seq, epoch_ms, timestamp, event FROM logs WHERE seq < ? ORDER BY seq DESC LIMIT ?",
+            beforeSeq, limit);
+    }
+
+    /** Oldest-first events with seq above the cursor, for incremental refreshes. */
+    public static List<LogEntry> getHistorySince(long afterSeq, int limit) {
+        try {
+            return readHistorySince(afterSeq, limit);
+        } catch (SQLException e) {
+            System.err.println("Failed to retrieve log history: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /** Like {@link #getHistorySince}, but a failed read is reported instead of looking like the end of the log. */
+    public static List<LogEntry> readHistorySince(long afterSeq, int limit) throws SQLException {
+        return select(readUrl(), "SELECT seq, epoch_ms, timestamp, event FROM logs WHERE seq > ? ORDER BY seq ASC LIMIT ?",
+            afterSeq, limit);
+    }
+
+    private static List<LogEntry> query(String dbUrl, String sql, long cursor, int limit) {
+        try {
+            return select(dbUrl, sql, cursor, limit);
         } catch (SQLException e) {
             System.err.println("Failed to retrieve log history: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private static List<LogEntry> select(String dbUrl, String sql, long cursor, int limit) throws SQLException {
+        List<LogEntry> history = new ArrayList<>();
+        try (Connection conn = DriverManager.getConnection(dbUrl);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, cursor);
+            pstmt.setInt(2, Math.max(0, Math.min(limit, MAX_PAGE)));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    history.add(new LogEntry(rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getString(4)));
+                }
+            }
         }
         return history;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package com.traffic.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/** JFR event for one batch of log events written to the replicas, up to the quorum's commits. */
+@Name("traffic.DbWrite")
+@Label("Event Log Write")
+@Category({"Traffic Controller", "Database"})
+@Description("A batch of log events sent to every log replica and committed by a quorum of them")
+final class DbWriteEvent extends jdk.jfr.Event {
+
+    @Label("Rows")
+    @Description("Events in the batch; each is inserted once per replica")
+    int rows;
+
+    @Label("Replicas")
+    int replicas;
+
+    @Label("Acknowledged")
+    @Description("Replicas that had committed the batch when the writer moved on")
+    int acknowledged;
+
+    @Label("Committed")
+    boolean committed;
+
+    @Label("Submit Wait")
+    @Description("Time callers spent blocked on a full buffer since the previous batch")
+    @Timespan(Timespan.NANOSECONDS)
+    long submitWait;
+}
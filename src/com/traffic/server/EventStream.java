@@ -0,0 +1,179 @@
+package com.traffic.server;
+
+import com.traffic.interfaces.LogEntry;
+import com.traffic.interfaces.RTOClientInterface;
+
+import java.rmi.RemoteException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Pushes committed log events to subscribed RTO dashboards in small frames.
+ * Every subscriber has its own cursor (the last seq it received) and delivery thread.
+ * A new or reconnecting subscriber first catches up from the database, then follows
+ * the live stream; a subscriber that falls too far behind is switched back to catch-up
+ * instead of buffering without bound. Committing a batch only appends to each
+ * subscriber's buffer, so the writer never waits on a dashboard.
+ */
+public class EventStream implements EventWriter.CommitListener {
+
+    private static final int FRAME_SIZE = 64;
+    private static final long FRAME_LINGER_MILLIS = 20;
+    private static final int MAX_BUFFERED = 4096;
+    private static final long RETRY_MILLIS = 1000;
+
+    private final Map<RTOClientInterface, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final Consumer<String> log;
+
+    public EventStream(Consumer<String> log) {
+        this.log = log;
+    }
+
+    /**
+     * Starts pushing events with seq greater than afterSeq. Pass a negative value to receive
+     * only events committed from now on.
+     */
+    public void subscribe(RTOClientInterface rto, long afterSeq) {
+        Subscriber previous = subscribers.remove(rto);
+        if (previous != null) previous.stop();
+        long cursor = afterSeq < 0 ? DatabaseManager.maxSeq() : afterSeq;
+        Subscriber subscriber = new Subscriber(rto, cursor);
+        subscribers.put(rto, subscriber);
+        subscriber.thread.start();
+    }
+
+    public void unsubscribe(RTOClientInterface rto) {
+        Subscriber subscriber = subscribers.remove(rto);
+        if (subscriber != null) subscriber.stop();
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void committed(List<LogEntry> entries) {
+        for (Subscriber subscriber : subscribers.values()) {
+            subscriber.offer(entries);
+        }
+    }
+
+    private final class Subscriber {
+        final RTOClientInterface rto;
+        final Thread thread;
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition available = lock.newCondition();
+        // Live commits since subscribing (or since the last overflow); guarded by lock
+        final List<LogEntry> buffer = new ArrayList<>();
+        boolean catchingUp = true;
+        int overflows = 0;
+        long cursor; // last seq delivered; only touched by the delivery thread
+        volatile boolean running = true;
+
+        Subscriber(RTOClientInterface rto, long cursor) {
+            this.rto = rto;
+            this.cursor = cursor;
+            this.thread = Thread.ofVirtual().name("event-stream").unstarted(this::deliver);
+        }
+
+        void offer(List<LogEntry> entries) {
+            lock.lock();
+            try {
+                if (buffer.size() + entries.size() > MAX_BUFFERED) {
+                    // Too far behind: forget the backlog and read it from the database instead
+                    buffer.clear();
+                    catchingUp = true;
+                    overflows++;
+                } else {
+                    buffer.addAll(entries);
+                }
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void stop() {
+            running = false;
+            thread.interrupt();
+        }
+
+        private void deliver() {
+            try {
+                while (running) {
+                    List<LogEntry> frame = catchUpFrame();
+                    if (frame == null) frame = liveFrame();
+                    if (frame.isEmpty()) continue;
+                    rto.receiveEvents(frame);
+                    cursor = frame.get(frame.size() - 1).seq();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RemoteException e) {
+                log.accept("Event stream to an RTO client stopped. It may have disconnected.");
+                subscribers.remove(rto, this);
+            }
+        }
+
+        // Next page from the database while catching up, or null once the live buffer
+        // is known to hold everything after the cursor. A failed read is retried, never
+        // taken for the end of the log.
+        private List<LogEntry> catchUpFrame() throws InterruptedException {
+            int seenOverflows;
+            lock.lock();
+            try {
+                if (!catchingUp) return null;
+                seenOverflows = overflows;
+            } finally {
+                lock.unlock();
+            }
+            List<LogEntry> page;
+            try {
+                page = DatabaseManager.readHistorySince(cursor, FRAME_SIZE);
+            } catch (SQLException e) {
+                log.accept("Event stream catch-up failed, retrying: " + e.getMessage());
+                TimeUnit.MILLISECONDS.sleep(RETRY_MILLIS);
+                return List.of();
+            }
+            if (page.size() < FRAME_SIZE) {
+                lock.lock();
+                try {
+                    // The buffer has been collecting since before this query, so nothing is missed
+                    if (overflows == seenOverflows) catchingUp = false;
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return page;
+        }
+
+        private List<LogEntry> liveFrame() throws InterruptedException {
+            lock.lock();
+            try {
+                while (buffer.isEmpty() && !catchingUp) available.await();
+                if (buffer.size() < FRAME_SIZE && !catchingUp) {
+                    available.await(FRAME_LINGER_MILLIS, TimeUnit.MILLISECONDS); // let a frame fill up
+                }
+                if (catchingUp) return List.of();
+                List<LogEntry> frame = new ArrayList<>(Math.min(buffer.size(), FRAME_SIZE));
+                int taken = 0;
+                for (LogEntry entry : buffer) {
+                    if (frame.size() == FRAME_SIZE) break;
+                    taken++;
+                    if (entry.seq() > cursor) frame.add(entry); // skip what catch-up already delivered
+                }
+                buffer.subList(0, taken).clear();
+                return frame;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.traffic.server;
+
+import com.traffic.interfaces.LogEntry;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Writes log events to the database on its own thread. Callers only copy the event
+ * into a preallocated ring buffer; the writer takes a batch whenever one is full or the
+ * flush interval has passed, whichever comes first, and hands it to the {@link ReplicaSet},
+ * which writes every replica file in parallel and returns once a quorum has committed it.
+ */
+public class EventWriter implements AutoCloseable {
+
+    /** What {@link #submit} does when the ring buffer is full. */
+    public enum OverflowPolicy {
+        BLOCK,  // wait for the writer to make room
+        DROP,   // discard the new event
+        SAMPLE  // keep one in every 'sampleRate' overflowing events (waiting for room), drop the rest
+    }
+
+    /** Notified on the writer thread after each batch is committed, in sequence order. */
+    public interface CommitListener {
+        void committed(List<LogEntry> entries);
+    }
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    private static final long CLOSE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private final ReplicaSet replicas;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy policy;
+    private final int sampleRate;
+
+    // --- Ring buffer (guarded by 'lock') ---
+    private final long[] seqs;
+    private final long[] times;
+    private final String[] events;
+    private int head = 0;
+    private int count = 0;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition drained = lock.newCondition();
+    private int inFlight = 0; // taken by the writer but not yet committed
+    private long nextSeq;
+    private long overflowSeen = 0;
+    private long submitWaitNanos = 0; // time producers spent blocked on a full ring, for DbWriteEvent
+    private boolean flushRequested = false;
+    private boolean closed = false;
+    private boolean failed = false;  // the worker died; nothing buffered will be written
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread worker;
+    private volatile CommitListener commitListener;
+
+    /** A single store with no replication, as used by the benchmarks. */
+    public EventWriter(String dbUrl, int capacity, int batchSize, long flushIntervalMillis,
+                       OverflowPolicy policy, int sampleRate) {
+        this(List.of(dbUrl), 1, 0, capacity, batchSize, flushIntervalMillis, policy, sampleRate);
+    }
+
+    /**
+     * Events go to every store in replicaUrls and count as written once 'quorum' of them have
+     * committed; every repairMillis (0: never) lagging stores are brought back in line.
+     */
+    public EventWriter(List<String> replicaUrls, int quorum, long repairMillis, int capacity, int batchSize,
+                       long flushIntervalMillis, OverflowPolicy policy, int sampleRate) {
+        this.replicas = new ReplicaSet(replicaUrls, quorum, repairMillis);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.policy = policy;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.seqs = new long[capacity];
+        this.times = new long[capacity];
+        this.nextSeq = replicas.maxSeq() + 1;
+        this.events = new String[capacity];
+        this.worker = new Thread(this::run, "db-event-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Queues an event and returns the sequence number it will be stored under, or -1 if it
+     * was dropped because of the overflow policy or because the writer is closed.
+     */
+    public long submit(String event) {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            if (closed) return -1;
+            if (count == events.length) {
+                if (policy == OverflowPolicy.DROP || (policy == OverflowPolicy.SAMPLE && overflowSeen++ % sampleRate != 0)) {
+                    dropped.incrementAndGet();
+                    return -1;
+                }
+                long blockedAt = System.nanoTime();
+                while (count == events.length && !closed) {
+                    notFull.awaitUninterruptibly();
+                }
+                submitWaitNanos += System.nanoTime() - blockedAt;
+                if (closed) return -1;
+            }
+            int tail = (head + count) % events.length;
+            long seq = nextSeq++;
+            seqs[tail] = seq;
+            times[tail] = now;
+            events[tail] = event;
+            count++;
+            // Wake the writer for the first event of a batch and when a batch is full
+            if (count == 1 || count == batchSize) notEmpty.signal();
+            return seq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Blocks until everything submitted so far has been committed (or the timeout expires). */
+    public boolean flush(long timeoutMillis) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try {
+            flushRequested = true;
+            notEmpty.signal();
+            while ((count > 0 || inFlight > 0) && !failed && remaining > 0) {
+                remaining = drained.awaitNanos(remaining);
+            }
+            return count == 0 && inFlight == 0 && !failed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Stops accepting events, commits everything still buffered and closes the connection. */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            worker.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        replicas.close(CLOSE_TIMEOUT_MILLIS);
+    }
+
+    public void setCommitListener(CommitListener listener) {
+        this.commitListener = listener;
+    }
+
+    public long getWrittenCount() { return written.get(); }
+    public long getDroppedCount() { return dropped.get(); }
+
+    /** The replica history reads should use: the most advanced one not missing rows. */
+    public String readUrl() { return replicas.readUrl(); }
+
+    /** One line per replica: url, applied and verified seq, lagging flag and backlog. */
+    public List<String> replicaStatus() { return replicas.describe(); }
+
+    /** Runs an anti-entropy round now instead of waiting for the next one; returns rows queued for repair. */
+    public long repairNow() { return replicas.repairNow(); }
+
+    private void run() {
+        long[] batchSeqs = new long[batchSize];
+        long[] batchTimes = new long[batchSize];
+        String[] batchEvents = new String[batchSize];
+        CRC32C crc = new CRC32C();
+        int n;
+        DbWriteEvent event = new DbWriteEvent();
+        boolean finished = false;
+        try {
+            while ((n = takeBatch(batchSeqs, batchTimes, batchEvents, event)) >= 0) {
+                writeBatch(batchSeqs, batchTimes, batchEvents, crc, n, event);
+                event = new DbWriteEvent();
+                lock.lock();
+                try {
+                    inFlight = 0;
+                    if (count == 0) drained.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+            finished = true;
+        } catch (RuntimeException e) {
+            System.err.println("Event writer stopped: " + e);
+        } finally {
+            if (!finished) abandon();
+        }
+    }
+
+    // Once the worker is gone nothing will make room again: refuse new events and release
+    // producers blocked on a full ring and callers waiting in flush()
+    private void abandon() {
+        lock.lock();
+        try {
+            dropped.addAndGet(count + inFlight);
+            closed = true;
+            failed = true;
+            notFull.signalAll();
+            drained.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Waits for the first event, then up to one flush interval for the batch to fill.
+    // Returns -1 once closed and empty.
+    private int takeBatch(long[] batchSeqs, long[] batchTimes, String[] batchEvents, DbWriteEvent event) {
+        lock.lock();
+        try {
+            while (count == 0) {
+                if (closed) return -1;
+                notEmpty.awaitUninterruptibly();
+            }
+            long deadline = System.nanoTime() + flushIntervalNanos;
+            while (count < batchSize && !closed && !flushRequested) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) break;
+                try {
+                    notEmpty.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            int n = Math.min(count, batchSize);
+            if (n == count) flushRequested = false;
+            for (int i = 0; i < n; i++) {
+                int index = (head + i) % events.length;
+                batchSeqs[i] = seqs[index];
+                batchTimes[i] = times[index];
+                batchEvents[i] = events[index];
+                events[index] = null;
+            }
+            head = (head + n) % events.length;
+            count -= n;
+            inFlight = n;
+            event.submitWait = submitWaitNanos;
+            submitWaitNanos = 0;
+            notFull.signalAll();
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The batch is copied, since replicas that miss the quorum keep writing it after we return
+    private void writeBatch(long[] batchSeqs, long[] batchTimes, String[] batchEvents, CRC32C crc, int n,
+                            DbWriteEvent event) {
+        event.begin();
+        event.rows = n;
+        event.replicas = replicas.size();
+        ReplicaSet.Batch batch = new ReplicaSet.Batch(Arrays.copyOf(batchSeqs, n), Arrays.copyOf(batchTimes, n),
+            new String[n], Arrays.copyOf(batchEvents, n), new int[n], n);
+        for (int i = 0; i < n; i++) {
+            batch.stamps()[i] = TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(batchTimes[i]));
+            batch.crcs()[i] = ReplicaSet.checksum(crc, batchSeqs[i], batchTimes[i], batchEvents[i]);
+        }
+        int acks = replicas.write(batch);
+        event.acknowledged = acks;
+        event.committed = acks >= replicas.quorum();
+        event.commit();
+        if (event.committed) {
+            written.addAndGet(n);
+            notifyCommitted(batch.seqs(), batch.times(), batch.events(), batch.stamps(), n);
+        } else {
+            dropped.addAndGet(n);
+            System.err.println("Database logging failed: batch of " + n + " reached " + acks + " of "
+                + replicas.quorum() + " replicas needed.");
+        }
+    }
+
+    private void notifyCommitted(long[] batchSeqs, long[] batchTimes, String[] batchEvents, String[] stamps, int n) {
+        CommitListener listener = commitListener;
+        if (listener == null) return;
+        List<LogEntry> entries = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            entries.add(new LogEntry(batchSeqs[i], batchTimes[i], stamps[i], batchEvents[i]));
+        }
+        try {
+            listener.committed(entries);
+        } catch (RuntimeException e) {
+            System.err.println("Commit listener failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.traffic.server;
+
+import java.rmi.RemoteException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Delivers remote callbacks to many subscribers concurrently. Each subscriber gets its own
+ * bounded delivery queue drained by its own virtual thread, so a slow or half-dead stub only
+ * delays itself: {@link #send} never blocks the caller (the dispatcher or the phase timer).
+ *
+ * Deliveries carry a deadline. One still queued when its deadline passes is dropped instead of
+ * being sent late, and a full queue drops its oldest entry. The RMI call itself is bounded by
+ * the {@code sun.rmi.transport.tcp.responseTimeout} the server sets at startup.
+ */
+public class FanOut {
+
+    /** One remote call to a subscriber. */
+    public interface Delivery {
+        void deliver() throws RemoteException;
+    }
+
+    /** Point-in-time delivery metrics of one subscriber. */
+    public record Stats(String name, long delivered, long failed, long expired, long dropped,
+                        double meanLatencyMillis, double maxLatencyMillis, int queued) {}
+
+    private final long deadlineNanos;
+    private final int queueCapacity;
+    private final Consumer<String> log;
+    private final Map<Object, Channel> channels = new ConcurrentHashMap<>();
+
+    public FanOut(long deadlineMillis, int queueCapacity, Consumer<String> log) {
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        this.queueCapacity = queueCapacity;
+        this.log = log;
+    }
+
+    /**
+     * Returns the channel for the subscriber, creating it on first use. If evictOnFailure is set,
+     * the first failed call closes the channel and reports it through onEvict.
+     */
+    public Channel channel(Object subscriber, String name, boolean evictOnFailure, Runnable onEvict) {
+        return channels.computeIfAbsent(subscriber, key -> new Channel(key, name, evictOnFailure, onEvict));
+    }
+
+    public void close(Object subscriber) {
+        Channel channel = channels.remove(subscriber);
+        if (channel != null) channel.close();
+    }
+
+    public List<Stats> stats() {
+        return channels.values().stream().map(Channel::stats).toList();
+    }
+
+    public final class Channel {
+        private record Pending(Delivery delivery, long enqueuedAt) {}
+
+        private final Object key;
+        private final String name;
+        private final boolean evictOnFailure;
+        private final Runnable onEvict;
+        private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Thread worker;
+        private volatile boolean open = true;
+
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong expired = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong totalLatencyNanos = new AtomicLong();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+        private Channel(Object key, String name, boolean evictOnFailure, Runnable onEvict) {
+            this.key = key;
+            this.name = name;
+            this.evictOnFailure = evictOnFailure;
+            this.onEvict = onEvict;
+            this.worker = Thread.ofVirtual().name("fanout-" + name).start(this::run);
+        }
+
+        /** Queues the call for this subscriber and returns immediately. */
+        public void send(Delivery delivery) {
+            lock.lock();
+            try {
+                if (!open) return;
+                if (queue.size() >= queueCapacity) {
+                    queue.pollFirst(); // slow consumer: the newest state matters most
+                    dropped.incrementAndGet();
+                }
+                queue.addLast(new Pending(delivery, System.nanoTime()));
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void close() {
+            open = false;
+            worker.interrupt();
+        }
+
+        private void run() {
+            try {
+                while (open) {
+                    Pending next;
+                    lock.lock();
+                    try {
+                        while (queue.isEmpty()) notEmpty.await();
+                        next = queue.pollFirst();
+                    } finally {
+                        lock.unlock();
+                    }
+                    BroadcastEvent event = new BroadcastEvent();
+                    event.begin();
+                    long queueWait = System.nanoTime() - next.enqueuedAt();
+                    if (queueWait > deadlineNanos) {
+                        expired.incrementAndGet();
+                        commit(event, queueWait, "expired");
+                        continue;
+                    }
+                    try {
+                        next.delivery().deliver();
+                        record(System.nanoTime() - next.enqueuedAt());
+                        commit(event, queueWait, "delivered");
+                    } catch (RemoteException | RuntimeException e) {
+                        failed.incrementAndGet();
+                        commit(event, queueWait, "failed");
+                        if (evictOnFailure) {
+                            channels.remove(key, this);
+                            open = false;
+                            onEvict.run();
+                            return;
+                        }
+                        log.accept("Could not reach " + name + ": " + e.getMessage());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void commit(BroadcastEvent event, long queueWait, String outcome) {
+            event.end();
+            if (!event.shouldCommit()) return;
+            event.subscriber = name;
+            event.queueWait = queueWait;
+            event.outcome = outcome;
+            event.commit();
+        }
+
+        private void record(long latencyNanos) {
+            delivered.incrementAndGet();
+            totalLatencyNanos.addAndGet(latencyNanos);
+            maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+        }
+
+        public Stats stats() {
+            long count = delivered.get();
+            int queued;
+            lock.lock();
+            try {
+                queued = queue.size();
+            } finally {
+                lock.unlock();
+            }
+            return new Stats(name, count, failed.get(), expired.get(), dropped.get(),
+                count == 0 ? 0 : totalLatencyNanos.get() / 1e6 / count, maxLatencyNanos.get() / 1e6, queued);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.traffic.server;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How long a road stays green before a request for another road may take it away.
+ *
+ * FIXED is the original behaviour: every green is held for the configured greenHoldMillis
+ * and each dequeued request for another road triggers a switch. ADAPTIVE is an actuated
+ * controller. Each request's proximity gives the time its vehicle reaches the stop line at
+ * approachMetersPerSecond. The green is held while the road's estimated stop-line queue is
+ * still discharging (one vehicle per headway), between minGreen and maxGreen. It ends early
+ * ("gaps out") once the next expected vehicle is more than gap behind. Requests whose road
+ * has turned green since they arrived are skipped instead of switching back for them. A VIP
+ * request for another road ends the green at minGreen, or at once if that has passed.
+ *
+ * Selected with -Dtraffic.timing=fixed|adaptive; the adaptive bounds come from
+ * -Dtraffic.green.minMillis, -Dtraffic.green.maxMillis and -Dtraffic.green.gapMillis.
+ */
+public record GreenPolicy(boolean adaptive, long minGreenMillis, long maxGreenMillis, long gapMillis,
+                          long headwayMillis, double approachMetersPerSecond) {
+
+    public static final GreenPolicy FIXED = new GreenPolicy(false, 0, 0, 0, 0, 0);
+
+    public GreenPolicy {
+        if (adaptive && (minGreenMillis <= 0 || maxGreenMillis < minGreenMillis || headwayMillis <= 0 || approachMetersPerSecond <= 0)) {
+            throw new IllegalArgumentException("Adaptive green needs 0 < min <= max, a headway and an approach speed");
+        }
+    }
+
+    /** Actuated timing with a 2 s saturation headway and vehicles approaching at 40 km/h. */
+    public static GreenPolicy adaptive(long minGreenMillis, long maxGreenMillis, long gapMillis) {
+        return new GreenPolicy(true, minGreenMillis, maxGreenMillis, gapMillis, 2000, 11.0);
+    }
+
+    public static GreenPolicy configured() {
+        return fromName(System.getProperty("traffic.timing", "fixed"));
+    }
+
+    public static GreenPolicy fromName(String timing) {
+        return switch (timing) {
+            case "fixed" -> FIXED;
+            case "adaptive" -> adaptive(Long.getLong("traffic.green.minMillis", 5000),
+                Long.getLong("traffic.green.maxMillis", 60_000), Long.getLong("traffic.green.gapMillis", 3000));
+            default -> throw new IllegalArgumentException("Unknown timing: " + timing + " (expected fixed or adaptive)");
+        };
+    }
+
+    /** When a vehicle that requested at requestNanos from proximity metres away reaches the stop line. */
+    long stopLineNanos(long requestNanos, int proximity) {
+        return requestNanos + (long) (TimeUnit.SECONDS.toNanos(1) * proximity / approachMetersPerSecond);
+    }
+}
@@ -0,0 +1,842 @@
+package com.traffic.server;
+
+import com.traffic.interfaces.Admission;
+import com.traffic.interfaces.ClientInterface;
+import com.traffic.interfaces.RTOClientInterface;
+import com.traffic.interfaces.VehicleRequest;
+import com.traffic.mutex.DistributedMutex;
+import com.traffic.mutex.InlineTransport;
+import com.traffic.mutex.MutexListener;
+import com.traffic.mutex.MutexMessage;
+import com.traffic.mutex.MutexTransport;
+import com.traffic.mutex.TcpTransport;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * All state and signal logic of a single junction. The server keeps one of these per
+ * intersection id, so a single JVM can run many junctions side by side. On a virtual
+ * {@link SignalClock} the same logic runs without threads: requests are dispatched
+ * inline whenever one arrives or a switch completes.
+ *
+ * With {@link RoadPeers} this object is the controller of one road only, and the other
+ * roads run in their own server processes. The green is then the roads' critical section:
+ * a road takes it when one of its vehicles asks, holds it while green, and when another
+ * road asks for it runs its own yellow and hands it over. Until a road first takes the
+ * green, every road shows red.
+ */
+public final class Intersection {
+
+    // --- Inner classes defined first to be visible throughout the class ---
+    record ClientInfo(ClientInterface stub, String type, FanOut.Channel channel, ClientBudget budget) {}
+    record Request(String clientId, String direction, boolean isVip, int proximity, long receivedNanos, long seq) {
+        @Override
+        public String toString() {
+            return clientId + vipSuffix();
+        }
+        String vipSuffix() {
+            return isVip ? " (VIP)" : "";
+        }
+    }
+
+    private final String id;
+    private final IntersectionConfig config;
+    private final IntersectionListener listener;
+    private final SignalClock timer;
+
+    // --- Client Management ---
+    private final Map<String, ClientInfo> clients = new ConcurrentHashMap<>();
+    private final List<RTOClientInterface> rtoClients = new CopyOnWriteArrayList<>();
+    // Callbacks to clients and RTOs run concurrently, off the dispatcher and timer threads
+    private static final long DELIVERY_DEADLINE_MILLIS = 2000;
+    private static final int DELIVERY_QUEUE_CAPACITY = 16;
+    private final FanOut fanOut = new FanOut(DELIVERY_DEADLINE_MILLIS, DELIVERY_QUEUE_CAPACITY,
+        message -> log(LogType.INFO, message));
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile Thread dispatcher;
+
+    // --- Signal State: one immutable snapshot, replaced by CAS (see SignalState) ---
+    private final AtomicReference<SignalState> state;
+
+    // --- Bounded request queues: VIP first, then normal requests striped by client id. By
+    //     default there is a stripe per road, each the size of one road's share of the queue,
+    //     since most traffic comes from one signal client per road ---
+    private static final int QUEUE_STRIPES = Integer.getInteger("traffic.queue.stripes", 0); // 0: one per road
+    private static final int QUEUE_CAPACITY = Integer.getInteger("traffic.queue.capacity", 256);
+    private static final int VIP_QUEUE_CAPACITY = Integer.getInteger("traffic.queue.vipCapacity", 64);
+    private static final long MIN_RETRY_MILLIS = 100;
+    private final StripedQueue<Request> vipQueue = new StripedQueue<>(1, VIP_QUEUE_CAPACITY, request -> 0);
+    private final StripedQueue<Request> normalQueue;
+    private final RequestScheduler<Request> scheduler;
+
+    // --- Per-client request budgets; ids that never registered share one ---
+    private final ClientBudget unregisteredBudget;
+
+    // --- One mutex node per road; node i is config.directions().get(i). All of them are
+    //     driven by the dispatcher alone, so they deliver to each other inline. With road
+    //     peers only this process's road has a node here, on the peers' shared transport ---
+    private final MutexTransport mutexTransport;
+    private final List<DistributedMutex> roadNodes;
+    private final int ownRoad; // -1 unless config.roadPeers() is set
+
+    // --- Counters, queue gauges and wait histograms, exported over JMX by the server ---
+    private final JunctionMetrics metrics;
+    private volatile TransitionEvent transitionEvent; // JFR: the switch in progress
+
+    // --- Adaptive green timing; null under the fixed policy ---
+    private final RoadDemand demand;
+    private volatile SignalClock.Cancellable holdTimeout; // the pending end of the current green hold
+
+    // --- Predictive resting green; null unless config.predictive() ---
+    private static final long FORECAST_TICK_MILLIS = 2000;
+    private final ArrivalForecast forecast;
+    private volatile SignalClock.Cancellable forecastTick;
+    private volatile boolean stopped;
+
+    // --- Crash-safe journal of the queues and phase; null unless config.journalDir() is set ---
+    private final RequestJournal journal;
+
+    public Intersection(String id, IntersectionConfig config, IntersectionListener listener, SignalClock timer) {
+        this.id = id;
+        this.config = config;
+        this.listener = listener;
+        this.timer = timer;
+        int roads = config.directions().size();
+        this.normalQueue = new StripedQueue<>(QUEUE_STRIPES > 0 ? QUEUE_STRIPES : roads, QUEUE_CAPACITY,
+            request -> spread(request.clientId().hashCode()));
+        this.scheduler = new RequestScheduler<>(List.of(vipQueue, normalQueue));
+        RoadPeers peers = config.roadPeers();
+        if (peers == null) {
+            InlineTransport inline = new InlineTransport(roads);
+            this.roadNodes = inline.start(config.mutexAlgorithm(), new MutexLog());
+            this.mutexTransport = inline;
+            this.ownRoad = -1;
+        } else {
+            if (timer.isVirtual()) throw new IllegalArgumentException("Road peers need a real-time clock");
+            this.mutexTransport = peers.transport().channel(id);
+            this.ownRoad = peers.node();
+            DistributedMutex[] nodes = new DistributedMutex[roads];
+            nodes[ownRoad] = config.mutexAlgorithm().create(ownRoad, roads, mutexTransport, new MutexLog());
+            this.roadNodes = Arrays.asList(nodes);
+        }
+        this.journal = config.journalDir() == null ? null : openJournal(id, config.journalDir(), timer);
+        RequestJournal.Recovered recovered = journal != null ? journal.recovered() : null;
+        String initial = ownRoad >= 0 ? null // all red until a road takes the green
+            : recovered != null && config.directions().contains(recovered.activeDirection())
+            ? recovered.activeDirection() : config.defaultDirection();
+        this.state = new AtomicReference<>(SignalState.initial(initial, buildStatus(initial, "GREEN", "RED")));
+        this.metrics = new JunctionMetrics(id, config.directions(), timer, state::get, vipQueue, normalQueue);
+        this.demand = config.greenPolicy().adaptive() ? new RoadDemand(config.greenPolicy(), roads, road(initial)) : null;
+        // A road controller never sees the other roads' arrivals, so it cannot forecast them
+        this.forecast = config.predictive() && ownRoad < 0 ? new ArrivalForecast(roads) : null;
+        this.unregisteredBudget = new ClientBudget(config.admission(), timer.nanoTime());
+        // Last, so peers' messages held for this junction find it fully built
+        if (peers != null) peers.transport().register(id, roadNodes.get(ownRoad));
+    }
+
+    private static RequestJournal openJournal(String id, Path dir, SignalClock timer) {
+        try {
+            return new RequestJournal(dir, id, RequestJournal.FILE_BYTES, timer);
+        } catch (IOException e) {
+            System.err.println("Journal for intersection " + id + " unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Requeues what the journal held when this junction last stopped, then starts journaling.
+     * Call once, after construction and before any client registers; without a journal it
+     * does nothing. A switch that was cut short in its yellow is requested again, so it reruns
+     * from the start rather than jumping to green.
+     */
+    public void restore() {
+        if (journal == null) return;
+        RequestJournal.Recovered recovered = journal.recovered();
+        if (recovered != null) restore(recovered);
+        journal.attach(state::get, List.of(vipQueue, normalQueue));
+    }
+
+    private void restore(RequestJournal.Recovered recovered) {
+        int restored = 0;
+        for (Request request : recovered.pending()) {
+            if (!serves(request.direction())) continue;
+            if (scheduler.offer(request.isVip() ? vipQueue : normalQueue, request)) restored++;
+        }
+        String target = recovered.targetDirection();
+        if (recovered.phase() == SignalPhase.YELLOW && target != null && serves(target)) {
+            scheduler.offer(vipQueue, request("journal", target, true, 0));
+        }
+        log(LogType.JOURNAL_RECOVERED, getActiveDirection(), null, restored, recovered.records());
+    }
+
+    public String getId() { return id; }
+    public IntersectionConfig getConfig() { return config; }
+    public SignalState getState() { return state.get(); }
+    public String getActiveDirection() { return state.get().activeDirection(); }
+    public SignalPhase getPhase() { return state.get().phase(); }
+    public boolean isInTransition() { return state.get().inTransition(); }
+    public Map<String, String> getStatus() { return state.get().status(); }
+    public JunctionMetrics metrics() { return metrics; }
+
+    public void registerClient(ClientInterface client, String clientType) throws RemoteException {
+        String clientId = client.getClientId();
+        ClientInfo existing = clients.get(clientId); // re-registering does not refill the budget
+        ClientBudget budget = existing != null ? existing.budget() : new ClientBudget(config.admission(), timer.nanoTime());
+        ClientInfo previous = clients.put(clientId, new ClientInfo(client, clientType,
+            fanOut.channel(client, "client " + clientId, false, null), budget));
+        if (previous != null && previous.stub() != client) fanOut.close(previous.stub());
+        log(LogType.CLIENT_REGISTERED, clientId, clientType);
+        log(LogType.CLIENTS_CONNECTED, null, null, clients.size(), config.requiredClients());
+
+        // A road controller only ever sees its own road's clients
+        int required = ownRoad >= 0 ? 1 : config.requiredClients();
+        if (clients.size() >= required && started.compareAndSet(false, true)) {
+            log(LogType.SYSTEM_STARTING);
+            if (forecast != null) forecastTick = timer.schedule(FORECAST_TICK_MILLIS, this::restOnForecast);
+            if (timer.isVirtual()) {
+                dispatchPending();
+            } else {
+                dispatcher = Thread.ofVirtual().name("dispatcher-" + id).start(this::processRequests);
+            }
+        }
+    }
+
+    public Admission receiveRequest(String clientId, String direction, boolean isVip, int proximity) {
+        // Validated first: a request that can never be queued must not use up the budget
+        if (!serves(direction)) {
+            logUnserved(clientId, direction);
+            return Admission.rejected(0);
+        }
+        long now = timer.nanoTime();
+        long wait = overBudget(clientId, isVip, now);
+        if (wait > 0) return Admission.retryAfter(0, untilMillis(now + wait, now));
+        return handleRequest(request(clientId, direction, isVip, proximity));
+    }
+
+    // Enqueues a whole batch with one log line and one queue-view refresh. Stops at the first
+    // request that finds its queue full, which the client resends after the retry delay, or
+    // that names a road this junction does not serve, which it must not resend.
+    public Admission receiveRequests(List<VehicleRequest> batch) {
+        log(LogType.BATCH_RECEIVED, null, null, batch.size(), 0);
+        int taken = 0;
+        Admission refused = null;
+        long now = timer.nanoTime();
+        for (VehicleRequest r : batch) {
+            if (!serves(r.direction())) {
+                logUnserved(r.clientId(), r.direction());
+                refused = Admission.rejected(taken);
+                break;
+            }
+            long wait = overBudget(r.clientId(), r.isVip(), now);
+            if (wait > 0) {
+                refused = Admission.retryAfter(taken, untilMillis(now + wait, now));
+                break;
+            }
+            Request request = request(r.clientId(), r.direction(), r.isVip(), r.proximity());
+            if (!enqueue(request)) {
+                refund(r.clientId(), r.isVip());
+                refused = Admission.retryAfter(taken, retryAfterMillis());
+                break;
+            }
+            accepted(request);
+            taken++;
+        }
+        listener.queuesChanged(this);
+        if (timer.isVirtual()) dispatchPending();
+        return refused != null ? refused : Admission.accepted(taken);
+    }
+
+    public void registerRTO(RTOClientInterface rto) {
+        rtoClients.add(rto);
+        log(LogType.RTO_CONNECTED);
+        Map<String, String> current = state.get().status();
+        rtoChannel(rto).send(() -> rto.updateStatus(current));
+    }
+
+    public void forceSignalChange(String direction, String rtoId) {
+        log(LogType.OVERRIDE_ATTEMPT, rtoId, direction);
+        if (!config.directions().contains(direction)) {
+            log(LogType.OVERRIDE_UNKNOWN_DIRECTION, rtoId, direction);
+            return;
+        }
+        if (ownRoad >= 0) {
+            overrideThroughPeers(direction, rtoId);
+            return;
+        }
+        // Races the dispatcher through the same CAS; whichever switch lands first wins
+        SignalState yellow = tryBeginTransition(direction, "override");
+        if (yellow == null) {
+            log(LogType.OVERRIDE_NOT_ALLOWED, rtoId, direction);
+            return;
+        }
+        log(LogType.OVERRIDE_INITIATED, rtoId, direction);
+        startYellow(yellow);
+    }
+
+    // Road peers: an override may only bring the green to this road, and only through the
+    // critical section, so it jumps the queue as a VIP request instead of switching directly
+    private void overrideThroughPeers(String direction, String rtoId) {
+        if (!serves(direction)) {
+            log(LogType.ROAD_NOT_SERVED, rtoId, direction, ownRoad, 0);
+            return;
+        }
+        if (!enqueue(request(rtoId, direction, true, 0))) return;
+        log(LogType.OVERRIDE_INITIATED, rtoId, direction);
+        listener.queuesChanged(this);
+    }
+
+    // Every direction of the junction, or with road peers only this process's road
+    private boolean serves(String direction) {
+        return ownRoad < 0 ? config.directions().contains(direction) : road(direction) == ownRoad;
+    }
+
+    private void logUnserved(String clientId, String direction) {
+        if (config.directions().contains(direction)) {
+            log(LogType.ROAD_NOT_SERVED, clientId, direction, ownRoad, 0);
+        } else {
+            log(LogType.UNKNOWN_DIRECTION, clientId, direction);
+        }
+    }
+
+    /** Stops the dispatcher and mutex threads. Used when an intersection is torn down. */
+    public void stop() {
+        stopped = true;
+        SignalClock.Cancellable tick = forecastTick;
+        if (tick != null) tick.cancel();
+        Thread t = dispatcher;
+        if (t != null) t.interrupt();
+        mutexTransport.close();
+        if (journal != null) journal.close();
+        clients.values().forEach(info -> fanOut.close(info.stub()));
+        rtoClients.forEach(fanOut::close);
+    }
+
+    // Admission control: 0 if the client may send this request now (which spends its budget),
+    // otherwise how long until it may. Refusals are only counted, apart from one log line when
+    // a client starts being throttled, so a flood costs little more than the check itself.
+    private long overBudget(String clientId, boolean vip, long now) {
+        if (config.admission().unlimited()) return 0;
+        ClientInfo info = clients.get(clientId);
+        ClientBudget budget = info != null ? info.budget() : unregisteredBudget;
+        long wait = budget.take(vip, now);
+        if (wait == 0) {
+            if (budget.stopThrottling(vip, now)) log(LogType.CLIENT_UNTHROTTLED, clientId);
+            return 0;
+        }
+        metrics.throttled(vip);
+        if (budget.startThrottling()) log(LogType.CLIENT_THROTTLED, clientId, vip ? " VIP" : "");
+        return wait;
+    }
+
+    // A full queue is the server's backpressure, not the client's doing, so the client's retry
+    // must not find its budget spent
+    private void refund(String clientId, boolean vip) {
+        if (config.admission().unlimited()) return;
+        ClientInfo info = clients.get(clientId);
+        (info != null ? info.budget() : unregisteredBudget).refund(vip);
+    }
+
+    private Admission handleRequest(Request request) {
+        log(LogType.REQUEST_RECEIVED, request.clientId(), request.vipSuffix());
+        boolean queued = enqueue(request);
+        if (queued) {
+            accepted(request);
+        } else {
+            refund(request.clientId(), request.isVip());
+        }
+        listener.queuesChanged(this);
+        if (timer.isVirtual()) dispatchPending();
+        return queued ? Admission.ONE : Admission.retryAfter(0, retryAfterMillis());
+    }
+
+    private void accepted(Request request) {
+        metrics.arrived(request.direction(), request.isVip());
+        if (demand != null) {
+            demand.arrived(road(request.direction()), stopLine(request));
+            if (request.isVip()) shortenHoldForVip(request);
+        }
+        if (forecast != null) forecast.arrived(road(request.direction()), request.receivedNanos(), timer.timeOfDayNanos());
+    }
+
+    // Predictive timing: when nothing is queued and the green road has gone quiet, switch ahead
+    // of the traffic the forecast expects, so its yellow runs before those vehicles arrive rather
+    // than after. The switch goes through the queues like any request, but is not counted as one.
+    private void restOnForecast() {
+        if (stopped) return;
+        forecastTick = timer.schedule(FORECAST_TICK_MILLIS, this::restOnForecast);
+        SignalState current = state.get();
+        if (current.phase() != SignalPhase.GREEN || !vipQueue.isEmpty() || !normalQueue.isEmpty()) return;
+        int active = road(current.activeDirection());
+        long now = timer.nanoTime();
+        if (demand != null && demand.busy(active, now)) return;
+        int target = forecast.restingRoad(active, now, timer.timeOfDayNanos());
+        if (target == active) return;
+        String direction = config.directions().get(target);
+        log(LogType.PREDICTIVE_SWITCH, direction, current.activeDirection(),
+            Math.round(forecast.perHour(target)), Math.round(forecast.perHour(active)));
+        if (!enqueue(request("forecast", direction, false, 0))) return;
+        listener.queuesChanged(this);
+        if (timer.isVirtual()) dispatchPending();
+    }
+
+    // Stamped with its arrival time and, with a journal, the id the journal matches it by
+    private Request request(String clientId, String direction, boolean isVip, int proximity) {
+        return new Request(clientId, direction, isVip, proximity, timer.nanoTime(), journal != null ? journal.nextSeq() : 0);
+    }
+
+    // Returns false if the request's stripe is full; the caller tells the client when to retry
+    private boolean enqueue(Request request) {
+        StripedQueue<Request> queue = request.isVip() ? vipQueue : normalQueue;
+        boolean queued = journal != null
+            ? journal.enqueue(request, () -> scheduler.offer(queue, request))
+            : scheduler.offer(queue, request);
+        if (queued) return true;
+        log(LogType.REQUEST_DROPPED, request.clientId(), request.vipSuffix(), retryAfterMillis(), 0);
+        return false;
+    }
+
+    // The dispatcher drains the queues once the switch in progress is over, so that is when
+    // there should be room again
+    private long retryAfterMillis() {
+        SignalState current = state.get();
+        if (!current.inTransition()) return MIN_RETRY_MILLIS;
+        long remaining = TimeUnit.NANOSECONDS.toMillis(current.deadlineNanos() - timer.nanoTime());
+        if (current.phase() == SignalPhase.YELLOW) remaining += config.greenHoldMillis();
+        return Math.max(MIN_RETRY_MILLIS, remaining);
+    }
+
+    private void processRequests() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                awaitTransitionEnd();
+                dispatch(scheduler.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log(LogType.DISPATCHER_INTERRUPTED);
+            } catch (UncheckedIOException e) {
+                log(LogType.ROAD_PEER_UNREACHABLE, e.getMessage(), String.valueOf(e.getCause().getMessage()));
+                return; // the protocols assume every peer stays reachable
+            }
+        }
+    }
+
+    // Virtual clock: the dispatcher loop run inline, up to the point where it would block
+    private void dispatchPending() {
+        if (!started.get()) return;
+        try {
+            while (!state.get().inTransition()) {
+                Request request = scheduler.poll();
+                if (request == null) return;
+                dispatch(request);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log(LogType.DISPATCHER_INTERRUPTED);
+        }
+    }
+
+    private void dispatch(Request request) throws InterruptedException {
+        if (journal != null) journal.dequeued(request);
+        log(LogType.PROCESSING_REQUEST, request.clientId(), request.vipSuffix());
+        listener.queuesChanged(this);
+
+        SignalState current = state.get();
+        if (request.direction().equals(current.activeDirection()) || current.inTransition()) {
+            log(LogType.REQUEST_IGNORED);
+            return;
+        }
+        if (demand != null && !dueForSwitch(request)) return;
+
+        if (ownRoad >= 0) {
+            takeGreen(request.direction());
+        } else {
+            switchInCriticalSection(request.direction());
+        }
+    }
+
+    // Adaptive timing: skip vehicles an earlier green already let through and, while the green
+    // road still has traffic, hold a normal request until its vehicle is one yellow away
+    private boolean dueForSwitch(Request request) {
+        long now = timer.nanoTime();
+        long stopLine = stopLine(request);
+        if (demand.served(road(request.direction()), stopLine, now)) {
+            log(LogType.REQUEST_ALREADY_SERVED, request.clientId(), request.vipSuffix());
+            return false;
+        }
+        long early = stopLine - TimeUnit.MILLISECONDS.toNanos(config.yellowMillis()) - now;
+        if (request.isVip() || early < TimeUnit.MILLISECONDS.toNanos(1)) return true;
+        // A road controller cannot see whether the green road is busy; that road decides when to yield
+        if (ownRoad >= 0 || !demand.busy(road(state.get().activeDirection()), now)) return true;
+        long delayMillis = TimeUnit.NANOSECONDS.toMillis(early);
+        log(LogType.REQUEST_DEFERRED, request.clientId(), request.vipSuffix(), delayMillis, 0);
+        timer.schedule(delayMillis, () -> {
+            if (!enqueue(request)) return;
+            listener.queuesChanged(this);
+            if (timer.isVirtual()) dispatchPending();
+        });
+        return false;
+    }
+
+    private long stopLine(Request request) {
+        return config.greenPolicy().stopLineNanos(request.receivedNanos(), request.proximity());
+    }
+
+    // Similar ids such as Pair_1_2 and Pair_3_4 differ only in low bits a modulo would keep
+    // together; Fibonacci hashing spreads them over the stripes
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // -1 for no road, as when a road controller starts with every light red
+    private int road(String direction) {
+        return direction == null ? -1 : config.directions().indexOf(direction);
+    }
+
+    // The road asks its peers for the critical section and blocks until every one has agreed
+    // (or the token arrives). Peers that cannot agree yet queue the answer; nothing is re-enqueued.
+    private void switchInCriticalSection(String direction) throws InterruptedException {
+        DistributedMutex node = roadNodes.get(road(direction));
+        MutexRoundEvent round = new MutexRoundEvent();
+        round.begin();
+        long sentBefore = node.messagesSent();
+        log(LogType.MUTEX_WANTS_CS, direction);
+        long acquireStart = System.nanoTime();
+        node.acquire();
+        try {
+            round.acquireWait = System.nanoTime() - acquireStart;
+            log(LogType.MUTEX_ENTER_CS, direction);
+            SignalState yellow = tryBeginTransition(direction, "request");
+            if (yellow == null) {
+                log(LogType.REQUEST_IGNORED); // an RTO override switched first
+            } else {
+                round.switched = true;
+                startYellow(yellow);
+            }
+        } finally {
+            node.release();
+            round.end();
+            if (round.shouldCommit()) {
+                round.intersection = id;
+                round.direction = direction;
+                round.algorithm = config.mutexAlgorithm().shortName();
+                round.messagesSent = node.messagesSent() - sentBefore;
+                round.commit();
+            }
+        }
+    }
+
+    // Road peers: waits until the road showing green has run its yellow and handed the critical
+    // section over, then turns this road green and keeps the section until another road asks
+    private void takeGreen(String direction) throws InterruptedException {
+        DistributedMutex node = roadNodes.get(ownRoad);
+        MutexRoundEvent round = new MutexRoundEvent();
+        round.begin();
+        long sentBefore = node.messagesSent();
+        log(LogType.MUTEX_WANTS_CS, direction);
+        long acquireStart = System.nanoTime();
+        node.acquire();
+        round.acquireWait = System.nanoTime() - acquireStart;
+        log(LogType.MUTEX_ENTER_CS, direction);
+        // Outside the section nothing but our own hand-over moves the state, so this cannot race
+        SignalState current = state.get();
+        log(LogType.TRANSITION_START, direction);
+        round.switched = enterGreen(current, direction);
+        if (!round.switched) node.release();
+        round.end();
+        if (round.shouldCommit()) {
+            round.intersection = id;
+            round.direction = direction;
+            round.algorithm = config.mutexAlgorithm().shortName();
+            round.messagesSent = node.messagesSent() - sentBefore;
+            round.commit();
+        }
+    }
+
+    // Road peers: another road is waiting for the section. Once this road's green hold is over
+    // it runs its yellow, and handOver passes the section on when the yellow ends.
+    private void yieldGreen() {
+        int waiter = roadNodes.get(ownRoad).waiter();
+        if (waiter < 0) return;
+        SignalState yellow = tryBeginTransition(config.directions().get(waiter), "peer");
+        if (yellow == null) return; // still holding, or not our green: completeTransition checks again
+        log(LogType.MUTEX_YIELD, config.directions().get(ownRoad), yellow.targetDirection());
+        startYellow(yellow);
+    }
+
+    // Road peers: our road is red now. What this process shows for the other roads is its
+    // best guess, the road it yielded to.
+    private void handOver(SignalState yellow) {
+        String next = yellow.targetDirection();
+        SignalState red = yellow.next(SignalPhase.GREEN, next, null, 0, buildStatus(next, "GREEN", "RED"));
+        if (!state.compareAndSet(yellow, red)) return;
+        if (journal != null) journal.phase(red);
+        broadcastPhase(next, "GREEN", "Active", "RED", "Stopped");
+        publishStatus(red);
+        roadNodes.get(ownRoad).release();
+        TransitionEvent event = transitionEvent;
+        if (event != null) {
+            transitionEvent = null;
+            event.commit();
+        }
+        LockSupport.unpark(dispatcher);
+        log(LogType.TRANSITION_COMPLETE, next);
+    }
+
+    // Turns the roads' protocol traffic into the MUTEX log lines
+    private final class MutexLog implements MutexListener {
+        @Override
+        public void sent(int from, int to, MutexMessage message) {
+            switch (message.kind()) {
+                case REQUEST -> log(LogType.MUTEX_SEND_REQUEST, road(from), road(to), message.stamp(), 0);
+                case REPLY -> log(LogType.MUTEX_GRANT, road(from), road(to));
+                case TOKEN -> log(LogType.MUTEX_SEND_TOKEN, road(from), road(to));
+            }
+        }
+
+        @Override
+        public void received(int node, MutexMessage message, long clock) {
+            switch (message.kind()) {
+                case REQUEST -> log(LogType.MUTEX_RECEIVED_REQUEST, road(node), road(message.from()), message.stamp(), clock);
+                case REPLY -> log(LogType.MUTEX_RECEIVED_REPLY, road(node), road(message.from()));
+                case TOKEN -> log(LogType.MUTEX_RECEIVED_TOKEN, road(node), road(message.from()));
+            }
+        }
+
+        @Override
+        public void deferred(int node, int requester) {
+            log(LogType.MUTEX_DEFER, road(node), road(requester));
+            if (ownRoad >= 0) yieldGreen();
+        }
+
+        private String road(int node) {
+            return config.directions().get(node);
+        }
+    }
+
+    // Parks the dispatcher while a switch runs so queued requests are judged against the new state
+    private void awaitTransitionEnd() throws InterruptedException {
+        while (state.get().inTransition()) {
+            LockSupport.park(this); // completeTransition unparks us
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+    }
+
+    // GREEN -> YELLOW, as a CAS on the state snapshot. Returns the new state if this caller won
+    // the switch, or null if the junction is mid-switch or already showing the direction.
+    private SignalState tryBeginTransition(String newDirection, String cause) {
+        TransitionEvent event = new TransitionEvent();
+        event.begin();
+        for (int retries = 0; ; retries++) {
+            SignalState current = state.get();
+            if (current.inTransition() || newDirection.equals(current.activeDirection())) return null;
+            if (ownRoad >= 0 && road(current.activeDirection()) != ownRoad) return null; // only the green road yields
+            SignalState yellow = current.next(SignalPhase.YELLOW, current.activeDirection(), newDirection,
+                deadline(config.yellowMillis()), buildStatus(current.activeDirection(), "YELLOW", "RED"));
+            if (state.compareAndSet(current, yellow)) {
+                if (event.isEnabled()) {
+                    event.intersection = id;
+                    event.from = current.activeDirection();
+                    event.to = newDirection;
+                    event.cause = cause;
+                    event.casRetries = retries;
+                    transitionEvent = event;
+                }
+                return yellow;
+            }
+        }
+    }
+
+    // Side effects of a won switch. The rest of the cycle is driven by the phase timer, so no
+    // thread (and no lock) is held while the lights change.
+    private void startYellow(SignalState yellow) {
+        if (journal != null) journal.phase(yellow);
+        if (demand != null) demand.yellowStarted(timer.nanoTime());
+        log(LogType.TRANSITION_START, yellow.targetDirection());
+        broadcastPhase(yellow.activeDirection(), "YELLOW", "Transitioning", "BLINK_RED", "Transitioning");
+        publishStatus(yellow);
+        if (ownRoad >= 0) {
+            timer.schedule(config.yellowMillis(), () -> handOver(yellow));
+        } else {
+            timer.schedule(config.yellowMillis(), () -> enterGreen(yellow, yellow.targetDirection()));
+        }
+    }
+
+    // YELLOW -> GREEN_HOLD (with road peers, whatever this process showed -> GREEN_HOLD). Only
+    // the winner's timer moves a YELLOW state, so the CAS cannot fail unless the intersection
+    // was reset underneath it.
+    private boolean enterGreen(SignalState previous, String newDirection) {
+        long holdMillis = config.greenHoldMillis();
+        if (demand != null) {
+            long now = timer.nanoTime();
+            demand.greenStarted(road(newDirection), now);
+            holdMillis = untilMillis(demand.greenEnd(road(newDirection), now), now);
+        }
+        SignalState hold = previous.next(SignalPhase.GREEN_HOLD, newDirection, null,
+            deadline(holdMillis), buildStatus(newDirection, "GREEN", "RED"));
+        if (!state.compareAndSet(previous, hold)) return false;
+        if (journal != null) journal.phase(hold);
+        broadcastPhase(newDirection, "GREEN", "Active", "RED", "Stopped");
+        metrics.green(newDirection);
+        publishStatus(hold);
+        log(LogType.GREEN_HOLD, newDirection, null, holdMillis, 0);
+        holdTimeout = timer.schedule(holdMillis, () -> completeTransition(hold));
+        return true;
+    }
+
+    // GREEN_HOLD -> GREEN, or (adaptive timing) another GREEN_HOLD while the road's queue clears
+    private void completeTransition(SignalState hold) {
+        if (demand != null && !vipWaitingAgainst(hold.activeDirection())) {
+            long now = timer.nanoTime();
+            long end = demand.greenEnd(road(hold.activeDirection()), now);
+            if (end - now >= TimeUnit.MILLISECONDS.toNanos(1)) {
+                long extendMillis = untilMillis(end, now);
+                SignalState extended = hold.next(SignalPhase.GREEN_HOLD, hold.activeDirection(), null,
+                    deadline(extendMillis), hold.status());
+                if (!state.compareAndSet(hold, extended)) return;
+                log(LogType.GREEN_EXTENDED, hold.activeDirection(), null, extendMillis, 0);
+                holdTimeout = timer.schedule(extendMillis, () -> completeTransition(extended));
+                return;
+            }
+        }
+        SignalState green = hold.next(SignalPhase.GREEN, hold.activeDirection(), null, 0, hold.status());
+        if (!state.compareAndSet(hold, green)) return;
+        TransitionEvent event = transitionEvent;
+        if (event != null) {
+            transitionEvent = null;
+            event.commit();
+        }
+        LockSupport.unpark(dispatcher);
+        log(LogType.TRANSITION_COMPLETE, green.activeDirection());
+        if (timer.isVirtual()) dispatchPending();
+        if (ownRoad >= 0) yieldGreen(); // a road that asked during the hold
+    }
+
+    // Adaptive timing: a VIP must not sit out another road's whole platoon, so a hold that runs
+    // past min green is cut back to it, and completeTransition stops extending while it waits
+    private void shortenHoldForVip(Request request) {
+        while (true) {
+            SignalState hold = state.get();
+            if (hold.phase() != SignalPhase.GREEN_HOLD || request.direction().equals(hold.activeDirection())) return;
+            long now = timer.nanoTime();
+            long end = Math.max(now, demand.minGreenEnd(road(hold.activeDirection())));
+            if (hold.deadlineNanos() <= end) return;
+            SignalState shortened = hold.next(SignalPhase.GREEN_HOLD, hold.activeDirection(), null, end, hold.status());
+            if (!state.compareAndSet(hold, shortened)) continue;
+            SignalClock.Cancellable previous = holdTimeout;
+            if (previous != null) previous.cancel();
+            long millis = untilMillis(end, now);
+            log(LogType.GREEN_SHORTENED, hold.activeDirection(), request.clientId(), millis, 0);
+            holdTimeout = timer.schedule(millis, () -> completeTransition(shortened));
+            return;
+        }
+    }
+
+    // A queued VIP request for a road other than the green one
+    private boolean vipWaitingAgainst(String active) {
+        for (Request request : vipQueue) {
+            if (!request.direction().equals(active)) return true;
+        }
+        return false;
+    }
+
+    private long deadline(long millis) {
+        return timer.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static long untilMillis(long endNanos, long now) {
+        return Math.max(1, (endNanos - now + 999_999) / 1_000_000);
+    }
+
+    // The given direction shows 'state'; every other direction shows 'otherState'.
+    private void broadcastPhase(String direction, String state, String details, String otherState, String otherDetails) {
+        for (String d : config.directions()) {
+            if (d.equals(direction)) {
+                broadcastState(d, d + "_" + state, details);
+            } else {
+                broadcastState(d, d + "_" + otherState, otherDetails);
+            }
+        }
+    }
+
+    private void broadcastState(String direction, String state, String details) {
+        String targetType = "ROAD_" + direction;
+        for (ClientInfo info : clients.values()) {
+            if (!info.type().equals(targetType)) continue;
+            info.channel().send(() -> info.stub().updateSignalState(state, details));
+        }
+    }
+
+    private void publishStatus(SignalState current) {
+        Map<String, String> currentStatus = current.status();
+        listener.statusChanged(this, currentStatus);
+        for (RTOClientInterface rto : rtoClients) {
+            rtoChannel(rto).send(() -> rto.updateStatus(currentStatus));
+        }
+    }
+
+    private FanOut.Channel rtoChannel(RTOClientInterface rto) {
+        return fanOut.channel(rto, "RTO client", true, () -> {
+            log(LogType.RTO_UNREACHABLE);
+            rtoClients.remove(rto);
+        });
+    }
+
+    /** Per-subscriber delivery metrics of this junction's clients and RTOs. */
+    public List<FanOut.Stats> deliveryStats() {
+        return fanOut.stats();
+    }
+
+    private Map<String, String> buildStatus(String direction, String roadStatus, String pedStatus) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (String d : config.directions()) {
+            boolean isTarget = d.equals(direction);
+            map.put("road_" + d, isTarget ? roadStatus : pedStatus);
+            map.put("ped_" + d, isTarget ? pedStatus : roadStatus);
+        }
+        return Map.copyOf(map);
+    }
+
+    // --- Queue snapshots for the GUI: total size plus at most 'max' requests from the head ---
+    record QueueSnapshot(int size, int capacity, List<Request> head) {}
+    QueueSnapshot normalQueueSnapshot(int max) { return snapshot(normalQueue, max); }
+    QueueSnapshot vipQueueSnapshot(int max) { return snapshot(vipQueue, max); }
+
+    private static QueueSnapshot snapshot(StripedQueue<Request> queue, int max) {
+        List<Request> head = new ArrayList<>(Math.min(max, queue.size()));
+        for (Request request : queue) {
+            if (head.size() == max) break;
+            head.add(request);
+        }
+        return new QueueSnapshot(queue.size(), queue.capacity(), head);
+    }
+
+    private void log(LogType type) {
+        log(type, null, null, 0, 0);
+    }
+
+    private void log(LogType type, String subject) {
+        log(type, subject, null, 0, 0);
+    }
+
+    private void log(LogType type, String subject, String object) {
+        log(type, subject, object, 0, 0);
+    }
+
+    private void log(LogType type, String subject, String object, long a, long b) {
+        metrics.event(type);
+        listener.log(this, type, subject, object, a, b);
+    }
+}
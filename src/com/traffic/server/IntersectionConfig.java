@@ -0,0 +1,80 @@
+package com.traffic.server;
+
+import com.traffic.mutex.MutexAlgorithm;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Static layout and timing of one junction. The default matches the original
+ * lab setup: two road pairs, both signal clients required, 5 s yellow and 5 s green hold.
+ * The roads agree on who may switch through the mutex algorithm named by -Dtraffic.mutex,
+ * and -Dtraffic.timing=adaptive replaces the fixed green hold (see {@link GreenPolicy}).
+ * With -Dtraffic.predictive an idle junction moves its green to the road its learned
+ * time-of-day arrival rates expect to be busiest (see {@link ArrivalForecast}). Each client's
+ * request rate is capped by the {@link AdmissionPolicy}. With -Dtraffic.journal.dir the
+ * queues and phase are kept in a {@link RequestJournal} there and survive a restart.
+ * With {@link RoadPeers} each road is controlled by its own server process.
+ */
+public record IntersectionConfig(List<String> directions, int requiredClients, long yellowMillis, long greenHoldMillis,
+                                 MutexAlgorithm mutexAlgorithm, GreenPolicy greenPolicy, boolean predictive,
+                                 AdmissionPolicy admission, Path journalDir, RoadPeers roadPeers) {
+
+    public static final IntersectionConfig DEFAULT =
+        new IntersectionConfig(List.of("1_2", "3_4"), 2, 5000, 5000, MutexAlgorithm.configured(), GreenPolicy.configured(),
+            Boolean.getBoolean("traffic.predictive"), AdmissionPolicy.configured(), journalDir(System.getProperty("traffic.journal.dir")),
+            RoadPeers.configured());
+
+    public IntersectionConfig {
+        directions = List.copyOf(directions);
+        if (directions.size() < 2) {
+            throw new IllegalArgumentException("An intersection needs at least two directions");
+        }
+        if (roadPeers != null && roadPeers.size() != directions.size()) {
+            throw new IllegalArgumentException("Need one road peer per direction, got " + roadPeers.size() + " for " + directions);
+        }
+    }
+
+    public IntersectionConfig withTimings(long yellowMillis, long greenHoldMillis) {
+        return new IntersectionConfig(directions, requiredClients, yellowMillis, greenHoldMillis, mutexAlgorithm, greenPolicy, predictive,
+            admission, journalDir, roadPeers);
+    }
+
+    public IntersectionConfig withMutex(MutexAlgorithm mutexAlgorithm) {
+        return new IntersectionConfig(directions, requiredClients, yellowMillis, greenHoldMillis, mutexAlgorithm, greenPolicy, predictive,
+            admission, journalDir, roadPeers);
+    }
+
+    public IntersectionConfig withGreenPolicy(GreenPolicy greenPolicy) {
+        return new IntersectionConfig(directions, requiredClients, yellowMillis, greenHoldMillis, mutexAlgorithm, greenPolicy, predictive,
+            admission, journalDir, roadPeers);
+    }
+
+    public IntersectionConfig withPredictive(boolean predictive) {
+        return new IntersectionConfig(directions, requiredClients, yellowMillis, greenHoldMillis, mutexAlgorithm, greenPolicy, predictive,
+            admission, journalDir, roadPeers);
+    }
+
+    public IntersectionConfig withAdmission(AdmissionPolicy admission) {
+        return new IntersectionConfig(directions, requiredClients, yellowMillis, greenHoldMillis, mutexAlgorithm, greenPolicy, predictive,
+            admission, journalDir, roadPeers);
+    }
+
+    public IntersectionConfig withJournal(Path journalDir) {
+        return new IntersectionConfig(directions, requiredClients, yellowMillis, greenHoldMillis, mutexAlgorithm, greenPolicy, predictive,
+            admission, journalDir, roadPeers);
+    }
+
+    public IntersectionConfig withRoadPeers(RoadPeers roadPeers) {
+        return new IntersectionConfig(directions, requiredClients, yellowMillis, greenHoldMillis, mutexAlgorithm, greenPolicy, predictive,
+            admission, journalDir, roadPeers);
+    }
+
+    public String defaultDirection() {
+        return directions.get(0);
+    }
+
+    private static Path journalDir(String dir) {
+        return dir == null ? null : Path.of(dir);
+    }
+}
@@ -0,0 +1,24 @@
+package com.traffic.server;
+
+import java.util.Map;
+
+/**
+ * Receives the side effects of an {@link Intersection} that are not part of the
+ * signal logic itself: log events, status changes and queue changes. The server core
+ * implements this; benchmarks plug in a no-op version. Log events arrive as fields, see
+ * {@link LogType}, so a listener that drops them pays no formatting cost.
+ */
+public interface IntersectionListener {
+
+    void log(Intersection intersection, LogType type, String subject, String object, long a, long b);
+
+    void statusChanged(Intersection intersection, Map<String, String> status);
+
+    void queuesChanged(Intersection intersection);
+
+    IntersectionListener NONE = new IntersectionListener() {
+        @Override public void log(Intersection intersection, LogType type, String subject, String object, long a, long b) {}
+        @Override public void statusChanged(Intersection intersection, Map<String, String> status) {}
+        @Override public void queuesChanged(Intersection intersection) {}
+    };
+}
@@ -0,0 +1,201 @@
+package com.traffic.server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Instrumentation of one {@link Intersection}: a count of every {@link LogType} it emits
+ * (refusals, ignored requests, mutex deferrals and overrides are read from these), live queue
+ * depths, and a {@link LatencyHistogram} of request waits per direction and VIP/normal class.
+ *
+ * A request's wait runs from its arrival until the green broadcast for its direction; one
+ * that arrives while its road is already green waits 0. Accepted requests are remembered per
+ * road until that road turns green, independently of the queues, because later requests for
+ * a road that has just switched are dequeued and ignored rather than served again.
+ */
+public class JunctionMetrics implements JunctionMetricsMXBean {
+
+    /** Wait percentiles of one direction and class, in milliseconds. */
+    public record WaitLatency(String direction, String vehicleClass, long count, double meanMillis,
+                              long p50Millis, long p90Millis, long p99Millis, long p999Millis, long maxMillis) {}
+
+    private final String id;
+    private final List<String> directions;
+    private final SignalClock clock;
+    private final Supplier<SignalState> state;
+    private final StripedQueue<?> vipQueue;
+    private final StripedQueue<?> normalQueue;
+    private final AtomicLongArray events = new AtomicLongArray(LogType.values().length);
+    private final AtomicInteger received = new AtomicInteger();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong vipThrottled = new AtomicLong();
+    private final AtomicInteger peakQueued = new AtomicInteger();
+    private final Road[] roads;
+
+    // Arrival times of the road's unserved requests, and its two wait histograms
+    private static final class Road {
+        final ReentrantLock lock = new ReentrantLock();
+        final ArrayDeque<Long> normal = new ArrayDeque<>(); // guarded by lock
+        final ArrayDeque<Long> vip = new ArrayDeque<>();    // guarded by lock
+        final LatencyHistogram normalWaits = new LatencyHistogram();
+        final LatencyHistogram vipWaits = new LatencyHistogram();
+    }
+
+    JunctionMetrics(String id, List<String> directions, SignalClock clock, Supplier<SignalState> state,
+                    StripedQueue<?> vipQueue, StripedQueue<?> normalQueue) {
+        this.id = id;
+        this.directions = directions;
+        this.clock = clock;
+        this.state = state;
+        this.vipQueue = vipQueue;
+        this.normalQueue = normalQueue;
+        this.roads = new Road[directions.size()];
+        for (int i = 0; i < roads.length; i++) roads[i] = new Road();
+    }
+
+    void event(LogType type) {
+        events.incrementAndGet(type.ordinal());
+    }
+
+    // A request refused by admission control, before it was logged or queued
+    void throttled(boolean vip) {
+        (vip ? vipThrottled : throttled).incrementAndGet();
+    }
+
+    // An accepted request. The state is read under the road's lock so a concurrent green either
+    // sees this arrival or has already been published to it.
+    void arrived(String direction, boolean vip) {
+        received.incrementAndGet();
+        peakQueued.accumulateAndGet(vipQueue.size() + normalQueue.size(), Math::max);
+        Road road = roads[directions.indexOf(direction)];
+        long now = clock.nanoTime();
+        road.lock.lock();
+        try {
+            SignalState current = state.get();
+            if (direction.equals(current.activeDirection()) && current.phase() != SignalPhase.YELLOW) {
+                (vip ? road.vipWaits : road.normalWaits).record(0);
+            } else {
+                (vip ? road.vip : road.normal).add(now);
+            }
+        } finally {
+            road.lock.unlock();
+        }
+    }
+
+    // The road was just broadcast green: every request waiting for it is served
+    void green(String direction) {
+        Road road = roads[directions.indexOf(direction)];
+        long now = clock.nanoTime();
+        road.lock.lock();
+        try {
+            Long arrival;
+            while ((arrival = road.normal.poll()) != null) road.normalWaits.record(millis(now - arrival));
+            while ((arrival = road.vip.poll()) != null) road.vipWaits.record(millis(now - arrival));
+        } finally {
+            road.lock.unlock();
+        }
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    public long count(LogType type) {
+        return events.get(type.ordinal());
+    }
+
+    /** Wait histogram snapshots, indexed [direction * 2] for normal and [direction * 2 + 1] for VIP. */
+    public LatencyHistogram.Snapshot[] waitSnapshots() {
+        LatencyHistogram.Snapshot[] snapshots = new LatencyHistogram.Snapshot[roads.length * 2];
+        for (int i = 0; i < roads.length; i++) {
+            snapshots[2 * i] = roads[i].normalWaits.snapshot();
+            snapshots[2 * i + 1] = roads[i].vipWaits.snapshot();
+        }
+        return snapshots;
+    }
+
+    private LatencyHistogram.Snapshot allWaits() {
+        LatencyHistogram.Snapshot all = LatencyHistogram.Snapshot.EMPTY;
+        for (LatencyHistogram.Snapshot s : waitSnapshots()) all = all.plus(s);
+        return all;
+    }
+
+    public List<String> directions() {
+        return directions;
+    }
+
+    // --- JunctionMetricsMXBean ---
+    @Override public String getIntersectionId() { return id; }
+    @Override public long getRequestsReceived() { return received.get(); }
+    @Override public long getRequestsRefused() { return count(LogType.REQUEST_DROPPED); }
+    @Override public long getRequestsThrottled() { return throttled.get(); }
+    @Override public long getVipRequestsThrottled() { return vipThrottled.get(); }
+    @Override public long getRequestsIgnored() { return count(LogType.REQUEST_IGNORED); }
+    @Override public long getMutexDeferrals() { return count(LogType.MUTEX_DEFER); }
+    @Override public long getOverridesInitiated() { return count(LogType.OVERRIDE_INITIATED); }
+    @Override public long getOverridesRejected() {
+        return count(LogType.OVERRIDE_NOT_ALLOWED) + count(LogType.OVERRIDE_UNKNOWN_DIRECTION);
+    }
+    @Override public long getTransitions() { return count(LogType.TRANSITION_START); }
+
+    @Override public int getVipQueueDepth() { return vipQueue.size(); }
+    @Override public int getNormalQueueDepth() { return normalQueue.size(); }
+    @Override public int getQueueCapacity() { return vipQueue.capacity() + normalQueue.capacity(); }
+    @Override public int getPeakQueueDepth() { return peakQueued.get(); }
+
+    @Override
+    public int getWaitingRequests() {
+        int waiting = 0;
+        for (Road road : roads) {
+            road.lock.lock();
+            try {
+                waiting += road.normal.size() + road.vip.size();
+            } finally {
+                road.lock.unlock();
+            }
+        }
+        return waiting;
+    }
+
+    @Override
+    public long getOldestWaitMillis() {
+        long now = clock.nanoTime();
+        long oldest = now;
+        for (Road road : roads) {
+            road.lock.lock();
+            try {
+                if (!road.normal.isEmpty()) oldest = Math.min(oldest, road.normal.peek());
+                if (!road.vip.isEmpty()) oldest = Math.min(oldest, road.vip.peek());
+            } finally {
+                road.lock.unlock();
+            }
+        }
+        return millis(now - oldest);
+    }
+
+    @Override public long getWaitP50Millis() { return allWaits().percentile(0.50); }
+    @Override public long getWaitP99Millis() { return allWaits().percentile(0.99); }
+    @Override public long getWaitMaxMillis() { return allWaits().max(); }
+
+    @Override
+    public List<WaitLatency> getWaitLatencies() {
+        LatencyHistogram.Snapshot[] snapshots = waitSnapshots();
+        List<WaitLatency> latencies = new ArrayList<>(snapshots.length);
+        for (int i = 0; i < snapshots.length; i++) {
+            latencies.add(summary(directions.get(i / 2), i % 2 == 0 ? "normal" : "vip", snapshots[i]));
+        }
+        return latencies;
+    }
+
+    static WaitLatency summary(String direction, String vehicleClass, LatencyHistogram.Snapshot s) {
+        return new WaitLatency(direction, vehicleClass, s.count(), s.mean(), s.percentile(0.50),
+            s.percentile(0.90), s.percentile(0.99), s.percentile(0.999), s.max());
+    }
+}
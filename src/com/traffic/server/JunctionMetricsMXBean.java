@@ -0,0 +1,41 @@
+package com.traffic.server;
+
+import java.util.List;
+
+/**
+ * Management view of one junction, registered as
+ * {@code com.traffic:type=Intersection,name="<id>"}. Counters run since the junction was
+ * created; wait times are from receiving a request until its road is broadcast green.
+ */
+public interface JunctionMetricsMXBean {
+
+    String getIntersectionId();
+
+    long getRequestsReceived();
+    /** Requests turned away with a retry-after because their queue stripe was full. */
+    long getRequestsRefused();
+    /** Requests over their client's rate budget (see AdmissionPolicy), normal and VIP. */
+    long getRequestsThrottled();
+    long getVipRequestsThrottled();
+    long getRequestsIgnored();
+    long getMutexDeferrals();
+    long getOverridesInitiated();
+    long getOverridesRejected();
+    long getTransitions();
+
+    int getVipQueueDepth();
+    int getNormalQueueDepth();
+    int getQueueCapacity();
+    int getPeakQueueDepth();
+
+    /** Requests received but not yet served by a green. */
+    int getWaitingRequests();
+    long getOldestWaitMillis();
+
+    long getWaitP50Millis();
+    long getWaitP99Millis();
+    long getWaitMaxMillis();
+
+    /** Wait percentiles per direction and vehicle class. */
+    List<JunctionMetrics.WaitLatency> getWaitLatencies();
+}
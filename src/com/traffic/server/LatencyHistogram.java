@@ -0,0 +1,104 @@
+package com.traffic.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Log-linear histogram of millisecond latencies in the style of HdrHistogram: exact below
+ * 64 ms, then 32 sub-buckets per power of two, so every reported percentile is within about
+ * 3% of the true value. Recording is one atomic increment and never allocates; the bucket
+ * array is only created on the first recorded value, so idle junctions cost nothing.
+ * Values above {@link #MAX_MILLIS} (about 4.6 hours) are clamped.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    public static final long MAX_MILLIS = (1L << 24) - 1;
+    static final int BUCKETS = index(MAX_MILLIS) + 1;
+
+    private final AtomicReference<AtomicLongArray> counts = new AtomicReference<>();
+    private final AtomicLong sumMillis = new AtomicLong();
+
+    public void record(long millis) {
+        long value = Math.max(0, Math.min(MAX_MILLIS, millis));
+        AtomicLongArray c = counts.get();
+        if (c == null) {
+            counts.compareAndSet(null, new AtomicLongArray(BUCKETS));
+            c = counts.get();
+        }
+        c.incrementAndGet(index(value));
+        sumMillis.addAndGet(value);
+    }
+
+    /** A copy of the counts so far. Not atomic across buckets, which is fine for monitoring. */
+    public Snapshot snapshot() {
+        AtomicLongArray c = counts.get();
+        if (c == null) return Snapshot.EMPTY;
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = c.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, sumMillis.get());
+    }
+
+    static int index(long value) {
+        if (value < 2 * SUB_COUNT) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return 2 * SUB_COUNT + (shift - 1) * SUB_COUNT + (int) ((value >>> shift) - SUB_COUNT);
+    }
+
+    // The largest value that lands in the bucket, as HdrHistogram reports percentiles
+    static long highestValue(int index) {
+        if (index < 2 * SUB_COUNT) return index;
+        int shift = (index - 2 * SUB_COUNT) / SUB_COUNT + 1;
+        long sub = (index - 2 * SUB_COUNT) % SUB_COUNT + SUB_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /** Immutable bucket counts; subtract two snapshots to get the distribution of an interval. */
+    public record Snapshot(long[] counts, long count, long sumMillis) {
+
+        static final Snapshot EMPTY = new Snapshot(new long[BUCKETS], 0, 0);
+
+        /** The value at or below which the fraction p (0..1) of the recorded values lie. */
+        public long percentile(double p) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(p * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return highestValue(i);
+            }
+            return highestValue(counts.length - 1);
+        }
+
+        public long max() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] != 0) return highestValue(i);
+            }
+            return 0;
+        }
+
+        public double mean() {
+            return count == 0 ? 0 : sumMillis / (double) count;
+        }
+
+        public Snapshot plus(Snapshot other) {
+            return combine(other, 1);
+        }
+
+        public Snapshot minus(Snapshot earlier) {
+            return combine(earlier, -1);
+        }
+
+        private Snapshot combine(Snapshot other, int sign) {
+            long[] merged = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) merged[i] = counts[i] + sign * other.counts[i];
+            return new Snapshot(merged, count + sign * other.count, sumMillis + sign * other.sumMillis);
+        }
+    }
+}
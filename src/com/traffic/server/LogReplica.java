@@ -0,0 +1,156 @@
+package com.traffic.server;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One copy of the event log: its own SQLite file, written by its own thread over one
+ * connection, so the copies are written in parallel rather than one after the other.
+ * Batches wait in a bounded backlog. A replica that cannot keep up, or fails a write, skips
+ * the batch and is marked lagging until {@link ReplicaSet}'s anti-entropy pass has copied
+ * the missing rows in from a healthy replica.
+ */
+final class LogReplica {
+
+    /** Rows to write; quorum is null for repairs, which nobody waits for. */
+    record Pending(ReplicaSet.Batch batch, ReplicaSet.Quorum quorum) {}
+
+    private static final long RETRY_MILLIS = 1000;
+
+    private final String url;
+    private final BlockingQueue<Pending> backlog;
+    private final Thread worker;
+    private volatile long appliedSeq;    // highest seq committed here
+    private volatile long verifiedSeq;   // rows up to here match the source replica
+    private volatile boolean lagging;    // missed a batch; only anti-entropy brings it back
+    private volatile boolean corrupt;    // anti-entropy last found rows here failing their checksum
+    private volatile boolean closed;
+
+    LogReplica(String url, int backlogBatches) {
+        this.url = url;
+        this.backlog = new LinkedBlockingQueue<>(backlogBatches);
+        this.appliedSeq = DatabaseManager.maxSeq(url);
+        this.worker = new Thread(this::run, "db-replica-" + url.substring(url.lastIndexOf(':') + 1));
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    String url() { return url; }
+    long appliedSeq() { return appliedSeq; }
+    long verifiedSeq() { return verifiedSeq; }
+    boolean lagging() { return lagging; }
+    boolean corrupt() { return corrupt; }
+    int backlog() { return backlog.size(); }
+
+    /** Queues a batch; a full backlog counts as a failed write and leaves the replica lagging. */
+    void write(ReplicaSet.Batch batch, ReplicaSet.Quorum quorum) {
+        if (closed || !backlog.offer(new Pending(batch, quorum))) {
+            lagging = true;
+            quorum.failed();
+        }
+    }
+
+    /** Queues rows copied from another replica; false if the backlog is full for now. */
+    boolean repair(ReplicaSet.Batch batch) {
+        return !closed && backlog.offer(new Pending(batch, null));
+    }
+
+    void corrupt(boolean found) {
+        if (found && !corrupt) System.err.println("Log replica " + url + " holds rows that fail their checksum.");
+        corrupt = found;
+    }
+
+    void verified(long seq, boolean complete) {
+        verifiedSeq = seq;
+        if (complete && lagging) {
+            lagging = false;
+            System.out.println("Log replica " + url + " is back in sync at seq " + seq + ".");
+        }
+    }
+
+    /** Stops taking batches, writes the ones already queued and closes the connection. */
+    void close(long timeoutMillis) {
+        closed = true;
+        worker.interrupt();
+        try {
+            worker.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (!closed || !backlog.isEmpty()) {
+            try (Connection conn = DriverManager.getConnection(url)) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("PRAGMA journal_mode=WAL");
+                    stmt.execute("PRAGMA synchronous=NORMAL");
+                    stmt.execute("PRAGMA busy_timeout=1000");
+                }
+                conn.setAutoCommit(false);
+                try (PreparedStatement insert = conn.prepareStatement(
+                        "INSERT OR REPLACE INTO logs(seq,epoch_ms,timestamp,event,crc) VALUES(?,?,?,?,?)")) {
+                    Pending pending;
+                    while ((pending = next()) != null) apply(conn, insert, pending);
+                }
+                return;
+            } catch (SQLException e) {
+                lagging = true;
+                System.err.println("Log replica " + url + " unavailable, retrying: " + e.getMessage());
+                if (closed) return;
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RETRY_MILLIS);
+                } catch (InterruptedException ignored) {
+                    // closing: one more attempt to drain the backlog
+                }
+            }
+        }
+    }
+
+    // Blocks for the next batch; null once closed and drained
+    private Pending next() {
+        while (true) {
+            Pending pending = backlog.poll();
+            if (pending != null || closed) return pending;
+            try {
+                return backlog.take();
+            } catch (InterruptedException e) {
+                // closing: drain what is left
+            }
+        }
+    }
+
+    private void apply(Connection conn, PreparedStatement insert, Pending pending) {
+        ReplicaSet.Batch batch = pending.batch();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                insert.setLong(1, batch.seqs()[i]);
+                insert.setLong(2, batch.times()[i]);
+                insert.setString(3, batch.stamps()[i]);
+                insert.setString(4, batch.events()[i]);
+                insert.setInt(5, batch.crcs()[i]);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            conn.commit();
+            appliedSeq = Math.max(appliedSeq, batch.seqs()[batch.size() - 1]);
+            if (pending.quorum() != null) pending.quorum().acked();
+        } catch (SQLException e) {
+            try {
+                insert.clearBatch();
+                conn.rollback();
+            } catch (SQLException ignored) {
+            }
+            if (!lagging) System.err.println("Log replica " + url + " failed a batch of " + batch.size()
+                + " and is lagging until anti-entropy repairs it: " + e.getMessage());
+            lagging = true;
+            if (pending.quorum() != null) pending.quorum().failed();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.traffic.server;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed-size buffer of recent log events, preallocated as parallel arrays so recording an
+ * event copies a few references and numbers and allocates nothing. Text is produced only
+ * when a consumer drains the ring. When producers lap the consumer the oldest events are
+ * overwritten; the next drain reports how many were skipped.
+ */
+public class LogRing {
+
+    /** Receives drained events, oldest first. */
+    public interface Sink {
+        void accept(long epochMillis, LogType type, String intersectionId, String subject, String object, long a, long b);
+    }
+
+    private static final DateTimeFormatter TIME =
+        DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private final int capacity;
+    private final long[] times;
+    private final LogType[] types;
+    private final String[] intersections;
+    private final String[] subjects;
+    private final String[] objects;
+    private final long[] as;
+    private final long[] bs;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long head = 0; // next sequence to write; guarded by lock
+    private long tail = 0; // next sequence to drain; guarded by lock
+
+    // Scratch copy for the consumer side, so draining allocates nothing either
+    private final long[] outTimes;
+    private final LogType[] outTypes;
+    private final String[] outIntersections;
+    private final String[] outSubjects;
+    private final String[] outObjects;
+    private final long[] outAs;
+    private final long[] outBs;
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    public LogRing(int capacity) {
+        this.capacity = capacity;
+        this.times = new long[capacity];
+        this.types = new LogType[capacity];
+        this.intersections = new String[capacity];
+        this.subjects = new String[capacity];
+        this.objects = new String[capacity];
+        this.as = new long[capacity];
+        this.bs = new long[capacity];
+        this.outTimes = new long[capacity];
+        this.outTypes = new LogType[capacity];
+        this.outIntersections = new String[capacity];
+        this.outSubjects = new String[capacity];
+        this.outObjects = new String[capacity];
+        this.outAs = new long[capacity];
+        this.outBs = new long[capacity];
+    }
+
+    public void record(LogType type, String intersectionId, String subject, String object, long a, long b) {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            int i = (int) (head % capacity);
+            times[i] = now;
+            types[i] = type;
+            intersections[i] = intersectionId;
+            subjects[i] = subject;
+            objects[i] = object;
+            as[i] = a;
+            bs[i] = b;
+            head++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Passes up to max undrained events to the sink and returns the number of events that were
+     * overwritten before they could be drained. The sink runs outside the producers' lock.
+     */
+    public long drain(int max, Sink sink) {
+        drainLock.lock();
+        try {
+            int count;
+            long skipped;
+            lock.lock();
+            try {
+                skipped = Math.max(0, head - capacity - tail);
+                tail += skipped;
+                count = (int) Math.min(Math.min(max, capacity), head - tail);
+                for (int n = 0; n < count; n++) {
+                    int i = (int) ((tail + n) % capacity);
+                    outTimes[n] = times[i];
+                    outTypes[n] = types[i];
+                    outIntersections[n] = intersections[i];
+                    outSubjects[n] = subjects[i];
+                    outObjects[n] = objects[i];
+                    outAs[n] = as[i];
+                    outBs[n] = bs[i];
+                }
+                tail += count;
+            } finally {
+                lock.unlock();
+            }
+            for (int n = 0; n < count; n++) {
+                sink.accept(outTimes[n], outTypes[n], outIntersections[n], outSubjects[n], outObjects[n], outAs[n], outBs[n]);
+            }
+            return skipped;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    /** The text the server has always shown and persisted, e.g. "[J1] TRANSITION: ...". */
+    public static String format(LogType type, String intersectionId, String subject, String object, long a, long b) {
+        String text = type.format(subject, object, a, b);
+        return intersectionId == null ? text : "[" + intersectionId + "] " + text;
+    }
+
+    public static String formatTime(long epochMillis) {
+        return TIME.format(Instant.ofEpochMilli(epochMillis));
+    }
+}
@@ -0,0 +1,86 @@
+package com.traffic.server;
+
+/**
+ * Every kind of server log event. Events carry their arguments as fields (two strings,
+ * two numbers) and are only turned into text when a view or the database needs it;
+ * the template refers to them as %1$s subject, %2$s object, %3$d a and %4$d b.
+ * Persistent types are also written to the database log.
+ */
+public enum LogType {
+
+    INFO(Group.GENERAL, false, "%1$s"),
+    INTERSECTION_CREATED(Group.GENERAL, false, "Intersection %1$s created."),
+    REQUEST_FOR_UNKNOWN_INTERSECTION(Group.ERROR, false, "ERROR: Request from %2$s for unknown intersection %1$s. Ignored."),
+    BATCH_FOR_UNKNOWN_INTERSECTION(Group.ERROR, false, "ERROR: Batch of %3$d requests for unknown intersection %1$s. Ignored."),
+    RTO_SUBSCRIBED(Group.GENERAL, false, "RTO client subscribed to the event stream from seq %3$d."),
+    JOURNAL_RECOVERED(Group.GENERAL, false, "JOURNAL: Restored the %1$s green and %3$d queued requests from %4$d records."),
+
+    // --- Clients ---
+    CLIENT_REGISTERED(Group.GENERAL, false, "Client registered: %1$s as %2$s"),
+    CLIENTS_CONNECTED(Group.GENERAL, false, "%3$d of %4$d clients connected."),
+    SYSTEM_STARTING(Group.GENERAL, false, "All clients connected. Starting system."),
+    CLIENT_THROTTLED(Group.LOAD_BALANCING, false, "ADMISSION: %1$s is over its%2$s request rate. Refusing until it slows down."),
+    CLIENT_UNTHROTTLED(Group.LOAD_BALANCING, false, "ADMISSION: %1$s is back within its request rate."),
+    RTO_CONNECTED(Group.GENERAL, false, "RTO client connected."),
+    RTO_UNREACHABLE(Group.GENERAL, false, "Failed to update an RTO client. It may have disconnected."),
+
+    // --- Requests and queues (subject is the client id, object its " (VIP)" suffix) ---
+    REQUEST_RECEIVED(Group.GENERAL, false, "Received request: %1$s%2$s"),
+    BATCH_RECEIVED(Group.GENERAL, false, "Received batch of %3$d requests."),
+    UNKNOWN_DIRECTION(Group.ERROR, false, "ERROR: Unknown direction %2$s from %1$s. Request ignored."),
+    ROAD_NOT_SERVED(Group.ERROR, false, "ERROR: %1$s asked for %2$s, which another road controller serves (this is road %3$d). Ignored."),
+    REQUEST_DROPPED(Group.LOAD_BALANCING, false, "BACKPRESSURE: Queue full. Refused %1$s%2$s; asked to retry in %3$d ms."),
+    PROCESSING_REQUEST(Group.GENERAL, false, "Processing next request: %1$s%2$s"),
+    REQUEST_IGNORED(Group.GENERAL, false, "Ignoring request for already active/transitioning direction."),
+    REQUEST_ALREADY_SERVED(Group.GENERAL, false, "Skipping request %1$s%2$s: its vehicle went through on an earlier green."),
+    REQUEST_DEFERRED(Group.GENERAL, false, "Holding request %1$s%2$s for %3$d ms until its vehicle is near the junction."),
+    PREDICTIVE_SWITCH(Group.GENERAL, false, "FORECAST: %2$s is quiet; moving the green to %1$s (expecting %3$d vehicles/h against %4$d)."),
+    DISPATCHER_INTERRUPTED(Group.GENERAL, false, "Request processing thread interrupted."),
+
+    // --- Mutual exclusion (subject is the requesting road, object the other road) ---
+    MUTEX_WANTS_CS(Group.MUTEX, false, "MUTEX: %1$s wants to enter Critical Section (CS)."),
+    MUTEX_SEND_REQUEST(Group.MUTEX, false, "MUTEX: %1$s sending REQUEST(%3$d) to %2$s"),
+    MUTEX_RECEIVED_REQUEST(Group.MUTEX, false, "MUTEX: %1$s received REQUEST(%3$d) from %2$s. My clock is now %4$d"),
+    MUTEX_GRANT(Group.MUTEX, false, "MUTEX: %1$s grants permission. Sending REPLY to %2$s"),
+    MUTEX_DEFER(Group.MUTEX, false, "MUTEX: %1$s defers reply to %2$s until it leaves the CS."),
+    MUTEX_RECEIVED_REPLY(Group.MUTEX, false, "MUTEX: %1$s received REPLY from %2$s."),
+    MUTEX_SEND_TOKEN(Group.MUTEX, false, "MUTEX: %1$s passes the token to %2$s"),
+    MUTEX_RECEIVED_TOKEN(Group.MUTEX, false, "MUTEX: %1$s received the token from %2$s."),
+    MUTEX_ENTER_CS(Group.MUTEX, false, "MUTEX: %1$s has permission. Entering CS."),
+    MUTEX_YIELD(Group.MUTEX, false, "MUTEX: %1$s leaves the green to %2$s, which is waiting for the CS."),
+    ROAD_PEER_UNREACHABLE(Group.ERROR, false, "ERROR: %1$s (%2$s). This road controller stops switching."),
+
+    // --- Phase changes ---
+    TRANSITION_START(Group.TRANSITION, true, "TRANSITION: Starting switch to %1$s"),
+    GREEN_HOLD(Group.TRANSITION, false, "GREEN LIGHT: Holding %1$s green for %3$d ms."),
+    GREEN_EXTENDED(Group.TRANSITION, false, "GREEN LIGHT: Extending %1$s green by %3$d ms while its queue clears."),
+    GREEN_SHORTENED(Group.TRANSITION, false, "GREEN LIGHT: Ending %1$s green in %3$d ms, at its minimum, for VIP %2$s."),
+    TRANSITION_COMPLETE(Group.TRANSITION, true, "TRANSITION: Complete. Active direction is now %1$s"),
+
+    // --- Manual override (subject is the RTO id, object the direction) ---
+    OVERRIDE_ATTEMPT(Group.OVERRIDE, false, "RTO %1$s is attempting a manual override to %2$s."),
+    OVERRIDE_INITIATED(Group.OVERRIDE, true, "Manual override initiated by %1$s to %2$s"),
+    OVERRIDE_UNKNOWN_INTERSECTION(Group.OVERRIDE, true, "Manual override rejected: Unknown intersection %1$s."),
+    OVERRIDE_UNKNOWN_DIRECTION(Group.OVERRIDE, true, "Manual override rejected: Unknown direction %2$s."),
+    OVERRIDE_NOT_ALLOWED(Group.OVERRIDE, true, "Manual override rejected: Direction is already active or in transition.");
+
+    /** Coarse grouping used by views to style lines. */
+    public enum Group { GENERAL, ERROR, LOAD_BALANCING, MUTEX, TRANSITION, OVERRIDE }
+
+    private final Group group;
+    private final boolean persistent;
+    private final String template;
+
+    LogType(Group group, boolean persistent, String template) {
+        this.group = group;
+        this.persistent = persistent;
+        this.template = template;
+    }
+
+    public Group group() { return group; }
+    public boolean isPersistent() { return persistent; }
+
+    public String format(String subject, String object, long a, long b) {
+        return String.format(template, subject, object, a, b);
+    }
+}
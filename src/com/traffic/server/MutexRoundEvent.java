@@ -0,0 +1,37 @@
+package com.traffic.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/** JFR event for one road's critical section: acquiring the junction mutex, switching, releasing. */
+@Name("traffic.MutexRound")
+@Label("Mutex Round")
+@Category({"Traffic Controller", "Signal"})
+@Description("A road acquiring the junction's distributed mutex to switch the signal")
+final class MutexRoundEvent extends jdk.jfr.Event {
+
+    @Label("Intersection")
+    String intersection;
+
+    @Label("Direction")
+    String direction;
+
+    @Label("Algorithm")
+    String algorithm;
+
+    @Label("Acquire Wait")
+    @Description("Time until every peer agreed or the token arrived")
+    @Timespan(Timespan.NANOSECONDS)
+    long acquireWait;
+
+    @Label("Messages Sent")
+    @Description("Protocol messages this road sent during the round")
+    long messagesSent;
+
+    @Label("Switched")
+    @Description("False if the road found nothing to switch once inside")
+    boolean switched;
+}
@@ -0,0 +1,123 @@
+package com.traffic.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timer wheel that drives the yellow and green phases of every junction.
+ * One worker thread advances the wheel once per tick and hands expired tasks to a
+ * virtual-thread executor, so a slow callback never delays other junctions' timers.
+ * Scheduling is lock-free: new timeouts are queued and moved into the wheel by the worker.
+ */
+public class PhaseTimer implements SignalClock {
+
+    public static final class Timeout implements Cancellable {
+        private final long deadline;
+        private final Runnable task;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Timeout(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        @Override public void cancel() { cancelled = true; }
+        public boolean isCancelled() { return cancelled; }
+    }
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<List<Timeout>> wheel;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final long startTime = System.nanoTime();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private long tick = 0; // only touched by the worker
+
+    /** Default wheel: 10 ms ticks, 512 buckets (one revolution every ~5 s). */
+    public PhaseTimer() {
+        this(10, 512);
+    }
+
+    public PhaseTimer(long tickMillis, int wheelSize) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = wheelSize - 1;
+        this.wheel = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) wheel.add(new ArrayList<>());
+        this.worker = new Thread(this::run, "phase-timer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /** Runs the task once, no earlier than delayMillis from now (rounded up to the next tick). */
+    @Override
+    public Timeout schedule(long delayMillis, Runnable task) {
+        Timeout timeout = new Timeout(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis), task);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+        executor.shutdown();
+    }
+
+    private void run() {
+        while (running) {
+            long nextTick = startTime + (tick + 1) * tickNanos;
+            long sleepNanos = nextTick - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) return;
+                }
+                continue;
+            }
+            transferPending();
+            expire(wheel.get((int) (tick & mask)), System.nanoTime());
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.cancelled) continue;
+            long dueTick = Math.max((timeout.deadline - startTime + tickNanos - 1) / tickNanos, tick);
+            timeout.remainingRounds = (dueTick - tick) / wheel.size();
+            wheel.get((int) (dueTick & mask)).add(timeout);
+        }
+    }
+
+    private void expire(List<Timeout> bucket, long now) {
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Timeout timeout = bucket.get(i);
+            if (timeout.cancelled) continue;
+            if (timeout.remainingRounds <= 0 && timeout.deadline <= now) {
+                executor.execute(timeout.task);
+            } else {
+                if (timeout.remainingRounds > 0) timeout.remainingRounds--;
+                bucket.set(kept++, timeout);
+            }
+        }
+        bucket.subList(kept, bucket.size()).clear();
+    }
+}
@@ -0,0 +1,340 @@
+package com.traffic.server;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * The event log kept in N independent {@link LogReplica} files. A batch goes to every
+ * replica at once and counts as written once a quorum of them has committed it, so a write
+ * takes as long as the fastest quorum, not the sum of all copies, and one slow or lost disk
+ * neither stalls the writer nor loses events.
+ *
+ * Every row carries a CRC32C of its seq, time and text. An anti-entropy thread compares each
+ * replica against the most advanced healthy one, range by range (row count and checksum sum
+ * per block of seqs). In a block that differs it recomputes every row's checksum on both
+ * sides, copies the source's good rows that the other replica lacks, and heals a bad source
+ * row from the other replica's good copy. Rows that fail their checksum are never copied, and
+ * a replica found holding them is not picked as the source or for reads until it is clean.
+ * Blocks already found equal are not compared again, so a round only reads what is new.
+ */
+final class ReplicaSet {
+
+    /** Rows of one write, copied so lagging replicas can still use them after the writer moves on. */
+    record Batch(long[] seqs, long[] times, String[] stamps, String[] events, int[] crcs, int size) {}
+
+    /** Counts acknowledgements for one batch; the writer waits until the quorum is reached or cannot be. */
+    static final class Quorum {
+        private final int needed;
+        private final int replicas;
+        private int acks;
+        private int failures;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition settled = lock.newCondition();
+
+        Quorum(int needed, int replicas) {
+            this.needed = needed;
+            this.replicas = replicas;
+        }
+
+        void acked() {
+            update(true);
+        }
+
+        void failed() {
+            update(false);
+        }
+
+        private void update(boolean ack) {
+            lock.lock();
+            try {
+                if (ack) acks++; else failures++;
+                if (acks == needed || failures == replicas - needed + 1) settled.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** Waits until the quorum is met or can no longer be; true if it was met. */
+        boolean await(long timeoutMillis) {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            lock.lock();
+            try {
+                while (acks < needed && failures <= replicas - needed && remaining > 0) {
+                    remaining = settled.awaitNanos(remaining);
+                }
+                return acks >= needed;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return acks >= needed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int acks() {
+            lock.lock();
+            try {
+                return acks;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final int BACKLOG_BATCHES = 64;
+    private static final long QUORUM_TIMEOUT_MILLIS = 10_000;
+    private static final int BLOCK = 1024;          // seqs per checksum range
+    private static final int REPAIR_BATCH = 512;
+
+    private final List<LogReplica> replicas = new ArrayList<>();
+    private final int quorum;
+    private final long repairMillis;
+    private final Thread antiEntropy;
+    private volatile boolean closed;
+
+    ReplicaSet(List<String> urls, int quorum, long repairMillis) {
+        if (urls.isEmpty() || quorum < 1 || quorum > urls.size()) {
+            throw new IllegalArgumentException("Need 1 <= quorum <= replicas, got " + quorum + " of " + urls.size());
+        }
+        for (String url : urls) replicas.add(new LogReplica(url, BACKLOG_BATCHES));
+        this.quorum = quorum;
+        this.repairMillis = repairMillis;
+        this.antiEntropy = new Thread(this::repairLoop, "db-anti-entropy");
+        this.antiEntropy.setDaemon(true);
+        if (replicas.size() > 1 && repairMillis > 0) this.antiEntropy.start();
+    }
+
+    int size() { return replicas.size(); }
+    int quorum() { return quorum; }
+
+    /** CRC32C of one row, as stored in its crc column. */
+    static int checksum(CRC32C crc, long seq, long epochMillis, String event) {
+        crc.reset();
+        for (int shift = 0; shift < 64; shift += 8) crc.update((int) (seq >>> shift));
+        for (int shift = 0; shift < 64; shift += 8) crc.update((int) (epochMillis >>> shift));
+        for (int i = 0; i < event.length(); i++) {
+            char c = event.charAt(i);
+            crc.update(c);
+            crc.update(c >>> 8);
+        }
+        return (int) crc.getValue();
+    }
+
+    /** Sends the batch to every replica; returns the number that committed it once the quorum is settled. */
+    int write(Batch batch) {
+        Quorum votes = new Quorum(quorum, replicas.size());
+        for (LogReplica replica : replicas) replica.write(batch, votes);
+        votes.await(QUORUM_TIMEOUT_MILLIS);
+        return votes.acks();
+    }
+
+    /** Highest seq any replica holds; new events are numbered after it. */
+    long maxSeq() {
+        long max = 0;
+        for (LogReplica replica : replicas) max = Math.max(max, replica.appliedSeq());
+        return max;
+    }
+
+    /** The most advanced replica that is not missing rows or holding bad ones, for history reads. */
+    String readUrl() {
+        LogReplica best = replicas.get(0);
+        for (LogReplica replica : replicas) {
+            boolean healthy = !replica.lagging() && !replica.corrupt();
+            boolean bestHealthy = !best.lagging() && !best.corrupt();
+            if (healthy && !bestHealthy) best = replica;
+            else if (healthy == bestHealthy && replica.appliedSeq() > best.appliedSeq()) best = replica;
+        }
+        return best.url();
+    }
+
+    /** Per replica: url, highest applied seq, whether it is lagging and its queued batches. */
+    List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        for (LogReplica r : replicas) {
+            lines.add(r.url() + " seq=" + r.appliedSeq() + " verified=" + r.verifiedSeq()
+                + (r.lagging() ? " LAGGING" : "") + (r.corrupt() ? " CORRUPT" : "") + " backlog=" + r.backlog());
+        }
+        return lines;
+    }
+
+    /** Runs one anti-entropy round now; returns the rows queued for repair. */
+    long repairNow() {
+        // The source is the most advanced replica that is not lagging, preferring one whose
+        // rows last passed their checksums
+        LogReplica source = null;
+        for (LogReplica r : replicas) {
+            if (r.lagging()) continue;
+            if (source == null || (source.corrupt() && !r.corrupt())
+                    || (source.corrupt() == r.corrupt() && r.appliedSeq() > source.appliedSeq())) source = r;
+        }
+        if (source == null) return 0;
+        long copied = 0;
+        Set<LogReplica> checked = new HashSet<>();
+        Set<LogReplica> corrupt = new HashSet<>();
+        for (LogReplica target : replicas) {
+            if (target == source) continue;
+            try {
+                copied += repair(source, target, corrupt);
+                checked.add(source);
+                checked.add(target);
+            } catch (SQLException e) {
+                System.err.println("Anti-entropy against " + target.url() + " failed: " + e.getMessage());
+            }
+        }
+        for (LogReplica r : checked) r.corrupt(corrupt.contains(r));
+        return copied;
+    }
+
+    void close(long timeoutMillis) {
+        closed = true;
+        antiEntropy.interrupt();
+        for (LogReplica replica : replicas) replica.close(timeoutMillis);
+    }
+
+    private void repairLoop() {
+        while (!closed) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(repairMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            repairNow();
+        }
+    }
+
+    // A healthy target is only compared up to what it has applied (later batches are still on
+    // their way); a lagging one up to everything the source has. Replicas found holding rows
+    // that fail their checksum are added to 'corrupt'. While either side is known to hold such
+    // rows, every block is checked row by row: a rotten row whose stored crc survived does not
+    // change the digest.
+    private long repair(LogReplica source, LogReplica target, Set<LogReplica> corrupt) throws SQLException {
+        long from = target.verifiedSeq();
+        long to = target.lagging() ? source.appliedSeq() : Math.min(source.appliedSeq(), target.appliedSeq());
+        if (to <= from) return 0;
+        Map<Long, long[]> expected = digest(source.url(), from, to);
+        Map<Long, long[]> actual = digest(target.url(), from, to);
+        long copied = 0;
+        long healed = 0;
+        long sourceBad = 0;
+        long targetBad = 0;
+        long verified = to;
+        boolean thorough = source.corrupt() || target.corrupt();
+        for (Map.Entry<Long, long[]> block : expected.entrySet()) {
+            long[] mine = actual.get(block.getKey());
+            if (!thorough && mine != null && mine[0] == block.getValue()[0] && mine[1] == block.getValue()[1]) continue;
+            long blockFrom = Math.max(from, block.getKey() * BLOCK - 1);
+            long blockTo = Math.min(to, block.getKey() * BLOCK + BLOCK - 1);
+            Map<Long, Object[]> good = new TreeMap<>();
+            Map<Long, Object[]> theirs = new TreeMap<>();
+            List<Long> badHere = rows(source.url(), blockFrom, blockTo, good);
+            List<Long> badThere = rows(target.url(), blockFrom, blockTo, theirs);
+            sourceBad += badHere.size();
+            targetBad += badThere.size();
+            List<Object[]> toTarget = new ArrayList<>();
+            for (Object[] row : good.values()) {
+                Object[] other = theirs.get((Long) row[0]);
+                if (other == null || !other[4].equals(row[4])) toTarget.add(row);
+            }
+            List<Object[]> toSource = new ArrayList<>();
+            for (long seq : badHere) {
+                Object[] other = theirs.get(seq);
+                if (other != null) toSource.add(other);
+            }
+            // Bad rows with no good copy here stay unverified, for a replica that has one
+            if (!badHere.isEmpty() && toSource.size() < badHere.size()) {
+                source.verified(Math.min(source.verifiedSeq(), blockFrom), false);
+            }
+            if (toTarget.isEmpty() && toSource.isEmpty() && badThere.isEmpty()) continue;
+            verified = Math.min(verified, blockFrom); // re-check once the copied rows have landed
+            if (!queue(target, toTarget) || !queue(source, toSource)) break; // backlog full: finish next round
+            copied += toTarget.size();
+            healed += toSource.size();
+        }
+        if (sourceBad > 0) corrupt.add(source);
+        if (targetBad > 0) corrupt.add(target);
+        if (sourceBad + targetBad > 0) {
+            System.err.println("Anti-entropy: " + sourceBad + " rows in " + source.url() + " and " + targetBad + " in "
+                + target.url() + " fail their checksum; " + healed + " of the first healed from the second.");
+        }
+        target.verified(verified, copied == 0 && verified == to);
+        if (copied > 0) System.out.println("Anti-entropy: copying " + copied + " rows into " + target.url() + ".");
+        return copied + healed;
+    }
+
+    // Row count and checksum sum per block of seqs in (from, to], in seq order
+    private static Map<Long, long[]> digest(String url, long from, long to) throws SQLException {
+        Map<Long, long[]> blocks = new TreeMap<>();
+        try (Connection conn = DriverManager.getConnection(url);
+             PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT seq / " + BLOCK + ", COUNT(*), SUM(crc) FROM logs WHERE seq > ? AND seq <= ? GROUP BY seq / " + BLOCK)) {
+            stmt.setLong(1, from);
+            stmt.setLong(2, to);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) blocks.put(rs.getLong(1), new long[] {rs.getLong(2), rs.getLong(3)});
+            }
+        }
+        return blocks;
+    }
+
+    // Reads the rows in (from, to] and recomputes their checksums: rows that match go into
+    // 'good' by seq, and the seqs of rows that do not are returned
+    private static List<Long> rows(String url, long from, long to, Map<Long, Object[]> good) throws SQLException {
+        List<Long> bad = new ArrayList<>();
+        CRC32C crc = new CRC32C();
+        try (Connection conn = DriverManager.getConnection(url);
+             PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT seq, epoch_ms, timestamp, event, crc FROM logs WHERE seq > ? AND seq <= ? ORDER BY seq")) {
+            stmt.setLong(1, from);
+            stmt.setLong(2, to);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    long seq = rs.getLong(1);
+                    long epochMillis = rs.getLong(2);
+                    String event = rs.getString(4);
+                    int stored = rs.getInt(5);
+                    if (checksum(crc, seq, epochMillis, event == null ? "" : event) != stored) {
+                        bad.add(seq);
+                    } else {
+                        good.put(seq, new Object[] {seq, epochMillis, rs.getString(3), event, stored});
+                    }
+                }
+            }
+        }
+        return bad;
+    }
+
+    // Queues the rows on the replica in repair-sized batches; false if its backlog filled up
+    private static boolean queue(LogReplica replica, List<Object[]> rows) {
+        for (int i = 0; i < rows.size(); i += REPAIR_BATCH) {
+            if (!replica.repair(batch(rows.subList(i, Math.min(rows.size(), i + REPAIR_BATCH))))) return false;
+        }
+        return true;
+    }
+
+    private static Batch batch(List<Object[]> rows) {
+        int n = rows.size();
+        Batch batch = new Batch(new long[n], new long[n], new String[n], new String[n], new int[n], n);
+        for (int i = 0; i < n; i++) {
+            Object[] row = rows.get(i);
+            batch.seqs()[i] = (Long) row[0];
+            batch.times()[i] = (Long) row[1];
+            batch.stamps()[i] = (String) row[2];
+            batch.events()[i] = (String) row[3];
+            batch.crcs()[i] = (Integer) row[4];
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,333 @@
+package com.traffic.server;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * Crash-safe record of one junction's queued requests and signal phase, so a restarted server
+ * comes back with the same queues and the green where it was. Every enqueue, dequeue and
+ * phase change is appended to a memory-mapped file: the bytes are in the OS page cache as
+ * soon as the append returns, so a killed or crashed server loses nothing, and an append is
+ * a few hundred nanoseconds with no system call.
+ *
+ * Each junction has two files, <id>.0.journal and <id>.1.journal, used in turn. When the one
+ * in use is full, a compact snapshot (the phase plus every queued request) is written to the
+ * other, whose header generation is set last, so a crash part-way through leaves the older
+ * file as the newest valid one. Every record carries a CRC32C; replay stops at the first
+ * torn or zeroed record. Each request carries a sequence id from {@link #nextSeq()}, and
+ * replay matches dequeues to enqueues by it, so an enqueue written both into a snapshot and
+ * after it counts once, and a request once dequeued never comes back.
+ */
+final class RequestJournal {
+
+    static final int FILE_BYTES = Integer.getInteger("traffic.journal.sizeKb", 1024) * 1024;
+
+    record Recovered(SignalPhase phase, String activeDirection, String targetDirection,
+                     List<Intersection.Request> pending, int records, long lastSeq) {}
+
+    private static final String SUFFIX = ".journal";
+    private static final int MAGIC = 0x54524a32; // "TRJ2": records carry request sequence ids
+    private static final int GENERATION = 4;
+    private static final int HEADER = 16;
+    private static final byte PHASE = 1, ENQUEUE = 2, DEQUEUE = 3;
+
+    private final MappedByteBuffer[] files = new MappedByteBuffer[2];
+    private final CRC32C crc = new CRC32C();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long wallOffsetNanos; // clock time -> epoch time, so request ages survive a restart
+    private final Recovered recovered;
+    private final AtomicLong seq = new AtomicLong();
+    private int current;   // file being appended to
+    private int position;
+    private long generation;
+    private boolean failed;
+    private Supplier<SignalState> state;
+    private List<? extends Iterable<Intersection.Request>> queues;
+
+    RequestJournal(Path dir, String junctionId, int fileBytes, SignalClock clock) throws IOException {
+        this.wallOffsetNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - clock.nanoTime();
+        Files.createDirectories(dir);
+        for (int i = 0; i < files.length; i++) {
+            try (FileChannel channel = FileChannel.open(dir.resolve(junctionId + "." + i + SUFFIX),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                files[i] = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes);
+            }
+        }
+        long[] generations = {generation(files[0]), generation(files[1])};
+        current = generations[1] > generations[0] ? 1 : 0;
+        generation = generations[current];
+        recovered = generation > 0 ? replay(files[current]) : null;
+        if (recovered != null) seq.set(recovered.lastSeq());
+    }
+
+    /** Ids of the junctions with a journal in dir. */
+    static List<String> junctionIds(Path dir) throws IOException {
+        List<String> ids = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return ids;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.0" + SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                ids.add(name.substring(0, name.length() - (".0" + SUFFIX).length()));
+            }
+        }
+        return ids;
+    }
+
+    /** What the newest file held when the journal was opened, or null if there was none. */
+    Recovered recovered() {
+        return recovered;
+    }
+
+    /** The id for a new request, above every id in the recovered files. */
+    long nextSeq() {
+        return seq.incrementAndGet();
+    }
+
+    /**
+     * Starts journaling from the junction's live state, which also becomes the source of every
+     * later snapshot. Writes the first snapshot at once, so the recovered records are compacted.
+     */
+    void attach(Supplier<SignalState> state, List<? extends Iterable<Intersection.Request>> queues) {
+        lock.lock();
+        try {
+            this.state = state;
+            this.queues = queues;
+            compact();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues the request through 'offer' and records it, both under the journal lock, so its
+     * dequeue can never be written before its enqueue, and a snapshot taken in between cannot
+     * miss it. Returns what 'offer' returned; a refused request is not recorded.
+     */
+    boolean enqueue(Intersection.Request request, BooleanSupplier offer) {
+        lock.lock();
+        try {
+            if (!offer.getAsBoolean()) return false;
+            if (reserve(enqueueSize(request))) writeEnqueue(request);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void dequeued(Intersection.Request request) {
+        lock.lock();
+        try {
+            if (!reserve(1 + 8)) return;
+            MappedByteBuffer file = begin();
+            file.put(DEQUEUE);
+            file.putLong(request.seq());
+            commit(file);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void phase(SignalState signal) {
+        lock.lock();
+        try {
+            if (reserve(phaseSize(signal))) writePhase(signal);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Flushes both files to disk. The mappings stay valid until they are collected. */
+    void close() {
+        lock.lock();
+        try {
+            for (MappedByteBuffer file : files) file.force();
+            failed = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // --- Appending: payload, then an end marker after it, then CRC and length ---
+
+    // Makes room for a record of 'size' payload bytes, compacting into the other file if needed
+    private boolean reserve(int size) {
+        if (failed || state == null) return false; // closed, or not attached yet
+        if (position + 8 + size + 4 <= files[current].capacity()) return true;
+        compact();
+        if (!failed && position + 8 + size + 4 <= files[current].capacity()) return true;
+        return false;
+    }
+
+    private MappedByteBuffer begin() {
+        MappedByteBuffer file = files[current];
+        file.position(position + 8);
+        return file;
+    }
+
+    private void commit(MappedByteBuffer file) {
+        int body = position + 8;
+        int end = file.position();
+        file.putInt(end, 0);
+        crc.reset();
+        file.position(body).limit(end);
+        crc.update(file);
+        file.limit(file.capacity());
+        file.putInt(position + 4, (int) crc.getValue());
+        file.putInt(position, end - body);
+        position = end;
+    }
+
+    private void writeEnqueue(Intersection.Request request) {
+        MappedByteBuffer file = begin();
+        file.put(ENQUEUE);
+        file.putLong(request.seq());
+        file.put((byte) (request.isVip() ? 1 : 0));
+        file.putInt(request.proximity());
+        file.putLong(request.receivedNanos() + wallOffsetNanos);
+        putString(file, request.clientId());
+        putString(file, request.direction());
+        commit(file);
+    }
+
+    private void writePhase(SignalState signal) {
+        MappedByteBuffer file = begin();
+        file.put(PHASE);
+        file.put((byte) signal.phase().ordinal());
+        putString(file, signal.activeDirection());
+        putString(file, signal.targetDirection());
+        commit(file);
+    }
+
+    // Snapshot into the other file; its generation is only set once the snapshot is complete
+    private void compact() {
+        int next = 1 - current;
+        MappedByteBuffer file = files[next];
+        file.putLong(GENERATION, 0);
+        file.putInt(HEADER, 0);
+        current = next;
+        position = HEADER;
+        SignalState signal = state.get();
+        int capacity = file.capacity();
+        int need = 8 + phaseSize(signal) + 4;
+        if (need <= capacity - position) writePhase(signal);
+        for (Iterable<Intersection.Request> queue : queues) {
+            for (Intersection.Request request : queue) {
+                need = 8 + enqueueSize(request) + 4;
+                if (need > capacity - position) {
+                    System.err.println("Journal file too small for a snapshot; journaling stopped. Raise -Dtraffic.journal.sizeKb.");
+                    failed = true;
+                    return;
+                }
+                writeEnqueue(request);
+            }
+        }
+        file.putInt(0, MAGIC);
+        file.putLong(GENERATION, ++generation);
+    }
+
+    private static int enqueueSize(Intersection.Request request) {
+        return 1 + 8 + 1 + 4 + 8 + stringSize(request.clientId()) + stringSize(request.direction());
+    }
+
+    private static int phaseSize(SignalState signal) {
+        return 1 + 1 + stringSize(signal.activeDirection()) + stringSize(signal.targetDirection());
+    }
+
+    private static int stringSize(String s) {
+        return 2 + (s == null ? 0 : 2 * s.length());
+    }
+
+    private static void putString(MappedByteBuffer file, String s) {
+        if (s == null) {
+            file.putShort((short) -1);
+            return;
+        }
+        file.putShort((short) s.length());
+        for (int i = 0; i < s.length(); i++) file.putChar(s.charAt(i));
+    }
+
+    // --- Replay ---
+
+    private static long generation(MappedByteBuffer file) {
+        return file.getInt(0) == MAGIC ? file.getLong(GENERATION) : 0;
+    }
+
+    // Dequeues are matched to enqueues by sequence id. A dequeued id stays done, so an enqueue
+    // written after its dequeue (the dispatcher beat the journal) or repeated after a snapshot
+    // does not bring the request back.
+    private Recovered replay(MappedByteBuffer file) {
+        SignalPhase phase = SignalPhase.GREEN;
+        String active = null, target = null;
+        Map<Long, Intersection.Request> pending = new LinkedHashMap<>();
+        Set<Long> dequeued = new HashSet<>();
+        long lastSeq = 0;
+        long offset = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - wallOffsetNanos;
+        CRC32C check = new CRC32C();
+        int records = 0;
+        int at = HEADER;
+        while (at + 8 <= file.capacity()) {
+            int length = file.getInt(at);
+            if (length <= 0 || at + 8 + length > file.capacity()) break;
+            check.reset();
+            file.position(at + 8).limit(at + 8 + length);
+            check.update(file);
+            file.limit(file.capacity());
+            if ((int) check.getValue() != file.getInt(at + 4)) break;
+            file.position(at + 8);
+            byte type = file.get();
+            switch (type) {
+                case PHASE -> {
+                    phase = SignalPhase.values()[file.get()];
+                    active = getString(file);
+                    target = getString(file);
+                }
+                case ENQUEUE -> {
+                    long seq = file.getLong();
+                    boolean vip = file.get() == 1;
+                    int proximity = file.getInt();
+                    long received = file.getLong() - offset;
+                    Intersection.Request request =
+                        new Intersection.Request(getString(file), getString(file), vip, proximity, received, seq);
+                    if (!dequeued.contains(seq)) pending.putIfAbsent(seq, request);
+                    lastSeq = Math.max(lastSeq, seq);
+                }
+                case DEQUEUE -> {
+                    long seq = file.getLong();
+                    pending.remove(seq);
+                    dequeued.add(seq);
+                    lastSeq = Math.max(lastSeq, seq);
+                }
+                default -> { }
+            }
+            records++;
+            at += 8 + length;
+        }
+        file.position(0);
+        return new Recovered(phase, active, target, new ArrayList<>(pending.values()), records, lastSeq);
+    }
+
+    private static String getString(MappedByteBuffer file) {
+        int length = file.getShort();
+        if (length < 0) return null;
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) chars[i] = file.getChar();
+        return new String(chars);
+    }
+}
@@ -0,0 +1,57 @@
+package com.traffic.server;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Hands out requests from a fixed list of queues in priority order (first queue first)
+ * and blocks while all of them are empty. Every successful {@link #offer} releases one
+ * permit, so a waiting dispatcher wakes as soon as work arrives instead of polling.
+ *
+ * The queues must be thread-safe (BlockingQueues or {@link StripedQueue}s), and items must
+ * only be added and removed through this scheduler so the permit count stays in step with
+ * the queue contents.
+ */
+public class RequestScheduler<T> {
+
+    private final List<Queue<T>> queues;
+    private final Semaphore available = new Semaphore(0);
+
+    public RequestScheduler(List<? extends Queue<T>> queuesInPriorityOrder) {
+        this.queues = List.copyOf(queuesInPriorityOrder);
+    }
+
+    /** Adds the item to the given queue and wakes the dispatcher. Returns false if the queue is full. */
+    public boolean offer(Queue<T> queue, T item) {
+        if (!queue.offer(item)) return false;
+        available.release();
+        return true;
+    }
+
+    /** Waits until an item is available and returns the highest-priority one. */
+    public T take() throws InterruptedException {
+        while (true) {
+            available.acquire();
+            T item = pollInOrder();
+            if (item != null) return item;
+        }
+    }
+
+    /** Returns the highest-priority item, or null if all queues are empty. Never blocks. */
+    public T poll() {
+        while (available.tryAcquire()) {
+            T item = pollInOrder();
+            if (item != null) return item;
+        }
+        return null;
+    }
+
+    private T pollInOrder() {
+        for (Queue<T> queue : queues) {
+            T item = queue.poll();
+            if (item != null) return item;
+        }
+        return null;
+    }
+}
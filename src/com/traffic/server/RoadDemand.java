@@ -0,0 +1,145 @@
+package com.traffic.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The adaptive {@link GreenPolicy}'s picture of each road: when the vehicles that asked for
+ * it reach the stop line, and which of them a green has already let through. Nothing
+ * observes real vehicles. While a road is green the estimate discharges its queue in
+ * stop-line order, one vehicle per headway; during yellow nothing moves.
+ *
+ * Arrivals come from RMI threads, greens and extensions from the phase timer, and
+ * staleness checks from the dispatcher, so every method takes the lock.
+ */
+final class RoadDemand {
+
+    private final GreenPolicy policy;
+    private final long headwayNanos;
+    private final long gapNanos;
+    private final List<PriorityQueue<Long>> waiting; // stop-line times of vehicles not yet through
+    private final long[] nextDeparture;              // earliest time the road's next vehicle can leave
+    private final long[] departedThrough;            // stop-line time of the last vehicle let through
+    private final long[] greenSince;                 // start of the road's current or latest green
+    private int green = -1;                          // the discharging road; -1 during yellow
+    private final ReentrantLock lock = new ReentrantLock();
+
+    RoadDemand(GreenPolicy policy, int roads, int initialGreen) {
+        this.policy = policy;
+        this.headwayNanos = TimeUnit.MILLISECONDS.toNanos(policy.headwayMillis());
+        this.gapNanos = TimeUnit.MILLISECONDS.toNanos(policy.gapMillis());
+        this.waiting = new ArrayList<>(roads);
+        for (int i = 0; i < roads; i++) waiting.add(new PriorityQueue<>());
+        this.nextDeparture = new long[roads];
+        this.departedThrough = new long[roads];
+        this.greenSince = new long[roads];
+        Arrays.fill(departedThrough, Long.MIN_VALUE);
+        this.green = initialGreen;
+    }
+
+    void arrived(int road, long stopLineNanos) {
+        lock.lock();
+        try {
+            waiting.get(road).add(stopLineNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** True if the vehicle has (by the estimate) already gone through on a green. */
+    boolean served(int road, long stopLineNanos, long now) {
+        lock.lock();
+        try {
+            if (road == green) discharge(road, now);
+            return stopLineNanos <= departedThrough[road];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** True if vehicles that asked for the road have still to go through. */
+    boolean busy(int road, long now) {
+        lock.lock();
+        try {
+            if (road == green) discharge(road, now);
+            return !waiting.get(road).isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void yellowStarted(long now) {
+        lock.lock();
+        try {
+            if (green >= 0) discharge(green, now);
+            green = -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void greenStarted(int road, long now) {
+        lock.lock();
+        try {
+            green = road;
+            greenSince[road] = now;
+            nextDeparture[road] = now;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * When the green road's current platoon will have cleared: its queued vehicles leave
+     * one headway apart, and the platoon ends at the first vehicle more than a gap behind.
+     * Bounded by the policy's min and max green, measured from the start of the green.
+     */
+    long greenEnd(int road, long now) {
+        lock.lock();
+        try {
+            discharge(road, now);
+            Long[] queued = waiting.get(road).toArray(new Long[0]);
+            Arrays.sort(queued);
+            long next = Math.max(now, nextDeparture[road]);
+            long lastDeparture = now;
+            for (long stopLine : queued) {
+                if (stopLine > next + gapNanos) break;
+                lastDeparture = Math.max(next, stopLine);
+                next = lastDeparture + headwayNanos;
+            }
+            long start = greenSince[road];
+            long min = start + TimeUnit.MILLISECONDS.toNanos(policy.minGreenMillis());
+            long max = start + TimeUnit.MILLISECONDS.toNanos(policy.maxGreenMillis());
+            return Math.min(max, Math.max(min, lastDeparture));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** When the road's current green reaches the policy's min green. */
+    long minGreenEnd(int road) {
+        lock.lock();
+        try {
+            return greenSince[road] + TimeUnit.MILLISECONDS.toNanos(policy.minGreenMillis());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Lets through every vehicle that reached the stop line and got its headway by 'now'
+    private void discharge(int road, long now) {
+        PriorityQueue<Long> queue = waiting.get(road);
+        Long head;
+        while ((head = queue.peek()) != null) {
+            long departure = Math.max(head, nextDeparture[road]);
+            if (departure > now) return;
+            queue.poll();
+            departedThrough[road] = Math.max(departedThrough[road], head);
+            nextDeparture[road] = departure + headwayNanos;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.traffic.server;
+
+import com.traffic.mutex.TcpTransport;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * The road controller processes of a junction when every road runs in its own server:
+ * -Dtraffic.mutex.peers=host:port,... lists one address per road, in direction order, and
+ * -Dtraffic.mutex.node=i names the road this process controls. The roads' mutex nodes talk
+ * over one {@link TcpTransport} per process, with a channel per junction id.
+ */
+public final class RoadPeers {
+
+    private final int node;
+    private final List<InetSocketAddress> addresses;
+    private final ReentrantLock lock = new ReentrantLock();
+    private TcpTransport transport; // bound on first use; guarded by lock
+
+    public RoadPeers(int node, List<InetSocketAddress> addresses) {
+        if (node < 0 || node >= addresses.size()) {
+            throw new IllegalArgumentException("Road node " + node + " is not one of the " + addresses.size() + " peers");
+        }
+        this.node = node;
+        this.addresses = List.copyOf(addresses);
+    }
+
+    /** From -Dtraffic.mutex.peers and -Dtraffic.mutex.node, or null if every road runs in this process. */
+    public static RoadPeers configured() {
+        String peers = System.getProperty("traffic.mutex.peers");
+        if (peers == null || peers.isBlank()) return null;
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String peer : peers.split(",")) {
+            int colon = peer.lastIndexOf(':');
+            addresses.add(new InetSocketAddress(peer.substring(0, colon).trim(), Integer.parseInt(peer.substring(colon + 1).trim())));
+        }
+        return new RoadPeers(Integer.getInteger("traffic.mutex.node", 0), addresses);
+    }
+
+    /** The index of this process's road, in the junction's direction order. */
+    public int node() { return node; }
+
+    public int size() { return addresses.size(); }
+
+    public InetSocketAddress address() { return addresses.get(node); }
+
+    /**
+     * Binds this process's address. A peer's message for a junction this process has not
+     * opened yet calls 'open' with the junction id, so every road controller takes part.
+     */
+    public void listen(Consumer<String> open) {
+        transport().onUnknownChannel(open);
+    }
+
+    /** The shared transport, bound to this process's address on first use. */
+    TcpTransport transport() {
+        lock.lock();
+        try {
+            if (transport == null) {
+                TcpTransport bound = new TcpTransport(node, addresses);
+                try {
+                    bound.listen();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Road node " + node + " could not listen on " + address(), e);
+                }
+                transport = bound;
+            }
+            return transport;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "road " + node + " of " + addresses;
+    }
+}
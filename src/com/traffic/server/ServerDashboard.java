@@ -0,0 +1,306 @@
+package com.traffic.server;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TitledPane;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * JavaFX window of the server. It only observes the {@link SignalController} core:
+ * signal state lives in the intersections, and this view mirrors it on the FX thread.
+ */
+public class ServerDashboard extends Application implements ControllerView {
+
+    // The server GUI shows one junction; all others run without a view
+    private static final String DISPLAYED_INTERSECTION = SignalController.DEFAULT_INTERSECTION;
+
+    // Application.launch creates the instance itself, so the core is handed over statically
+    private static SignalController core;
+
+    // The log view is refreshed from the core's ring buffer once per frame, in one batch
+    private static final Duration LOG_FRAME = Duration.millis(50);
+    private static final int MAX_LOG_LINES = 200;
+
+    /** One formatted row of the log view. */
+    record LogLine(LogType.Group group, String text) {}
+
+    // Queue tables are refreshed from a dirty flag at most QUEUE_REFRESH_HZ times per second,
+    // and show only the head of long queues next to the total count
+    private static final int QUEUE_REFRESH_HZ = Integer.getInteger("traffic.ui.queueRefreshHz", 10);
+    private static final int MAX_QUEUE_ROWS = 100;
+
+    private final Text road12Status = createStatusText("GREEN");
+    private final Text road34Status = createStatusText("RED");
+    private final Text ped12Status = createStatusText("RED");
+    private final Text ped34Status = createStatusText("GREEN");
+    private final ObservableList<LogLine> logs = FXCollections.observableArrayList();
+    private Timeline logRefresh;
+    private final QueueView normalQueueView = new QueueView("Normal Queues");
+    private final QueueView vipQueueView = new QueueView("VIP Queue");
+    private final AtomicBoolean queuesDirty = new AtomicBoolean();
+    private volatile Intersection displayed;
+    private Timeline queueRefresh;
+
+    /** Starts the FX toolkit and shows the dashboard for the core; blocks until the window closes. */
+    public static void show(SignalController controller, String[] args) {
+        core = controller;
+        launch(ServerDashboard.class, args);
+    }
+
+    @Override
+    public void start(Stage primaryStage) {
+        primaryStage.setTitle("Traffic Controller Server");
+        VBox leftPanel = new VBox(20);
+        leftPanel.setPadding(new Insets(10));
+        leftPanel.setMinWidth(350);
+        TitledPane statusPane = new TitledPane("Signal Status", createStatusGrid());
+        statusPane.setCollapsible(false);
+        TitledPane queuePane = new TitledPane("Request Queues", createQueueVBox());
+        queuePane.setCollapsible(false);
+        VBox.setVgrow(queuePane, Priority.ALWAYS);
+        leftPanel.getChildren().addAll(statusPane, queuePane);
+        ListView<LogLine> logView = createLogListView();
+        VBox.setVgrow(logView, Priority.ALWAYS);
+        TitledPane logPane = new TitledPane("System Logs", logView);
+        logPane.setCollapsible(false);
+        HBox.setHgrow(logPane, Priority.ALWAYS);
+        SplitPane splitPane = new SplitPane(leftPanel, logPane);
+        splitPane.setDividerPositions(0.35);
+        ScrollPane scrollPane = new ScrollPane(splitPane);
+        scrollPane.setFitToWidth(true);
+        primaryStage.setScene(new Scene(scrollPane));
+        primaryStage.setMaximized(true);
+        primaryStage.show();
+
+        // Attach first, then catch up with whatever the core did before the window existed
+        core.setView(this);
+        Intersection current = core.getIntersection(DISPLAYED_INTERSECTION);
+        if (current != null) {
+            statusChanged(current, current.getStatus());
+            queuesChanged(current);
+        }
+        core.getLogRing().record(LogType.INFO, null, "Server GUI Started.", null, 0, 0);
+        logRefresh = new Timeline(new KeyFrame(LOG_FRAME, e -> drainLogs()));
+        logRefresh.setCycleCount(Timeline.INDEFINITE);
+        logRefresh.play();
+        drainLogs();
+        queueRefresh = new Timeline(new KeyFrame(Duration.millis(1000.0 / QUEUE_REFRESH_HZ), e -> refreshQueues()));
+        queueRefresh.setCycleCount(Timeline.INDEFINITE);
+        queueRefresh.play();
+        refreshQueues();
+    }
+
+    @Override
+    public void stop() {
+        logRefresh.stop();
+        queueRefresh.stop();
+        core.setView(null);
+    }
+
+    // Formats only the lines that can still be seen and applies them with one list change
+    private void drainLogs() {
+        ArrayDeque<LogLine> newest = new ArrayDeque<>(MAX_LOG_LINES);
+        long skipped = core.getLogRing().drain(Integer.MAX_VALUE, (time, type, junction, subject, object, a, b) -> {
+            if (newest.size() == MAX_LOG_LINES) newest.pollLast();
+            newest.addFirst(new LogLine(type.group(),
+                "[" + LogRing.formatTime(time) + "] " + LogRing.format(type, junction, subject, object, a, b)));
+        });
+        if (skipped > 0 && newest.size() < MAX_LOG_LINES) {
+            newest.addLast(new LogLine(LogType.Group.GENERAL, "... " + skipped + " log events skipped."));
+        }
+        if (newest.isEmpty()) return;
+        List<LogLine> batch = new ArrayList<>(newest);
+        int keep = Math.min(logs.size(), MAX_LOG_LINES - batch.size());
+        if (keep < logs.size()) logs.remove(keep, logs.size());
+        logs.addAll(0, batch);
+    }
+
+    // --- ControllerView: called from controller threads ---
+
+    @Override
+    public void statusChanged(Intersection intersection, Map<String, String> status) {
+        if (!intersection.getId().equals(DISPLAYED_INTERSECTION)) return;
+        Platform.runLater(() -> {
+            setStatusText(road12Status, status.get("road_1_2"));
+            setStatusText(ped12Status, status.get("ped_1_2"));
+            setStatusText(road34Status, status.get("road_3_4"));
+            setStatusText(ped34Status, status.get("ped_3_4"));
+        });
+    }
+
+    // Only marks the view stale; refreshQueues picks the change up on the next tick
+    @Override
+    public void queuesChanged(Intersection intersection) {
+        if (!intersection.getId().equals(DISPLAYED_INTERSECTION)) return;
+        displayed = intersection;
+        queuesDirty.set(true);
+    }
+
+    private void refreshQueues() {
+        Intersection intersection = displayed;
+        if (intersection == null || !queuesDirty.getAndSet(false)) return;
+        normalQueueView.update(intersection.normalQueueSnapshot(MAX_QUEUE_ROWS));
+        vipQueueView.update(intersection.vipQueueSnapshot(MAX_QUEUE_ROWS));
+    }
+
+    private GridPane createStatusGrid() {
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(15);
+        grid.setPadding(new Insets(15, 10, 15, 10));
+        grid.add(new Label("Roads 1 & 2:"), 0, 0);
+        grid.add(road12Status, 1, 0);
+        grid.add(new Label("Pedestrians 1 & 2:"), 0, 1);
+        grid.add(ped12Status, 1, 1);
+        grid.add(new Label("Roads 3 & 4:"), 0, 2);
+        grid.add(road34Status, 1, 2);
+        grid.add(new Label("Pedestrians 3 & 4:"), 0, 3);
+        grid.add(ped34Status, 1, 3);
+
+        Label ipLabel = new Label("Server IP:");
+        ipLabel.setFont(Font.font("Segoe UI", FontWeight.BOLD, 14));
+        Text ipAddressText = new Text(core.getHostIp());
+        ipAddressText.setFont(Font.font("Segoe UI", FontWeight.NORMAL, 14));
+        ipAddressText.setFill(Color.DIMGRAY);
+        grid.add(ipLabel, 0, 4);
+        grid.add(ipAddressText, 1, 4);
+
+        return grid;
+    }
+
+    private VBox createQueueVBox() {
+        return new VBox(10, normalQueueView.node(), vipQueueView.node());
+    }
+
+    /** One queue table plus its count line. Rows are patched with FIFO diffs, not replaced. */
+    private static final class QueueView {
+        private final String title;
+        private final Label count = new Label();
+        private final ObservableList<Intersection.Request> rows = FXCollections.observableArrayList();
+        private final TableView<Intersection.Request> table = new TableView<>();
+
+        QueueView(String title) {
+            this.title = title;
+            table.setItems(rows);
+            table.setPlaceholder(new Label(title));
+            TableColumn<Intersection.Request, String> col = new TableColumn<>("Request From");
+            col.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().toString()));
+            col.setPrefWidth(300);
+            table.getColumns().add(col);
+            VBox.setVgrow(table, Priority.SOMETIMES);
+            count.setText(title + ": 0 waiting");
+        }
+
+        VBox node() {
+            VBox box = new VBox(4, count, table);
+            VBox.setVgrow(box, Priority.SOMETIMES);
+            return box;
+        }
+
+        void update(Intersection.QueueSnapshot snapshot) {
+            List<Intersection.Request> head = snapshot.head();
+            String waiting = title + ": " + snapshot.size() + " of " + snapshot.capacity() + " waiting";
+            count.setText(snapshot.size() > head.size() ? waiting + " (showing first " + head.size() + ")" : waiting);
+            // Each stripe is FIFO: requests mostly leave at the front and join at the back, so find
+            // where the new head starts in the current rows, drop what was before it, append the rest.
+            // When the dispatcher has moved on to another stripe the rows are simply replaced.
+            int start = head.isEmpty() ? rows.size() : indexOf(rows, head.get(0));
+            int overlap = rows.size() - Math.max(start, 0);
+            if (start < 0 || overlap > head.size() || !samePrefix(rows, start, head, overlap)) {
+                rows.setAll(head);
+                return;
+            }
+            if (start > 0) rows.remove(0, start);
+            if (head.size() > overlap) rows.addAll(head.subList(overlap, head.size()));
+        }
+
+        private static int indexOf(List<Intersection.Request> list, Intersection.Request request) {
+            for (int i = 0; i < list.size(); i++) {
+                if (list.get(i) == request) return i;
+            }
+            return -1;
+        }
+
+        private static boolean samePrefix(List<Intersection.Request> rows, int start,
+                                          List<Intersection.Request> head, int length) {
+            for (int i = 0; i < length; i++) {
+                if (rows.get(start + i) != head.get(i)) return false;
+            }
+            return true;
+        }
+    }
+
+    private ListView<LogLine> createLogListView() {
+        ListView<LogLine> logView = new ListView<>(logs);
+        logView.setCellFactory(lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(LogLine item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                    setStyle("");
+                } else {
+                    setText(item.text());
+                    switch (item.group()) {
+                        case MUTEX -> setStyle("-fx-text-fill: blue;");
+                        case ERROR -> setStyle("-fx-font-weight: bold; -fx-text-fill: red;");
+                        case LOAD_BALANCING -> setStyle("-fx-font-weight: bold; -fx-text-fill: orange;");
+                        default -> setStyle("-fx-text-fill: black;");
+                    }
+                }
+            }
+        });
+        return logView;
+    }
+
+    private static Text createStatusText(String initial) {
+        Text text = new Text(initial);
+        text.setFont(Font.font("Segoe UI", FontWeight.BOLD, 18));
+        updateTextColor(text, initial);
+        return text;
+    }
+
+    private static void updateTextColor(Text text, String status) {
+        switch (status.toUpperCase()) {
+            case "GREEN": text.setFill(Color.GREEN); break;
+            case "YELLOW": text.setFill(Color.ORANGE); break;
+            case "RED": text.setFill(Color.RED); break;
+            default: text.setFill(Color.BLACK); break;
+        }
+    }
+
+    private static void setStatusText(Text text, String status) {
+        if (status == null) return;
+        text.setText(status);
+        updateTextColor(text, status);
+    }
+}
@@ -0,0 +1,30 @@
+package com.traffic.server;
+
+import java.time.LocalTime;
+
+/**
+ * Time source and timer behind a junction's phases. {@link PhaseTimer} is the real one. A
+ * virtual clock (see com.traffic.sim) runs every event in order on the caller's thread, so
+ * a junction on such a clock dispatches requests inline rather than on its own thread.
+ */
+public interface SignalClock {
+
+    /** A scheduled task that has not run yet. */
+    interface Cancellable {
+        void cancel();
+    }
+
+    long nanoTime();
+
+    Cancellable schedule(long delayMillis, Runnable task);
+
+    /** Nanoseconds since local midnight, for anything that follows the daily traffic pattern. */
+    default long timeOfDayNanos() {
+        return LocalTime.now().toNanoOfDay();
+    }
+
+    /** True if time only advances between events, which then run one at a time. */
+    default boolean isVirtual() {
+        return false;
+    }
+}
@@ -1,168 +1,133 @@
 package com.traffic.server;
 
+import com.traffic.interfaces.Admission;
 import com.traffic.interfaces.ClientInterface;
+import com.traffic.interfaces.LogEntry;
 import com.traffic.interfaces.RTOClientInterface;
 import com.traffic.interfaces.SignalControllerInterface;
-import javafx.application.Application;
-import javafx.application.Platform;
-import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.geometry.Insets;
-import javafx.geometry.Pos;
-import javafx.scene.Scene;
-import javafx.scene.control.Label;
-import javafx.scene.control.ListCell;
-import javafx.scene.control.ListView;
-import javafx.scene.control.ScrollPane;
-import javafx.scene.control.SplitPane;
-import javafx.scene.control.TableColumn;
-import javafx.scene.control.TableView;
-import javafx.scene.control.TitledPane;
-import javafx.scene.layout.GridPane;
-import javafx.scene.layout.HBox;
-import javafx.scene.layout.Priority;
-import javafx.scene.layout.VBox;
-import javafx.scene.paint.Color;
-import javafx.scene.text.Font;
-import javafx.scene.text.FontWeight;
-import javafx.scene.text.Text;
-import javafx.stage.Stage;
+import com.traffic.interfaces.VehicleRequest;
+import com.traffic.wire.WireServer;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
 import java.net.SocketException;
+import java.nio.file.Path;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Collectors;
 import java.util.Scanner;
+import java.util.TreeMap;
+
+/**
+ * GUI-free core of the server: owns the intersections and serves the RMI interface.
+ * A {@link ControllerView} such as {@link ServerDashboard} may observe it; without one
+ * (started with --headless) the server never touches the JavaFX toolkit and logs to stdout.
+ */
+public class SignalController implements SignalControllerInterface, IntersectionListener {
+
+    // --- RMI and Intersection Management ---
+    private final Map<String, Intersection> intersections = new ConcurrentHashMap<>();
+    private final PhaseTimer phaseTimer = new PhaseTimer();
+    private final EventStream eventStream = new EventStream(this::log);
+    private volatile ControllerView view;
+    private volatile String hostIp = "Not Detected";
+
+    // --- Logging: events are recorded as fields and only formatted when drained ---
+    private static final int LOG_RING_CAPACITY = 8192;
+    private static final long CONSOLE_DRAIN_MILLIS = 100;
+    private final LogRing logRing = new LogRing(LOG_RING_CAPACITY);
+
+    // --- Metrics: one MBean per junction, plus a server-wide summary every dump interval ---
+    private static final int METRICS_DUMP_SECONDS = Integer.getInteger("traffic.metrics.dumpSeconds", 60);
+    private final Map<String, LatencyHistogram.Snapshot> lastDump = new ConcurrentHashMap<>();
+
+    public void setView(ControllerView view) {
+        this.view = view;
+    }
 
-public class SignalController extends Application implements SignalControllerInterface {
+    public String getHostIp() {
+        return hostIp;
+    }
 
-    // --- Inner classes defined first to be visible throughout the class ---
-    record ClientInfo(ClientInterface stub, String type) {}
-    record Request(String clientId, String direction, boolean isVip, int proximity) {
-        @Override
-        public String toString() {
-            return clientId + (isVip ? " (VIP)" : "");
-        }
+    public Intersection getIntersection(String intersectionId) {
+        return intersections.get(intersectionId);
     }
-    class RoadProcess {
-        final String id;
-        int clock = 0;
-        boolean requestingCS = false;
-        RoadProcess(String id) { this.id = id; }
-        boolean receiveRequest(int otherClock, String otherId) {
-            clock = Math.max(clock, otherClock) + 1;
-            log("MUTEX: " + id + " received REQUEST(" + otherClock + ") from " + otherId + ". My clock is now " + clock);
-            if (!requestingCS || otherClock < this.clock || (otherClock == this.clock && otherId.compareTo(this.id) < 0)) {
-                log("MUTEX: " + id + " grants permission. Sending REPLY to " + otherId);
-                return true;
-            } else {
-                log("MUTEX: " + id + " defers reply to " + otherId + " (My request has priority).");
-                return false;
-            }
-        }
+
+    /** Recent log events; the attached view (or the headless console printer) drains it. */
+    public LogRing getLogRing() {
+        return logRing;
     }
 
-    // --- RMI and Client Management ---
-    private static final SignalController INSTANCE = createInstance();
-    private final Map<String, ClientInfo> clients = new ConcurrentHashMap<>();
-    private final int REQUIRED_CLIENTS = 2;
-    private static String hostIp = "Not Detected";
-
-    // --- NEW RTO MANAGEMENT ---
-    private final List<RTOClientInterface> rtoClients = new CopyOnWriteArrayList<>();
-    private final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock(true);
-
-    private volatile String activeDirection = "1_2";
-    private volatile boolean inTransition = false;
-    private final Object lock = new Object();
-    private final BlockingQueue<Request> vipQueue = new LinkedBlockingQueue<>();
-    private final BlockingQueue<Request> normalQueue1 = new LinkedBlockingQueue<>(5);
-    private final BlockingQueue<Request> normalQueue2 = new LinkedBlockingQueue<>();
-    private volatile boolean useQueue1 = true;
-    private final int QUEUE_THRESHOLD = 5;
-
-    private static final Text road12Status = createStatusText("GREEN");
-    private static final Text road34Status = createStatusText("RED");
-    private static final Text ped12Status = createStatusText("RED");
-    private static final Text ped34Status = createStatusText("GREEN");
-    private static final ObservableList<String> logs = FXCollections.observableArrayList();
-    private static final ObservableList<Request> queue1Data = FXCollections.observableArrayList();
-    private static final ObservableList<Request> queue2Data = FXCollections.observableArrayList();
-    private static final ObservableList<Request> vipQueueData = FXCollections.observableArrayList();
-
-    private final RoadProcess process12 = new RoadProcess("1_2");
-    private final RoadProcess process34 = new RoadProcess("3_4");
-
-    private static SignalController createInstance() {
+    private Intersection intersection(String intersectionId) {
+        return intersections.computeIfAbsent(intersectionId, id -> {
+            record(LogType.INTERSECTION_CREATED, id, id, null, 0, 0);
+            Intersection created = new Intersection(id, IntersectionConfig.DEFAULT, this, phaseTimer);
+            created.restore();
+            registerMetrics(created);
+            return created;
+        });
+    }
+
+    // Junctions journaled before a restart come back at once, with their queues and lights,
+    // rather than when their first client registers again
+    private void restoreJournaledIntersections() {
+        Path dir = IntersectionConfig.DEFAULT.journalDir();
+        if (dir == null) return;
         try {
-            return new SignalController();
-        } catch (RemoteException e) {
-            e.printStackTrace();
-            return null;
+            for (String id : RequestJournal.junctionIds(dir)) intersection(id);
+        } catch (IOException e) {
+            System.err.println("Could not read the journal directory " + dir + ": " + e.getMessage());
         }
     }
 
-    public SignalController() throws RemoteException {
-        super();
+    @Override
+    public void registerClient(String intersectionId, ClientInterface client, String clientType) throws RemoteException {
+        intersection(intersectionId).registerClient(client, clientType);
     }
 
     @Override
-    public void registerClient(ClientInterface client, String clientType) throws RemoteException {
-        String clientId = client.getClientId();
-        clients.put(clientId, new ClientInfo(client, clientType));
-        log("Client registered: " + clientId + " as " + clientType);
-        log(clients.size() + " of " + REQUIRED_CLIENTS + " clients connected.");
-
-        if (clients.size() == REQUIRED_CLIENTS) {
-            log("All clients connected. Starting system.");
-            new Thread(this::processRequests).start();
+    public Admission receiveRequest(String intersectionId, String clientId, String direction, boolean isVip, int proximity) throws RemoteException {
+        Intersection target = intersections.get(intersectionId);
+        if (target == null) {
+            record(LogType.REQUEST_FOR_UNKNOWN_INTERSECTION, null, intersectionId, clientId, 0, 0);
+            return Admission.rejected(0);
         }
+        return target.receiveRequest(clientId, direction, isVip, proximity);
     }
 
     @Override
-    public void receiveRequest(String clientId, String direction, boolean isVip, int proximity) throws RemoteException {
-        Request newRequest = new Request(clientId, direction, isVip, proximity);
-        handleRequest(newRequest);
+    public Admission receiveRequests(String intersectionId, List<VehicleRequest> batch) throws RemoteException {
+        Intersection target = intersections.get(intersectionId);
+        if (target == null) {
+            record(LogType.BATCH_FOR_UNKNOWN_INTERSECTION, null, intersectionId, null, batch.size(), 0);
+            return Admission.rejected(0);
+        }
+        return target.receiveRequests(batch);
     }
 
     @Override
-    public void registerRTO(RTOClientInterface rto) throws RemoteException {
-        rtoClients.add(rto);
-        log("RTO client connected.");
-        rto.updateStatus(getCurrentStatusMap());
+    public void registerRTO(String intersectionId, RTOClientInterface rto) throws RemoteException {
+        intersection(intersectionId).registerRTO(rto);
     }
 
     @Override
-    public void forceSignalChange(String direction, String rtoId) throws RemoteException {
-        log("RTO " + rtoId + " is attempting a manual override to " + direction + ".");
-        if (stateLock.writeLock().tryLock()) {
-            try {
-                if (direction.equals(activeDirection) || inTransition) {
-                    log("Manual override rejected: Direction is already active or in transition.");
-                    return;
-                }
-                log("WRITE LOCK ACQUIRED by " + rtoId + ". Forcing state change.");
-                DatabaseManager.logEvent("Manual override initiated by " + rtoId + " to " + direction);
-                switchDirection(direction);
-            } finally {
-                stateLock.writeLock().unlock();
-                log("WRITE LOCK RELEASED by " + rtoId);
-            }
-        } else {
-            log("Manual override rejected: System is busy.");
+    public void forceSignalChange(String intersectionId, String direction, String rtoId) throws RemoteException {
+        Intersection target = intersections.get(intersectionId);
+        if (target == null) {
+            record(LogType.OVERRIDE_UNKNOWN_INTERSECTION, null, intersectionId, direction, 0, 0);
+            return;
         }
+        target.forceSignalChange(direction, rtoId);
     }
 
     @Override
@@ -170,313 +135,130 @@ public class SignalController extends Application implements SignalControllerInt
         return DatabaseManager.getHistory();
     }
 
-    private void handleRequest(Request request) {
-        log("Received request: " + request);
-        if (request.isVip()) {
-            vipQueue.offer(request);
-        } else {
-            if (useQueue1 && normalQueue1.size() >= QUEUE_THRESHOLD) {
-                log("LOAD BALANCING: Queue 1 is full. Switching to Queue 2.");
-                useQueue1 = false;
-            }
-            if (!useQueue1 && normalQueue1.isEmpty()) {
-                log("LOAD BALANCING: Queue 1 is empty. Switching back.");
-                useQueue1 = true;
-            }
-            BlockingQueue<Request> targetQueue = useQueue1 ? normalQueue1 : normalQueue2;
-            if (!targetQueue.offer(request)) {
-                log("ERROR: Both queues are full. Dropping request: " + request);
-            }
-        }
-        updateQueueViews();
+    @Override
+    public List<LogEntry> getLogHistoryBefore(long beforeSeq, int limit) throws RemoteException {
+        return DatabaseManager.getHistoryBefore(beforeSeq, limit);
     }
 
-    private void processRequests() {
-        while (true) {
-            try {
-                Request request = takeRequestFromQueues();
-                log("Processing next request: " + request);
-                updateQueueViews();
-
-                if (request.direction().equals(activeDirection) || inTransition) {
-                    log("Ignoring request for already active/transitioning direction.");
-                    continue;
-                }
-                
-                stateLock.writeLock().lock();
-                try {
-                    log("WRITE LOCK ACQUIRED by automated system.");
-                    if (runMutexProtocol(request)) {
-                        switchDirection(request.direction());
-                    }
-                } finally {
-                    stateLock.writeLock().unlock();
-                    log("WRITE LOCK RELEASED by automated system.");
-                }
-
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log("Request processing thread interrupted.");
-            }
-        }
-    }
-    
-    private boolean runMutexProtocol(Request request) {
-        RoadProcess requester = request.direction().equals("1_2") ? process12 : process34;
-        RoadProcess other = request.direction().equals("1_2") ? process34 : process12;
-        log("MUTEX: " + requester.id + " wants to enter Critical Section (CS).");
-        requester.requestingCS = true;
-        requester.clock++;
-        log("MUTEX: " + requester.id + " sending REQUEST(" + requester.clock + ") to " + other.id);
-        boolean permissionGranted = other.receiveRequest(requester.clock, requester.id);
-        if (permissionGranted) {
-            log("MUTEX: " + requester.id + " received REPLY from " + other.id + ". Entering CS.");
-            requester.requestingCS = false;
-            return true;
-        } else {
-            log("MUTEX: " + requester.id + " did not get permission. Request will be retried later.");
-            handleRequest(request);
-            return false;
-        }
+    @Override
+    public List<LogEntry> getLogHistorySince(long afterSeq, int limit) throws RemoteException {
+        return DatabaseManager.getHistorySince(afterSeq, limit);
     }
 
-    private void switchDirection(String newDirection) {
-        synchronized (lock) {
-            if (inTransition) return;
-            inTransition = true;
-        }
-        try {
-            log("TRANSITION: Starting switch to " + newDirection);
-            String yellowDir = activeDirection;
-            broadcastState(yellowDir.equals("1_2") ? "1_2_YELLOW" : "3_4_YELLOW", "Transitioning");
-            broadcastState(yellowDir.equals("1_2") ? "3_4_BLINK_RED" : "1_2_BLINK_RED", "Transitioning");
-            updateStatusGUI(yellowDir, "YELLOW", "RED");
-            Thread.sleep(5000);
-
-            activeDirection = newDirection;
-            broadcastState(activeDirection.equals("1_2") ? "1_2_GREEN" : "3_4_GREEN", "Active");
-            broadcastState(activeDirection.equals("1_2") ? "3_4_RED" : "1_2_RED", "Stopped");
-            updateStatusGUI(activeDirection, "GREEN", "RED");
-
-            // MODIFICATION 2: Add a 5-second delay to keep the light green
-            log("GREEN LIGHT: Holding " + newDirection + " green for 5 seconds.");
-            Thread.sleep(5000);
-
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        } finally {
-            inTransition = false;
-            log("TRANSITION: Complete. Active direction is now " + activeDirection);
-        }
-    }
-    
-    private Request takeRequestFromQueues() throws InterruptedException {
-        // MODIFICATION 3: Simplified logic to always prioritize emptying queue 1
-        while (true) {
-            Request r = vipQueue.poll();
-            if (r != null) return r;
-            
-            r = normalQueue1.poll();
-            if (r != null) return r;
-
-            r = normalQueue2.poll();
-            if (r != null) return r;
-            
-            Thread.sleep(100); // Wait if all queues are empty
-        }
+    @Override
+    public void subscribeEvents(RTOClientInterface rto, long afterSeq) throws RemoteException {
+        eventStream.subscribe(rto, afterSeq);
+        record(LogType.RTO_SUBSCRIBED, null, null, null, afterSeq, 0);
     }
 
-    private void broadcastState(String state, String details) {
-        String direction = state.substring(0, 3);
-        String targetType = "ROAD_" + direction;
-        List<ClientInterface> relevantClients = clients.values().stream()
-            .filter(info -> info.type().equals(targetType))
-            .map(ClientInfo::stub)
-            .collect(Collectors.toList());
-        for (ClientInterface client : relevantClients) {
-            try {
-                client.updateSignalState(state, details);
-            } catch (RemoteException e) {
-                log("Could not reach client: " + e.getMessage());
-            }
-        }
+    // --- IntersectionListener: side effects of the junction logic ---
+    @Override
+    public void log(Intersection intersection, LogType type, String subject, String object, long a, long b) {
+        record(type, intersection.getId(), subject, object, a, b);
     }
 
     @Override
-    public void start(Stage primaryStage) {
-        primaryStage.setTitle("Traffic Controller Server");
-        VBox leftPanel = new VBox(20);
-        leftPanel.setPadding(new Insets(10));
-        leftPanel.setMinWidth(350);
-        TitledPane statusPane = new TitledPane("Signal Status", createStatusGrid());
-        statusPane.setCollapsible(false);
-        TitledPane queuePane = new TitledPane("Request Queues", createQueueVBox());
-        queuePane.setCollapsible(false);
-        VBox.setVgrow(queuePane, Priority.ALWAYS);
-        leftPanel.getChildren().addAll(statusPane, queuePane);
-        ListView<String> logView = createLogListView();
-        VBox.setVgrow(logView, Priority.ALWAYS);
-        TitledPane logPane = new TitledPane("System Logs", logView);
-        logPane.setCollapsible(false);
-        HBox.setHgrow(logPane, Priority.ALWAYS);
-        SplitPane splitPane = new SplitPane(leftPanel, logPane);
-        splitPane.setDividerPositions(0.35);
-        ScrollPane scrollPane = new ScrollPane(splitPane);
-        scrollPane.setFitToWidth(true);
-        primaryStage.setScene(new Scene(scrollPane));
-        primaryStage.setMaximized(true);
-        primaryStage.show();
-        INSTANCE.log("Server GUI Started.");
-    }
-    
-// In SignalController.java
-
-    private GridPane createStatusGrid() {
-        GridPane grid = new GridPane();
-        grid.setHgap(10);
-        grid.setVgap(15);
-        grid.setPadding(new Insets(15, 10, 15, 10));
-        grid.add(new Label("Roads 1 & 2:"), 0, 0);
-        grid.add(road12Status, 1, 0);
-        grid.add(new Label("Pedestrians 1 & 2:"), 0, 1);
-        grid.add(ped12Status, 1, 1);
-        grid.add(new Label("Roads 3 & 4:"), 0, 2);
-        grid.add(road34Status, 1, 2);
-        grid.add(new Label("Pedestrians 3 & 4:"), 0, 3);
-        grid.add(ped34Status, 1, 3);
-        
-        // --- ADD THESE LINES ---
-        Label ipLabel = new Label("Server IP:");
-        ipLabel.setFont(Font.font("Segoe UI", FontWeight.BOLD, 14));
-        Text ipAddressText = new Text(hostIp); // Reads the IP from our static variable
-        ipAddressText.setFont(Font.font("Segoe UI", FontWeight.NORMAL, 14));
-        ipAddressText.setFill(Color.DIMGRAY);
-        grid.add(ipLabel, 0, 4);
-        grid.add(ipAddressText, 1, 4);
-        // --- END OF ADDED LINES ---
-        
-        return grid;
-    }
-    
-    private VBox createQueueVBox() {
-        TableView<Request> queue1Table = createQueueTableView("Normal Queue 1 (Capacity: 5)");
-        queue1Table.setItems(queue1Data);
-        TableView<Request> queue2Table = createQueueTableView("Normal Queue 2");
-        queue2Table.setItems(queue2Data);
-        TableView<Request> vipQueueTable = createQueueTableView("VIP Queue");
-        vipQueueTable.setItems(vipQueueData);
-        VBox.setVgrow(queue1Table, Priority.SOMETIMES);
-        VBox.setVgrow(queue2Table, Priority.SOMETIMES);
-        VBox.setVgrow(vipQueueTable, Priority.SOMETIMES);
-        return new VBox(10, queue1Table, queue2Table, vipQueueTable);
-    }
-    
-    private TableView<Request> createQueueTableView(String title) {
-        TableView<Request> table = new TableView<>();
-        table.setPlaceholder(new Label(title));
-        TableColumn<Request, String> col = new TableColumn<>("Request From");
-        col.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().toString()));
-        col.setPrefWidth(300);
-        table.getColumns().add(col);
-        return table;
+    public void statusChanged(Intersection intersection, Map<String, String> status) {
+        ControllerView v = view;
+        if (v != null) v.statusChanged(intersection, status);
     }
 
-    private ListView<String> createLogListView() {
-        ListView<String> logView = new ListView<>(logs);
-        logView.setCellFactory(lv -> new ListCell<>() {
-            @Override
-            protected void updateItem(String item, boolean empty) {
-                super.updateItem(item, empty);
-                if (empty || item == null) {
-                    setText(null);
-                    setStyle("");
-                } else {
-                    setText(item);
-                    if (item.contains("MUTEX")) setStyle("-fx-text-fill: blue;");
-                    else if (item.contains("PRIORITY")) setStyle("-fx-font-weight: bold; -fx-text-fill: red;");
-                    else if (item.contains("LOAD BALANCING")) setStyle("-fx-font-weight: bold; -fx-text-fill: orange;");
-                    else setStyle("-fx-text-fill: black;");
-                }
-            }
-        });
-        return logView;
+    @Override
+    public void queuesChanged(Intersection intersection) {
+        ControllerView v = view;
+        if (v != null) v.queuesChanged(intersection);
     }
-    
-    private static Text createStatusText(String initial) {
-        Text text = new Text(initial);
-        text.setFont(Font.font("Segoe UI", FontWeight.BOLD, 18));
-        updateTextColor(text, initial);
-        return text;
+
+    private void log(String message) {
+        record(LogType.INFO, null, message, null, 0, 0);
     }
 
-    private static void updateTextColor(Text text, String status) {
-        switch (status.toUpperCase()) {
-            case "GREEN": text.setFill(Color.GREEN); break;
-            case "YELLOW": text.setFill(Color.ORANGE); break;
-            case "RED": text.setFill(Color.RED); break;
-            default: text.setFill(Color.BLACK); break;
+    // Persistence is decided by the event type; only persistent events are formatted here
+    private void record(LogType type, String intersectionId, String subject, String object, long a, long b) {
+        logRing.record(type, intersectionId, subject, object, a, b);
+        if (type.isPersistent()) {
+            DatabaseManager.logEvent(LogRing.format(type, intersectionId, subject, object, a, b));
         }
     }
-    
-    private void log(String message) {
-        Platform.runLater(() -> {
-            String timestamp = new SimpleDateFormat("HH:mm:ss.SSS").format(new Date());
-            logs.add(0, "[" + timestamp + "] " + message);
-            if (logs.size() > 200) logs.remove(200);
-        });
-        if (message.contains("TRANSITION") || message.contains("PRIORITY") || message.contains("Manual override")) {
-            DatabaseManager.logEvent(message);
+
+    private static void registerMetrics(Intersection intersection) {
+        try {
+            ObjectName name = new ObjectName("com.traffic:type=Intersection,name=" + ObjectName.quote(intersection.getId()));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(intersection.metrics(), name);
+        } catch (JMException e) {
+            System.err.println("Could not register metrics for " + intersection.getId() + ": " + e.getMessage());
         }
     }
 
-    private void updateStatusGUI(String direction, String roadStatus, String pedStatus) {
-        Platform.runLater(() -> {
-            if (direction.equals("1_2")) {
-                road12Status.setText(roadStatus);
-                updateTextColor(road12Status, roadStatus);
-                ped12Status.setText(pedStatus);
-                updateTextColor(ped12Status, pedStatus);
-                road34Status.setText(pedStatus);
-                updateTextColor(road34Status, pedStatus);
-                ped34Status.setText(roadStatus);
-                updateTextColor(ped34Status, roadStatus);
-            } else {
-                road34Status.setText(roadStatus);
-                updateTextColor(road34Status, roadStatus);
-                ped34Status.setText(pedStatus);
-                updateTextColor(ped34Status, pedStatus);
-                road12Status.setText(pedStatus);
-                updateTextColor(road12Status, pedStatus);
-                ped12Status.setText(roadStatus);
-                updateTextColor(ped12Status, roadStatus);
-            }
-        });
-        Map<String, String> currentStatus = getCurrentStatusMap();
-        for (RTOClientInterface rto : rtoClients) {
-            try {
-                rto.updateStatus(currentStatus);
-            } catch (RemoteException e) {
-                log("Failed to update an RTO client. It may have disconnected.");
-                rtoClients.remove(rto);
+    // Logs, for the last interval, the wait percentiles of every direction and class summed over
+    // all junctions, and the refusal/throttle/ignore/deferral/override counts and queue depths
+    private void dumpMetrics() {
+        Map<String, LatencyHistogram.Snapshot> totals = new TreeMap<>();
+        long refused = 0, throttled = 0, ignored = 0, deferrals = 0, overrides = 0, queued = 0, waiting = 0, oldest = 0;
+        for (Intersection intersection : intersections.values()) {
+            JunctionMetrics m = intersection.metrics();
+            LatencyHistogram.Snapshot[] snapshots = m.waitSnapshots();
+            for (int i = 0; i < snapshots.length; i++) {
+                String key = m.directions().get(i / 2) + (i % 2 == 0 ? " normal" : " vip");
+                totals.merge(key, snapshots[i], LatencyHistogram.Snapshot::plus);
             }
+            refused += m.getRequestsRefused();
+            throttled += m.getRequestsThrottled() + m.getVipRequestsThrottled();
+            ignored += m.getRequestsIgnored();
+            deferrals += m.getMutexDeferrals();
+            overrides += m.getOverridesInitiated();
+            queued += m.getVipQueueDepth() + m.getNormalQueueDepth();
+            waiting += m.getWaitingRequests();
+            oldest = Math.max(oldest, m.getOldestWaitMillis());
         }
+        for (Map.Entry<String, LatencyHistogram.Snapshot> e : totals.entrySet()) {
+            LatencyHistogram.Snapshot previous = lastDump.put(e.getKey(), e.getValue());
+            LatencyHistogram.Snapshot interval = previous == null ? e.getValue() : e.getValue().minus(previous);
+            if (interval.count() == 0) continue;
+            log(String.format("METRICS: wait %s n=%d mean=%.0fms p50=%dms p90=%dms p99=%dms p99.9=%dms max=%dms",
+                e.getKey(), interval.count(), interval.mean(), interval.percentile(0.50), interval.percentile(0.90),
+                interval.percentile(0.99), interval.percentile(0.999), interval.max()));
+        }
+        log(String.format("METRICS: %d junctions, refused=%d throttled=%d ignored=%d deferrals=%d overrides=%d queued=%d waiting=%d oldest=%dms",
+            intersections.size(), refused, throttled, ignored, deferrals, overrides, queued, waiting, oldest));
+        for (String replica : DatabaseManager.replicaStatus()) log("METRICS: log replica " + replica);
     }
-    
-    private Map<String, String> getCurrentStatusMap() {
-        return Map.of(
-            "road_1_2", road12Status.getText(),
-            "ped_1_2", ped12Status.getText(),
-            "road_3_4", road34Status.getText(),
-            "ped_3_4", ped34Status.getText()
-        );
+
+    private void startMetricsDump() {
+        if (METRICS_DUMP_SECONDS <= 0) return;
+        Thread dumper = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    TimeUnit.SECONDS.sleep(METRICS_DUMP_SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (!intersections.isEmpty()) dumpMetrics();
+            }
+        }, "metrics-dump");
+        dumper.setDaemon(true);
+        dumper.start();
     }
-    
-    private void updateQueueViews() {
-        Platform.runLater(() -> {
-            queue1Data.setAll(new CopyOnWriteArrayList<>(normalQueue1));
-            queue2Data.setAll(new CopyOnWriteArrayList<>(normalQueue2));
-            vipQueueData.setAll(new CopyOnWriteArrayList<>(vipQueue));
-        });
+
+    // Headless output: prints the ring to stdout whenever no view is attached to drain it
+    private void startConsoleLog() {
+        Thread printer = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (view == null) {
+                    long skipped = logRing.drain(LOG_RING_CAPACITY, (time, type, junction, subject, object, a, b) ->
+                        System.out.println("[" + LogRing.formatTime(time) + "] " + LogRing.format(type, junction, subject, object, a, b)));
+                    if (skipped > 0) System.out.println("... " + skipped + " log events skipped.");
+                }
+                try {
+                    Thread.sleep(CONSOLE_DRAIN_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "console-log");
+        printer.setDaemon(true);
+        printer.start();
     }
 
     // MODIFICATION 1: New helper method to find the local IP
@@ -505,21 +287,52 @@ public class SignalController extends Application implements SignalControllerInt
     // In SignalController.java
 
     public static void main(String[] args) {
-        DatabaseManager.initialize();
+        // --headless (or -Dtraffic.headless=true) runs the core without ever starting JavaFX
+        boolean headless = Boolean.getBoolean("traffic.headless") || Arrays.asList(args).contains("--headless");
+        SignalController controller = new SignalController();
+        if (!DatabaseManager.initialize()) {
+            System.err.println("Server not started: the event log has no replica to write to.");
+            System.exit(1);
+        }
+        DatabaseManager.setCommitListener(controller.eventStream);
         try {
-            // This line is new - it saves the IP to our static variable
-            hostIp = getLocalIpAddress(); 
-            
-            System.setProperty("java.rmi.server.hostname", hostIp);
-            System.out.println("RMI Hostname set to: " + hostIp);
-            
+            controller.hostIp = getLocalIpAddress();
+
+            System.setProperty("java.rmi.server.hostname", controller.hostIp);
+            // Bounds every callback to a signal client or RTO; FanOut isolates the slow ones
+            if (System.getProperty("sun.rmi.transport.tcp.responseTimeout") == null) {
+                System.setProperty("sun.rmi.transport.tcp.responseTimeout", "2000");
+            }
+            System.out.println("RMI Hostname set to: " + controller.hostIp);
+
             Registry registry = LocateRegistry.createRegistry(1099);
-            SignalControllerInterface stub = (SignalControllerInterface) UnicastRemoteObject.exportObject(INSTANCE, 0);
+            SignalControllerInterface stub = (SignalControllerInterface) UnicastRemoteObject.exportObject(controller, 0);
             registry.rebind("TrafficSignalService", stub);
-            INSTANCE.log("RMI Service bound. Waiting for clients...");
+            controller.log("RMI Service bound. Waiting for clients...");
+            controller.startMetricsDump();
+            controller.restoreJournaledIntersections();
+
+            // One process per road: -Dtraffic.mutex.peers=host:port,... and -Dtraffic.mutex.node=i
+            RoadPeers peers = IntersectionConfig.DEFAULT.roadPeers();
+            if (peers != null) {
+                peers.listen(controller::intersection);
+                controller.log("Controlling " + peers + ", mutex traffic on " + peers.address());
+            }
+
+            // Optional binary transport for high-rate clients: -Dtraffic.wire.port=1100
+            String wirePort = System.getProperty("traffic.wire.port");
+            if (wirePort != null) {
+                new WireServer(controller, Integer.parseInt(wirePort));
+                controller.log("Wire transport listening on port " + wirePort);
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
-        launch(args);
+        // The exported RMI object keeps the JVM alive in headless mode
+        if (headless) {
+            controller.startConsoleLog();
+        } else {
+            ServerDashboard.show(controller, args);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,16 @@
+package com.traffic.server;
+
+/**
+ * Phase of a junction's signal cycle.
+ * GREEN -> YELLOW (old direction clears) -> GREEN_HOLD (new direction's minimum green) -> GREEN.
+ * A new switch may only start from GREEN.
+ */
+public enum SignalPhase {
+    GREEN,
+    YELLOW,
+    GREEN_HOLD;
+
+    public boolean inTransition() {
+        return this != GREEN;
+    }
+}
@@ -0,0 +1,29 @@
+package com.traffic.server;
+
+import java.util.Map;
+
+/**
+ * Immutable snapshot of one junction's signal state. An {@link Intersection} holds the
+ * current snapshot in an AtomicReference and moves to the next one by compare-and-set,
+ * so readers never block and only one of several racing switches can win.
+ *
+ * targetDirection is the direction being switched to while YELLOW (null otherwise), and
+ * deadlineNanos is the System.nanoTime() at which the current phase is due to end (0 in GREEN).
+ * status is the road/pedestrian view pushed to RTOs for this snapshot.
+ */
+public record SignalState(SignalPhase phase, String activeDirection, String targetDirection,
+                          long deadlineNanos, long version, Map<String, String> status) {
+
+    static SignalState initial(String direction, Map<String, String> status) {
+        return new SignalState(SignalPhase.GREEN, direction, null, 0, 0, status);
+    }
+
+    SignalState next(SignalPhase phase, String activeDirection, String targetDirection,
+                     long deadlineNanos, Map<String, String> status) {
+        return new SignalState(phase, activeDirection, targetDirection, deadlineNanos, version + 1, status);
+    }
+
+    public boolean inTransition() {
+        return phase.inTransition();
+    }
+}
@@ -0,0 +1,111 @@
+package com.traffic.server;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * A bounded queue split into stripes, so producers on different stripes never touch the same
+ * memory. Each item goes to the stripe picked by its key (the client id for requests), which
+ * keeps every client's requests in order. Enqueue is lock-free: a CAS reserves a slot in the
+ * stripe's count, then the item is appended to its ConcurrentLinkedQueue. A full stripe
+ * refuses the item rather than spilling into another, so one busy client cannot take every slot.
+ *
+ * Meant for a single consumer, which takes from the stripes round-robin, starting after the
+ * one it last took from, so no stripe can starve the others.
+ */
+public class StripedQueue<T> extends AbstractQueue<T> {
+
+    private final List<ConcurrentLinkedQueue<T>> stripes;
+    private final AtomicInteger[] counts;
+    private final int stripeCapacity;
+    private final ToIntFunction<? super T> key;
+    private int next; // consumer only
+
+    /** capacity is the total over all stripes, rounded up to a multiple of the stripe count. */
+    public StripedQueue(int stripeCount, int capacity, ToIntFunction<? super T> key) {
+        if (stripeCount < 1 || capacity < 1) throw new IllegalArgumentException("Need at least one stripe and one slot");
+        List<ConcurrentLinkedQueue<T>> created = new ArrayList<>(stripeCount);
+        this.counts = new AtomicInteger[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            created.add(new ConcurrentLinkedQueue<>());
+            counts[i] = new AtomicInteger();
+        }
+        this.stripes = List.copyOf(created);
+        this.stripeCapacity = (capacity + stripeCount - 1) / stripeCount;
+        this.key = key;
+    }
+
+    @Override
+    public boolean offer(T item) {
+        int stripe = Math.floorMod(key.applyAsInt(item), stripes.size());
+        AtomicInteger count = counts[stripe];
+        int n;
+        do {
+            n = count.get();
+            if (n >= stripeCapacity) return false;
+        } while (!count.compareAndSet(n, n + 1));
+        stripes.get(stripe).add(item);
+        return true;
+    }
+
+    @Override
+    public T poll() {
+        for (int i = 0; i < stripes.size(); i++) {
+            int stripe = (next + i) % stripes.size();
+            T item = stripes.get(stripe).poll();
+            if (item != null) {
+                counts[stripe].decrementAndGet();
+                next = stripe + 1;
+                return item;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public T peek() {
+        for (int i = 0; i < stripes.size(); i++) {
+            T item = stripes.get((next + i) % stripes.size()).peek();
+            if (item != null) return item;
+        }
+        return null;
+    }
+
+    /** Slots reserved over all stripes; may briefly count an item still being appended. */
+    @Override
+    public int size() {
+        int size = 0;
+        for (AtomicInteger count : counts) size += count.get();
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (AtomicInteger count : counts) {
+            if (count.get() > 0) return false;
+        }
+        return true;
+    }
+
+    public int capacity() {
+        return stripeCapacity * stripes.size();
+    }
+
+    public int stripeCount() {
+        return stripes.size();
+    }
+
+    /** Weakly consistent, stripe by stripe in the order the consumer will visit them. */
+    @Override
+    public Iterator<T> iterator() {
+        List<T> items = new ArrayList<>();
+        int start = next;
+        for (int i = 0; i < stripes.size(); i++) items.addAll(stripes.get((start + i) % stripes.size()));
+        return items.iterator();
+    }
+}
@@ -0,0 +1,34 @@
+package com.traffic.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for one signal switch, from the CAS that wins it until the new road's green
+ * hold ends. Begun on the dispatcher (or RTO) thread and committed by the phase timer.
+ */
+@Name("traffic.Transition")
+@Label("Signal Transition")
+@Category({"Traffic Controller", "Signal"})
+@Description("A junction switching its green from one road to another")
+final class TransitionEvent extends jdk.jfr.Event {
+
+    @Label("Intersection")
+    String intersection;
+
+    @Label("From")
+    String from;
+
+    @Label("To")
+    String to;
+
+    @Label("Cause")
+    @Description("request or override")
+    String cause;
+
+    @Label("CAS Retries")
+    @Description("Times the state snapshot changed under the switch before its CAS landed")
+    int casRetries;
+}
@@ -0,0 +1,78 @@
+package com.traffic.sim;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When the next vehicle arrives. Times are nanoseconds since midnight of the first
+ * simulated day (or since the start of a load test); the caller supplies the random
+ * source so runs are reproducible. Some processes keep state, so use one instance per source.
+ */
+public interface ArrivalProcess {
+
+    long HOUR_NANOS = TimeUnit.HOURS.toNanos(1);
+    long DAY_NANOS = TimeUnit.DAYS.toNanos(1);
+
+    /** The time of the arrival after one at nowNanos. */
+    long next(long nowNanos, Random random);
+
+    /** Memoryless arrivals at a constant rate. */
+    static ArrivalProcess poisson(double perMinute) {
+        double meanGapNanos = TimeUnit.MINUTES.toNanos(1) / perMinute;
+        return (now, random) -> now + exponential(meanGapNanos, random);
+    }
+
+    /**
+     * Poisson arrivals whose rate follows the day: baseline at night, rising to the peak
+     * around 08:00 and 17:30. Drawn by thinning a peak-rate Poisson stream.
+     */
+    static ArrivalProcess rushHour(double basePerMinute, double peakPerMinute) {
+        return rushHour(basePerMinute, peakPerMinute, DAY_NANOS);
+    }
+
+    /** The rush-hour profile with the whole day squeezed into dayNanos; rates are per real minute. */
+    static ArrivalProcess rushHour(double basePerMinute, double peakPerMinute, long dayNanos) {
+        double hourNanos = dayNanos / 24.0;
+        double meanGapNanos = TimeUnit.MINUTES.toNanos(1) / peakPerMinute;
+        return (now, random) -> {
+            long t = now;
+            while (true) {
+                t += exponential(meanGapNanos, random);
+                double hour = (t % dayNanos) / hourNanos;
+                double peaks = Math.exp(-Math.pow(hour - 8.0, 2)) + Math.exp(-Math.pow((hour - 17.5) / 1.2, 2));
+                double rate = basePerMinute + (peakPerMinute - basePerMinute) * Math.min(1.0, peaks);
+                if (random.nextDouble() * peakPerMinute <= rate) return t;
+            }
+        };
+    }
+
+    /**
+     * Poisson arrivals with a single daily peak, e.g. one direction of a commute: baseline
+     * rate, rising to the peak around peakHour with the given spread in hours.
+     */
+    static ArrivalProcess dailyPeak(double basePerMinute, double peakPerMinute, double peakHour, double spreadHours) {
+        double meanGapNanos = TimeUnit.MINUTES.toNanos(1) / peakPerMinute;
+        return (now, random) -> {
+            long t = now;
+            while (true) {
+                t += exponential(meanGapNanos, random);
+                double hour = (t % DAY_NANOS) / (double) HOUR_NANOS;
+                double rate = basePerMinute + (peakPerMinute - basePerMinute) * Math.exp(-Math.pow((hour - peakHour) / spreadHours, 2));
+                if (random.nextDouble() * peakPerMinute <= rate) return t;
+            }
+        };
+    }
+
+    /**
+     * Poisson arrivals whose rate switches between a quiet and a burst level. Both spells
+     * last an exponentially distributed time with the given means.
+     */
+    static ArrivalProcess bursty(double quietPerMinute, double burstPerMinute, double meanQuietSeconds, double meanBurstSeconds) {
+        return new BurstyArrivals(quietPerMinute, burstPerMinute, meanQuietSeconds, meanBurstSeconds);
+    }
+
+    /** An exponentially distributed gap with the given mean, at least 1 ns. */
+    static long exponential(double meanNanos, Random random) {
+        return Math.max(1, (long) (-meanNanos * Math.log(1.0 - random.nextDouble())));
+    }
+}
@@ -0,0 +1,33 @@
+package com.traffic.sim;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Two-state Markov-modulated Poisson process; see {@link ArrivalProcess#bursty}. */
+final class BurstyArrivals implements ArrivalProcess {
+
+    private final double[] meanGapNanos;   // per state: quiet, burst
+    private final double[] meanSpellNanos;
+    private int state = 0;
+    private long spellEnd = -1;
+
+    BurstyArrivals(double quietPerMinute, double burstPerMinute, double meanQuietSeconds, double meanBurstSeconds) {
+        long minute = TimeUnit.MINUTES.toNanos(1);
+        this.meanGapNanos = new double[] {minute / quietPerMinute, minute / burstPerMinute};
+        this.meanSpellNanos = new double[] {meanQuietSeconds * 1e9, meanBurstSeconds * 1e9};
+    }
+
+    @Override
+    public long next(long nowNanos, Random random) {
+        if (spellEnd < 0) spellEnd = nowNanos + ArrivalProcess.exponential(meanSpellNanos[state], random);
+        long t = nowNanos;
+        while (true) {
+            long candidate = t + ArrivalProcess.exponential(meanGapNanos[state], random);
+            if (candidate <= spellEnd) return candidate;
+            // The spell ended first; being memoryless, the next gap restarts at its end
+            t = spellEnd;
+            state ^= 1;
+            spellEnd = t + ArrivalProcess.exponential(meanSpellNanos[state], random);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.traffic.sim;
+
+import com.traffic.server.SignalClock;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discrete-event clock. Scheduled tasks sit in a queue ordered by virtual due time, ties
+ * broken by scheduling order, and {@link #runUntil} executes them one by one on the
+ * calling thread, jumping the clock to each task's due time. Nothing here reads the wall
+ * clock, so the same inputs always produce the same run. Single-threaded.
+ */
+public class SimulatedClock implements SignalClock {
+
+    private static final class Event implements Cancellable, Comparable<Event> {
+        final long due;
+        final long order;
+        final Runnable task;
+        boolean cancelled;
+
+        Event(long due, long order, Runnable task) {
+            this.due = due;
+            this.order = order;
+            this.task = task;
+        }
+
+        @Override public void cancel() { cancelled = true; }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(due, other.due);
+            return byTime != 0 ? byTime : Long.compare(order, other.order);
+        }
+    }
+
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private long now = 0;
+    private long scheduled = 0;
+    private long executed = 0;
+
+    @Override
+    public long nanoTime() {
+        return now;
+    }
+
+    @Override
+    public Cancellable schedule(long delayMillis, Runnable task) {
+        return scheduleAt(now + TimeUnit.MILLISECONDS.toNanos(delayMillis), task);
+    }
+
+    /** Runs the task at the given virtual time, or right away (after earlier events) if it has passed. */
+    public Cancellable scheduleAt(long dueNanos, Runnable task) {
+        Event event = new Event(Math.max(dueNanos, now), scheduled++, task);
+        events.add(event);
+        return event;
+    }
+
+    /** Virtual time starts at midnight of the first simulated day. */
+    @Override
+    public long timeOfDayNanos() {
+        return now % TimeUnit.DAYS.toNanos(1);
+    }
+
+    @Override
+    public boolean isVirtual() {
+        return true;
+    }
+
+    /** Executes every event due up to and including endNanos, then leaves the clock there. */
+    public void runUntil(long endNanos) {
+        Event event;
+        while ((event = events.peek()) != null && event.due <= endNanos) {
+            events.poll();
+            if (event.cancelled) continue;
+            now = event.due;
+            executed++;
+            event.task.run();
+        }
+        now = Math.max(now, endNanos);
+    }
+
+    public long executedEvents() {
+        return executed;
+    }
+}
@@ -0,0 +1,305 @@
+package com.traffic.sim;
+
+import com.traffic.interfaces.ClientInterface;
+import com.traffic.mutex.MutexAlgorithm;
+import com.traffic.server.Intersection;
+import com.traffic.server.GreenPolicy;
+import com.traffic.server.IntersectionConfig;
+import com.traffic.server.IntersectionListener;
+import com.traffic.server.LogType;
+import com.traffic.server.SignalPhase;
+import com.traffic.server.SignalState;
+
+import java.rmi.RemoteException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Replays a day (or several) of junction traffic on a {@link SimulatedClock}. One
+ * {@link Intersection} with the production timings and logic is fed by a rush-hour
+ * arrival process per road; everything runs on the main thread in virtual time, so a
+ * simulated day takes seconds and the same seed always gives the same result. Prints
+ * per-hour arrivals, switches and waits (arrival until the road turns green) and a
+ * digest of the full event log, which is identical between runs with the same inputs.
+ *
+ * The vehicles themselves are modelled too: each one reaches the stop line proximity
+ * metres after its request, at 8-14 m/s, and the line lets one vehicle through every
+ * {@link #SATURATION_HEADWAY_NANOS} while its road is green. Vehicles cleared and delay
+ * (time stopped at the line) show what a signal timing policy actually achieves. These
+ * draws come from their own random stream, so they do not change the junction's run.
+ * Requests the junction refuses because its queues are full are counted, not resent: the
+ * queued requests for the same road already bring its green, and the vehicle's stop-line
+ * model does not depend on its request.
+ *
+ * Usage: Simulation [hours] [seed] [ra|sk] [basePerMinute] [peakPerMinute] [vipRatio] [fixed|adaptive]
+ */
+public class Simulation {
+
+    public static void main(String[] args) throws Exception {
+        int hours = args.length > 0 ? Integer.parseInt(args[0]) : 24;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        MutexAlgorithm algorithm = args.length > 2 ? MutexAlgorithm.fromName(args[2]) : MutexAlgorithm.configured();
+        double basePerMinute = args.length > 3 ? Double.parseDouble(args[3]) : 1;
+        double peakPerMinute = args.length > 4 ? Double.parseDouble(args[4]) : 20;
+        double vipRatio = args.length > 5 ? Double.parseDouble(args[5]) : 0.02;
+        GreenPolicy policy = args.length > 6 ? GreenPolicy.fromName(args[6]) : GreenPolicy.configured();
+
+        long wallStart = System.nanoTime();
+        Simulation simulation = new Simulation(IntersectionConfig.DEFAULT.withMutex(algorithm).withGreenPolicy(policy), seed,
+            ArrivalProcess.rushHour(basePerMinute, peakPerMinute), vipRatio);
+        simulation.run(hours * ArrivalProcess.HOUR_NANOS);
+        double wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+
+        simulation.printReport(hours);
+        System.out.println(simulation.summary(hours));
+        System.out.printf("Simulated %d h in %.2f s of wall time (%.0fx), %d events, log digest %016x%n",
+            hours, wallSeconds, hours * 3600 / wallSeconds, simulation.clock.executedEvents(), simulation.recorder.digest);
+        System.exit(0); // FanOut's idle delivery threads
+    }
+
+    /** Time between two vehicles leaving the stop line of a green road. */
+    public static final long SATURATION_HEADWAY_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    /** Totals over a run; waits are request until green (VIP waits also on their own), delays are time stopped at the line. */
+    public record Summary(long arrivals, long cleared, long peakClearedPerHour, long switches, double meanWaitSeconds,
+                          double p95WaitSeconds, double meanDelaySeconds, double p95DelaySeconds,
+                          double meanVipWaitSeconds, double p95VipWaitSeconds) {}
+
+    private final SimulatedClock clock = new SimulatedClock();
+    private final Recorder recorder = new Recorder();
+    private final Intersection junction;
+    private final List<String> directions;
+    private final Random random;
+    private final Random vehicleRandom;
+    private final Map<String, StopLine> stopLines = new HashMap<>();
+    private final Map<String, ArrivalProcess> arrivals = new HashMap<>();
+    private final double vipRatio;
+    private long vehicles = 0;
+
+    public Simulation(IntersectionConfig config, long seed, ArrivalProcess arrivals, double vipRatio) throws RemoteException {
+        this(config, seed, direction -> arrivals, vipRatio);
+    }
+
+    /** Every road gets its own arrival process, e.g. a main road and a side road, or opposite commutes. */
+    public Simulation(IntersectionConfig config, long seed, Function<String, ArrivalProcess> arrivals, double vipRatio)
+            throws RemoteException {
+        this.junction = new Intersection("SIM", config, recorder, clock);
+        this.directions = config.directions();
+        this.random = new Random(seed);
+        this.vehicleRandom = new Random(seed ^ 0x5DEECE66DL);
+        this.vipRatio = vipRatio;
+        for (String direction : directions) {
+            this.arrivals.put(direction, arrivals.apply(direction));
+            stopLines.put(direction, new StopLine(direction));
+            junction.registerClient(new NullClient("Pair_" + direction), "ROAD_" + direction);
+        }
+    }
+
+    public void run(long durationNanos) {
+        for (String direction : directions) scheduleArrival(direction, 0);
+        clock.runUntil(durationNanos);
+    }
+
+    private void scheduleArrival(String direction, long after) {
+        long at = arrivals.get(direction).next(after, random);
+        clock.scheduleAt(at, () -> {
+            boolean vip = random.nextDouble() < vipRatio;
+            recorder.arrived(direction, at, vip, junction.getState());
+            int proximity = 10 + random.nextInt(491);
+            junction.receiveRequest("Car-" + (++vehicles), direction, vip, proximity);
+            double metersPerSecond = 8 + 6 * vehicleRandom.nextDouble();
+            StopLine line = stopLines.get(direction);
+            clock.scheduleAt(at + (long) (TimeUnit.SECONDS.toNanos(1) * proximity / metersPerSecond), line::arrive);
+            scheduleArrival(direction, at);
+        });
+    }
+
+    private void printReport(int hours) {
+        System.out.printf("%5s %9s %9s %9s %8s %13s %12s %12s %14s %13s%n", "hour", "arrivals", "cleared", "switches",
+            "refused", "mean wait(s)", "p95 wait(s)", "max wait(s)", "mean delay(s)", "p95 delay(s)");
+        for (int h = 0; h < hours; h++) {
+            Hour hour = recorder.hour(h);
+            long[] waits = hour.waits.sorted();
+            long[] delays = hour.delays.sorted();
+            System.out.printf("%5d %9d %9d %9d %8d %13.2f %12.2f %12.2f %14.2f %13.2f%n", h, hour.arrivals, delays.length,
+                hour.switches, hour.dropped, mean(waits), percentile(waits, 0.95) / 1e9, percentile(waits, 1.0) / 1e9,
+                mean(delays), percentile(delays, 0.95) / 1e9);
+        }
+    }
+
+    public Summary summary(int hours) {
+        return summary(0, hours);
+    }
+
+    /** Totals over hours [fromHour, toHour), e.g. to leave out the days a learning policy is still warming up. */
+    public Summary summary(int fromHour, int toHour) {
+        Samples waits = new Samples();
+        Samples vipWaits = new Samples();
+        Samples delays = new Samples();
+        long arrived = 0, switches = 0, peak = 0;
+        for (int h = fromHour; h < toHour; h++) {
+            Hour hour = recorder.hour(h);
+            arrived += hour.arrivals;
+            switches += hour.switches;
+            peak = Math.max(peak, hour.delays.size);
+            waits.addAll(hour.waits);
+            vipWaits.addAll(hour.vipWaits);
+            delays.addAll(hour.delays);
+        }
+        long[] w = waits.sorted();
+        long[] v = vipWaits.sorted();
+        long[] d = delays.sorted();
+        return new Summary(arrived, d.length, peak, switches, mean(w), percentile(w, 0.95) / 1e9, mean(d), percentile(d, 0.95) / 1e9,
+            mean(v), percentile(v, 0.95) / 1e9);
+    }
+
+    private static double mean(long[] values) {
+        return values.length == 0 ? 0 : Arrays.stream(values).average().orElse(0) / 1e9;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+    }
+
+    // --- Per-hour statistics: waits by the hour a vehicle asked, delays by the hour it cleared ---
+    private static final class Hour {
+        long arrivals;
+        long switches;
+        long dropped;
+        final Samples waits = new Samples();
+        final Samples vipWaits = new Samples();
+        final Samples delays = new Samples();
+
+        void served(long waitNanos, boolean vip) {
+            waits.add(waitNanos);
+            if (vip) vipWaits.add(waitNanos);
+        }
+    }
+
+    private static final class Samples {
+        long[] values = new long[64];
+        int size;
+
+        void add(long value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        void addAll(Samples other) {
+            for (int i = 0; i < other.size; i++) add(other.values[i]);
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    // One road's stop line: vehicles queue in arrival order and leave one per headway while it is green
+    private final class StopLine {
+        private final String direction;
+        private final ArrayDeque<Long> queue = new ArrayDeque<>();
+        private long nextFree = 0;
+        private boolean departureScheduled = false;
+
+        StopLine(String direction) {
+            this.direction = direction;
+        }
+
+        void arrive() {
+            queue.add(clock.nanoTime());
+            discharge();
+        }
+
+        void discharge() {
+            if (departureScheduled || queue.isEmpty()) return;
+            SignalState state = junction.getState();
+            if (!direction.equals(state.activeDirection()) || state.phase() == SignalPhase.YELLOW) return;
+            long now = clock.nanoTime();
+            if (nextFree > now) {
+                departureScheduled = true;
+                clock.scheduleAt(nextFree, () -> {
+                    departureScheduled = false;
+                    discharge();
+                });
+                return;
+            }
+            long arrived = queue.poll();
+            recorder.hourAt(now).delays.add(now - arrived);
+            nextFree = now + SATURATION_HEADWAY_NANOS;
+            discharge();
+        }
+    }
+
+    // Turns the junction's events into statistics and folds every event into the digest
+    private final class Recorder implements IntersectionListener {
+        private final Map<Integer, Hour> hours = new HashMap<>();
+        private final Map<String, ArrayDeque<Long>> waiting = new HashMap<>();
+        private final Map<String, ArrayDeque<Long>> vipWaiting = new HashMap<>(); // the VIPs among them
+        long digest = 1125899906842597L;
+
+        Hour hour(int h) {
+            return hours.computeIfAbsent(h, k -> new Hour());
+        }
+
+        Hour hourAt(long nanos) {
+            return hour((int) (nanos / ArrivalProcess.HOUR_NANOS));
+        }
+
+        void arrived(String direction, long at, boolean vip, SignalState state) {
+            hourAt(at).arrivals++;
+            if (direction.equals(state.activeDirection()) && state.phase() != SignalPhase.YELLOW) {
+                hourAt(at).served(0, vip); // its road is already green
+            } else {
+                (vip ? vipWaiting : waiting).computeIfAbsent(direction, d -> new ArrayDeque<>()).add(at);
+            }
+        }
+
+        private void served(Map<String, ArrayDeque<Long>> queues, String direction, boolean vip, long now) {
+            ArrayDeque<Long> queue = queues.get(direction);
+            if (queue == null) return;
+            for (long arrival : queue) hourAt(arrival).served(now - arrival, vip);
+            queue.clear();
+        }
+
+        @Override
+        public void log(Intersection intersection, LogType type, String subject, String object, long a, long b) {
+            long now = clock.nanoTime();
+            digest = 31 * (31 * (31 * digest + now) + type.name().hashCode()) + (subject == null ? 0 : subject.hashCode());
+            digest = 31 * (31 * (31 * digest + (object == null ? 0 : object.hashCode())) + a) + b;
+            switch (type) {
+                case TRANSITION_START -> hourAt(now).switches++;
+                case REQUEST_DROPPED -> hourAt(now).dropped++;
+                case GREEN_HOLD -> {
+                    stopLines.get(subject).discharge();
+                    served(waiting, subject, false, now);
+                    served(vipWaiting, subject, true, now);
+                }
+                default -> {}
+            }
+        }
+
+        @Override public void statusChanged(Intersection intersection, Map<String, String> status) {}
+        @Override public void queuesChanged(Intersection intersection) {}
+    }
+
+    private static final class NullClient implements ClientInterface {
+        private final String clientId;
+
+        NullClient(String clientId) {
+            this.clientId = clientId;
+        }
+
+        @Override public void updateSignalState(String state, String details) {}
+        @Override public String getClientId() { return clientId; }
+        @Override public void initiateRequest(boolean isVip, int proximity) {}
+    }
+}
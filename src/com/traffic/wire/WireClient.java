@@ -0,0 +1,223 @@
+package com.traffic.wire;
+
+import com.traffic.interfaces.Admission;
+import com.traffic.interfaces.ClientInterface;
+import com.traffic.interfaces.LogEntry;
+import com.traffic.interfaces.RTOClientInterface;
+import com.traffic.interfaces.SignalControllerInterface;
+import com.traffic.interfaces.VehicleRequest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.rmi.RemoteException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Client side of the wire transport: a {@link SignalControllerInterface} that encodes each call
+ * as one frame on a single TCP connection. Callbacks sent by the server are decoded on a reader
+ * thread and passed to the registered client or RTO object. History and event-stream calls need
+ * request/response semantics and stay on RMI. A request or batch waits for the server's
+ * ADMISSION answer to its call id and returns it, so refusals reach the caller as they do over
+ * RMI; no answer within {@value #REPLY_TIMEOUT_MILLIS} ms, or a lost connection, fails the call.
+ */
+public class WireClient implements SignalControllerInterface {
+
+    private static final long REPLY_TIMEOUT_MILLIS = 10_000;
+
+    private final SocketChannel channel;
+    private final Thread reader;
+    private final AtomicInteger nextCall = new AtomicInteger();
+    private final Map<Integer, CompletableFuture<Admission>> calls = new ConcurrentHashMap<>();
+    private volatile IOException lost; // set once the connection is gone; fails every later call
+    private volatile ClientInterface client;
+    private volatile RTOClientInterface rto;
+
+    public WireClient(String host, int port) throws IOException {
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        this.reader = new Thread(this::readLoop, "wire-client-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    public void close() throws IOException {
+        channel.close();
+        reader.interrupt();
+        failCalls(new IOException("Wire client closed"));
+    }
+
+    @Override
+    public void registerClient(String intersectionId, ClientInterface client, String clientType) throws RemoteException {
+        this.client = client;
+        send(new WireProtocol.FrameWriter(WireProtocol.REGISTER_CLIENT)
+            .putString(intersectionId).putString(client.getClientId()).putString(clientType));
+    }
+
+    @Override
+    public Admission receiveRequest(String intersectionId, String clientId, String direction, boolean isVip, int proximity) throws RemoteException {
+        int call = nextCall.incrementAndGet();
+        return call(call, new WireProtocol.FrameWriter(WireProtocol.REQUEST).putInt(call)
+            .putString(intersectionId).putString(clientId).putString(direction).putBoolean(isVip).putInt(proximity));
+    }
+
+    @Override
+    public Admission receiveRequests(String intersectionId, List<VehicleRequest> batch) throws RemoteException {
+        int call = nextCall.incrementAndGet();
+        WireProtocol.FrameWriter frame = new WireProtocol.FrameWriter(WireProtocol.REQUEST_BATCH).putInt(call)
+            .putString(intersectionId).putInt(batch.size());
+        for (VehicleRequest r : batch) {
+            frame.putString(r.clientId()).putString(r.direction()).putBoolean(r.isVip()).putInt(r.proximity());
+        }
+        return call(call, frame);
+    }
+
+    // Sends the frame and waits for the ADMISSION answer to its call id
+    private Admission call(int call, WireProtocol.FrameWriter frame) throws RemoteException {
+        CompletableFuture<Admission> reply = new CompletableFuture<>();
+        calls.put(call, reply);
+        try {
+            IOException gone = lost;
+            if (gone != null) throw new RemoteException("Wire connection lost", gone);
+            send(frame);
+            return reply.get(REPLY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RemoteException failed) throw failed;
+            throw new RemoteException("Wire connection lost", e.getCause());
+        } catch (TimeoutException e) {
+            throw new RemoteException("No answer from the server within " + REPLY_TIMEOUT_MILLIS + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Interrupted while waiting for the server's answer");
+        } finally {
+            calls.remove(call);
+        }
+    }
+
+    private void failCalls(IOException cause) {
+        lost = cause;
+        calls.values().forEach(reply -> reply.completeExceptionally(cause));
+    }
+
+    @Override
+    public void registerRTO(String intersectionId, RTOClientInterface rto) throws RemoteException {
+        this.rto = rto;
+        send(new WireProtocol.FrameWriter(WireProtocol.REGISTER_RTO).putString(intersectionId));
+    }
+
+    @Override
+    public void forceSignalChange(String intersectionId, String direction, String rtoId) throws RemoteException {
+        send(new WireProtocol.FrameWriter(WireProtocol.FORCE)
+            .putString(intersectionId).putString(direction).putString(rtoId));
+    }
+
+    @Override
+    public List<String> getLogHistory() throws RemoteException {
+        throw unsupported();
+    }
+
+    @Override
+    public List<LogEntry> getLogHistoryBefore(long beforeSeq, int limit) throws RemoteException {
+        throw unsupported();
+    }
+
+    @Override
+    public List<LogEntry> getLogHistorySince(long afterSeq, int limit) throws RemoteException {
+        throw unsupported();
+    }
+
+    @Override
+    public void subscribeEvents(RTOClientInterface rto, long afterSeq) throws RemoteException {
+        throw unsupported();
+    }
+
+    private static RemoteException unsupported() {
+        return new RemoteException("Not available over the wire transport; use RMI");
+    }
+
+    private void send(WireProtocol.FrameWriter frame) throws RemoteException {
+        ByteBuffer buffer = frame.toBuffer();
+        try {
+            synchronized (channel) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new RemoteException("Wire send failed", e);
+        }
+    }
+
+    private void readLoop() {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        try {
+            while (true) {
+                header.clear();
+                readFully(header);
+                int length = header.getInt(0);
+                if (length <= 0 || length > WireProtocol.MAX_FRAME) throw new IOException("Bad frame length " + length);
+                ByteBuffer frame = ByteBuffer.allocate(length);
+                readFully(frame);
+                frame.flip();
+                dispatch(frame.get(), new WireProtocol.FrameReader(frame));
+            }
+        } catch (IOException e) {
+            if (channel.isOpen()) System.err.println("Wire connection lost: " + e.getMessage());
+            failCalls(e);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) throw new IOException("Connection closed by server");
+        }
+    }
+
+    private void dispatch(byte type, WireProtocol.FrameReader r) {
+        try {
+            switch (type) {
+                case WireProtocol.SIGNAL_STATE -> {
+                    String state = r.getString();
+                    String details = r.getString();
+                    if (client != null) client.updateSignalState(state, details);
+                }
+                case WireProtocol.INITIATE -> {
+                    boolean isVip = r.getBoolean();
+                    int proximity = r.getInt();
+                    if (client != null) client.initiateRequest(isVip, proximity);
+                }
+                case WireProtocol.RTO_STATUS -> {
+                    int count = r.getShort();
+                    Map<String, String> status = new HashMap<>();
+                    for (int i = 0; i < count; i++) status.put(r.getString(), r.getString());
+                    if (rto != null) rto.updateStatus(status);
+                }
+                case WireProtocol.ACK -> {
+                    String message = r.getString();
+                    if (rto != null) rto.acknowledge(message);
+                }
+                case WireProtocol.ADMISSION -> {
+                    int call = r.getInt();
+                    byte status = r.getByte();
+                    Admission admission = status == WireProtocol.CALL_FAILED
+                        ? null : new Admission(Admission.Status.values()[status], r.getInt(), r.getLong());
+                    CompletableFuture<Admission> reply = calls.get(call);
+                    if (reply == null) return; // the caller already gave up
+                    if (admission != null) reply.complete(admission);
+                    else reply.completeExceptionally(new RemoteException("The server failed the call"));
+                }
+                default -> System.err.println("Wire client: unknown frame type " + type);
+            }
+        } catch (RemoteException | RuntimeException e) {
+            System.err.println("Wire client: frame " + type + " failed: " + e.getMessage());
+        }
+    }
+}
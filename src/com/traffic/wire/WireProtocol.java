@@ -0,0 +1,132 @@
+package com.traffic.wire;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Length-prefixed binary framing used by the optional NIO transport.
+ *
+ * <pre>
+ * frame  := length:int32 type:int8 payload      (length counts type + payload)
+ * string := length:uint16 utf8-bytes
+ * </pre>
+ *
+ * Client to server: REGISTER_CLIENT, REQUEST, REQUEST_BATCH, REGISTER_RTO, FORCE.
+ * Server to client: SIGNAL_STATE, INITIATE, RTO_STATUS, ACK, ADMISSION.
+ * REQUEST and REQUEST_BATCH carry a call id, and the server answers each with one ADMISSION
+ * carrying the same id, so the caller learns how many requests were taken. All other
+ * messages are one-way.
+ */
+public final class WireProtocol {
+
+    public static final int DEFAULT_PORT = 1100;
+    public static final int MAX_FRAME = 1 << 20;
+
+    // Client -> server
+    public static final byte REGISTER_CLIENT = 1; // intersectionId, clientId, clientType
+    public static final byte REQUEST = 2;         // call:int32, intersectionId, clientId, direction, vip:int8, proximity:int32
+    public static final byte REQUEST_BATCH = 3;   // call:int32, intersectionId, count:int32, count x (clientId, direction, vip, proximity)
+    public static final byte REGISTER_RTO = 4;    // intersectionId
+    public static final byte FORCE = 5;           // intersectionId, direction, rtoId
+
+    // Server -> client
+    public static final byte SIGNAL_STATE = 10;   // state, details
+    public static final byte INITIATE = 11;       // vip:int8, proximity:int32
+    public static final byte RTO_STATUS = 12;     // count:int16, count x (key, value)
+    public static final byte ACK = 13;            // message
+    public static final byte ADMISSION = 14;      // call:int32, status:int8, accepted:int32, retryAfterMillis:int64
+
+    /** ADMISSION status for a call that threw on the server, in place of an Admission.Status ordinal. */
+    public static final byte CALL_FAILED = -1;
+
+    private WireProtocol() {}
+
+    /** Builds one frame in a growable array; call {@link #toBuffer()} once done. */
+    public static final class FrameWriter {
+        private byte[] bytes = new byte[64];
+        private int position = 4; // room for the length prefix
+
+        public FrameWriter(byte type) {
+            putByte(type);
+        }
+
+        public FrameWriter putByte(int value) {
+            ensure(1);
+            bytes[position++] = (byte) value;
+            return this;
+        }
+
+        public FrameWriter putBoolean(boolean value) {
+            return putByte(value ? 1 : 0);
+        }
+
+        public FrameWriter putShort(int value) {
+            ensure(2);
+            bytes[position++] = (byte) (value >>> 8);
+            bytes[position++] = (byte) value;
+            return this;
+        }
+
+        public FrameWriter putInt(int value) {
+            ensure(4);
+            bytes[position++] = (byte) (value >>> 24);
+            bytes[position++] = (byte) (value >>> 16);
+            bytes[position++] = (byte) (value >>> 8);
+            bytes[position++] = (byte) value;
+            return this;
+        }
+
+        public FrameWriter putLong(long value) {
+            putInt((int) (value >>> 32));
+            return putInt((int) value);
+        }
+
+        public FrameWriter putString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            if (utf8.length > 0xFFFF) throw new IllegalArgumentException("String too long for a frame");
+            putShort(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, position, utf8.length);
+            position += utf8.length;
+            return this;
+        }
+
+        public ByteBuffer toBuffer() {
+            int length = position - 4;
+            bytes[0] = (byte) (length >>> 24);
+            bytes[1] = (byte) (length >>> 16);
+            bytes[2] = (byte) (length >>> 8);
+            bytes[3] = (byte) length;
+            return ByteBuffer.wrap(bytes, 0, position);
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + extra));
+            }
+        }
+    }
+
+    /** Reads one frame's payload (the type byte has already been consumed). */
+    public static final class FrameReader {
+        private final ByteBuffer buffer;
+
+        public FrameReader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public byte getByte() { return buffer.get(); }
+        public boolean getBoolean() { return buffer.get() != 0; }
+        public int getShort() { return buffer.getShort() & 0xFFFF; }
+        public int getInt() { return buffer.getInt(); }
+        public long getLong() { return buffer.getLong(); }
+
+        public String getString() {
+            int length = getShort();
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.traffic.wire;
+
+import com.traffic.interfaces.Admission;
+import com.traffic.interfaces.ClientInterface;
+import com.traffic.interfaces.LogEntry;
+import com.traffic.interfaces.RTOClientInterface;
+import com.traffic.interfaces.SignalControllerInterface;
+import com.traffic.interfaces.VehicleRequest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.rmi.RemoteException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Non-blocking server side of the wire transport. One selector thread accepts connections,
+ * decodes frames and calls straight into the controller through {@link SignalControllerInterface};
+ * clients that register over the wire are handed to the controller as ordinary
+ * {@link ClientInterface}/{@link RTOClientInterface} objects whose callbacks become frames.
+ */
+public class WireServer {
+
+    private final SignalControllerInterface target;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final Thread loop;
+    private volatile boolean running = true;
+
+    public WireServer(SignalControllerInterface target, int port) throws IOException {
+        this.target = target;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.loop = new Thread(this::run, "wire-server");
+        this.loop.setDaemon(true);
+        this.loop.start();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            loop.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        serverChannel.close();
+        selector.close();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+                Connection c;
+                while ((c = pendingWrites.poll()) != null) {
+                    if (c.key.isValid()) c.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) accept();
+                    else {
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isReadable()) connection.read();
+                            if (key.isValid() && key.isWritable()) connection.flush();
+                        } catch (IOException e) {
+                            connection.close();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Wire server error: " + e.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+    }
+
+    private final class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>(); // guarded by itself
+        volatile boolean open = true;
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            in.flip();
+            while (in.remaining() >= 4) {
+                int length = in.getInt(in.position());
+                if (length <= 0 || length > WireProtocol.MAX_FRAME) throw new IOException("Bad frame length " + length);
+                if (in.remaining() < 4 + length) {
+                    if (in.capacity() < 4 + length) {
+                        ByteBuffer bigger = ByteBuffer.allocate(4 + length);
+                        bigger.put(in);
+                        in = bigger;
+                        return;
+                    }
+                    break;
+                }
+                in.position(in.position() + 4);
+                ByteBuffer frame = in.slice(in.position(), length);
+                in.position(in.position() + length);
+                dispatch(frame.get(), new WireProtocol.FrameReader(frame));
+            }
+            in.compact();
+        }
+
+        // Called from any thread (controller callbacks). Replies made while handling a frame are
+        // written straight away; others are handed to the selector thread.
+        void send(ByteBuffer frame) throws RemoteException {
+            if (!open) throw new RemoteException("Wire connection closed");
+            synchronized (out) {
+                out.add(frame);
+            }
+            if (Thread.currentThread() == loop) {
+                try {
+                    flush();
+                } catch (IOException e) {
+                    close();
+                    throw new RemoteException("Wire send failed", e);
+                }
+                return;
+            }
+            pendingWrites.add(this);
+            selector.wakeup();
+        }
+
+        void flush() throws IOException {
+            synchronized (out) {
+                while (!out.isEmpty()) {
+                    ByteBuffer head = out.peek();
+                    channel.write(head);
+                    if (head.hasRemaining()) { // socket buffer full: finish when writable
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    out.poll();
+                }
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        void close() {
+            open = false;
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        private void dispatch(byte type, WireProtocol.FrameReader r) {
+            int call = -1; // set for request frames, which are always answered
+            try {
+                switch (type) {
+                    case WireProtocol.REGISTER_CLIENT -> {
+                        String intersectionId = r.getString();
+                        String clientId = r.getString();
+                        String clientType = r.getString();
+                        target.registerClient(intersectionId, new WireClientStub(this, clientId), clientType);
+                    }
+                    case WireProtocol.REQUEST -> {
+                        call = r.getInt();
+                        answer(call, target.receiveRequest(r.getString(), r.getString(), r.getString(), r.getBoolean(), r.getInt()));
+                    }
+                    case WireProtocol.REQUEST_BATCH -> {
+                        call = r.getInt();
+                        String intersectionId = r.getString();
+                        int count = r.getInt();
+                        List<VehicleRequest> batch = new ArrayList<>(count);
+                        for (int i = 0; i < count; i++) {
+                            batch.add(new VehicleRequest(r.getString(), r.getString(), r.getBoolean(), r.getInt()));
+                        }
+                        answer(call, target.receiveRequests(intersectionId, batch));
+                    }
+                    case WireProtocol.REGISTER_RTO -> target.registerRTO(r.getString(), new WireRtoStub(this));
+                    case WireProtocol.FORCE -> target.forceSignalChange(r.getString(), r.getString(), r.getString());
+                    default -> System.err.println("Wire server: unknown frame type " + type);
+                }
+            } catch (RemoteException | RuntimeException e) {
+                System.err.println("Wire server: frame " + type + " failed: " + e.getMessage());
+                if (call >= 0) failed(call);
+            }
+        }
+
+        // Every request call gets its admission back, accepted or not
+        private void answer(int call, Admission admission) throws RemoteException {
+            send(new WireProtocol.FrameWriter(WireProtocol.ADMISSION).putInt(call).putByte(admission.status().ordinal())
+                .putInt(admission.accepted()).putLong(admission.retryAfterMillis()).toBuffer());
+        }
+
+        // The call threw on the server; the client fails it as RMI would
+        private void failed(int call) {
+            try {
+                send(new WireProtocol.FrameWriter(WireProtocol.ADMISSION).putInt(call).putByte(WireProtocol.CALL_FAILED)
+                    .putInt(0).putLong(0).toBuffer());
+            } catch (RemoteException ignored) {
+                // connection already closed; the client's call fails with it
+            }
+        }
+    }
+
+    // Server-side stand-in for a signal client connected over the wire
+    private static final class WireClientStub implements ClientInterface {
+        private final Connection connection;
+        private final String clientId;
+
+        WireClientStub(Connection connection, String clientId) {
+            this.connection = connection;
+            this.clientId = clientId;
+        }
+
+        @Override
+        public void updateSignalState(String state, String details) throws RemoteException {
+            connection.send(new WireProtocol.FrameWriter(WireProtocol.SIGNAL_STATE).putString(state).putString(details).toBuffer());
+        }
+
+        @Override
+        public String getClientId() {
+            return clientId;
+        }
+
+        @Override
+        public void initiateRequest(boolean isVip, int proximity) throws RemoteException {
+            connection.send(new WireProtocol.FrameWriter(WireProtocol.INITIATE).putBoolean(isVip).putInt(proximity).toBuffer());
+        }
+    }
+
+    // Server-side stand-in for an RTO dashboard connected over the wire
+    private static final class WireRtoStub implements RTOClientInterface {
+        private final Connection connection;
+
+        WireRtoStub(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public void updateStatus(Map<String, String> status) throws RemoteException {
+            WireProtocol.FrameWriter frame = new WireProtocol.FrameWriter(WireProtocol.RTO_STATUS).putShort(status.size());
+            status.forEach((k, v) -> frame.putString(k).putString(v));
+            connection.send(frame.toBuffer());
+        }
+
+        @Override
+        public void acknowledge(String message) throws RemoteException {
+            connection.send(new WireProtocol.FrameWriter(WireProtocol.ACK).putString(message).toBuffer());
+        }
+
+        @Override
+        public void receiveEvents(List<LogEntry> frame) throws RemoteException {
+            throw new RemoteException("The event stream is only available over RMI");
+        }
+    }
+}
@@ -5,13 +5,16 @@ module TrafficSystem {
     requires java.rmi;
     requires java.desktop;
     requires java.sql; // NEW: For database (JDBC) access
+    requires java.management; // per-junction metrics MBeans
+    requires jdk.jfr; // flight recorder events on the critical path
+    requires jdk.management; // per-thread allocation counters in the benchmarks
 
     // Makes our RMI interfaces visible to other modules
     exports com.traffic.interfaces;
     
     // Allows the JavaFX framework to launch our client applications
     exports com.traffic.client to javafx.graphics;
-    exports com.traffic.server to javafx.graphics;
+    exports com.traffic.server to javafx.graphics, java.management;
 
     // Allows RMI to use reflection on our client code
     opens com.traffic.client to java.rmi;